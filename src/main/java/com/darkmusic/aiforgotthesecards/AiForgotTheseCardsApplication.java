@@ -3,6 +3,7 @@ package com.darkmusic.aiforgotthesecards;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
@@ -17,6 +18,7 @@ import com.darkmusic.aiforgotthesecards.config.BcryptCompatPasswordEncoder;
 import jakarta.servlet.http.HttpServletResponse;
 
 @SpringBootApplication
+@EnableScheduling
 public class AiForgotTheseCardsApplication {
 
     public static void main(String[] args) {
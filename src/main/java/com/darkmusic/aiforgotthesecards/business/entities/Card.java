@@ -11,10 +11,16 @@ import java.util.Set;
 @Setter
 @Getter
 @Entity
-@Table(name = "card")
+@Table(name = "card", indexes = {
+        // Serves per-deck card lookups and the keyset-paginated card listing (ordered by id)
+        @Index(name = "idx_card_deck_id", columnList = "deck_id, id")
+})
 public class Card {
     @Id
-    @GeneratedValue
+    // Pooled sequence (the same card_seq Hibernate would default to): one sequence call covers 50 inserts, and
+    // unlike identity columns it keeps JDBC insert batching available for bulk saves and imports
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_seq")
+    @SequenceGenerator(name = "card_seq", sequenceName = "card_seq", allocationSize = 50)
     @Column(name="id", nullable = false)
     private Long id;
 
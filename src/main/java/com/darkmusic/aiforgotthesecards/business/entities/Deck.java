@@ -50,4 +50,11 @@ public class Deck {
     @JdbcTypeCode(SqlTypes.LONGVARCHAR)
     @Column(name="template_back")
     private String templateBack;
+
+    // Daily review limits for this deck on top of the user's; null means no deck-specific limit
+    @Column(name="new_cards_per_day")
+    private Integer newCardsPerDay;
+
+    @Column(name="reviews_per_day")
+    private Integer reviewsPerDay;
 }
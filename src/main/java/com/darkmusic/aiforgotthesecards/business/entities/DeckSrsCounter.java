@@ -0,0 +1,66 @@
+package com.darkmusic.aiforgotthesecards.business.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized SRS card counts for one of a user's decks, kept up to date incrementally as cards are
+ * added, removed and reviewed, and repaired periodically by recounting from {@code card} and
+ * {@code user_card_srs}.
+ *
+ * <p>Due counts are bucketed by day relative to {@code bucketDate}: {@code overdueCards} were due before
+ * that day started and {@code dueOnBucketDate} fall due during it. Rows whose bucket date is in the past
+ * are recounted when read.</p>
+ */
+@Setter
+@Getter
+@Entity
+@IdClass(DeckSrsCounter.Key.class)
+@Table(name = "deck_srs_counters", indexes = {
+        @Index(name = "idx_deck_srs_counters_deck", columnList = "deck_id")
+})
+public class DeckSrsCounter {
+    @Id
+    @Column(name="user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name="deck_id", nullable = false)
+    private Long deckId;
+
+    @Column(name="total_cards", nullable = false)
+    private long totalCards;
+
+    @Column(name="reviewed_cards", nullable = false)
+    private long reviewedCards;
+
+    @Column(name="bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name="overdue_cards", nullable = false)
+    private long overdueCards;
+
+    @Column(name="due_on_bucket_date", nullable = false)
+    private long dueOnBucketDate;
+
+    @Column(name="updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long deckId;
+    }
+}
@@ -0,0 +1,68 @@
+package com.darkmusic.aiforgotthesecards.business.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per review, never updated. {@code user_card_srs} holds the latest state per card and is
+ * derived from this log, so the user and card are kept as plain ids: history survives the card
+ * being deleted.
+ */
+@Setter
+@Getter
+@Entity
+@Table(name = "review_log", indexes = {
+        @Index(name = "idx_review_log_user_reviewed", columnList = "user_id, reviewed_at"),
+        @Index(name = "idx_review_log_recorded", columnList = "recorded_at")
+})
+public class ReviewLog {
+    @Id
+    @GeneratedValue
+    @Column(name="id", nullable = false)
+    private Long id;
+
+    @Column(name="user_id", nullable = false)
+    private Long userId;
+
+    @Column(name="card_id", nullable = false)
+    private Long cardId;
+
+    @Column(name="deck_id", nullable = false)
+    private Long deckId;
+
+    @Column(name="quality", nullable = false)
+    private Integer quality;
+
+    // When the user answered (client clock for offline reviews)
+    @Column(name="reviewed_at", nullable = false)
+    private LocalDateTime reviewedAt;
+
+    // When the server logged the review
+    @Column(name="recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    // Null when the card had never been reviewed before
+    @Column(name="interval_before")
+    private Integer intervalBefore;
+
+    @Column(name="ease_before")
+    private Float easeBefore;
+
+    @Column(name="repetitions_before")
+    private Integer repetitionsBefore;
+
+    @Column(name="interval_after", nullable = false)
+    private Integer intervalAfter;
+
+    @Column(name="ease_after", nullable = false)
+    private Float easeAfter;
+
+    @Column(name="repetitions_after", nullable = false)
+    private Integer repetitionsAfter;
+
+    @Column(name="next_review_at", nullable = false)
+    private LocalDateTime nextReviewAt;
+}
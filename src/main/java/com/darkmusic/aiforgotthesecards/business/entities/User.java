@@ -44,4 +44,11 @@ public class User {
 
     @JoinColumn(name="theme_id")
     private Long themeId;
+
+    // Daily review limits across all decks; null means the app-wide default
+    @Column(name="new_cards_per_day")
+    private Integer newCardsPerDay;
+
+    @Column(name="reviews_per_day")
+    private Integer reviewsPerDay;
 }
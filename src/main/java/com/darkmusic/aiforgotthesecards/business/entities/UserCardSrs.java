@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Setter
@@ -11,6 +12,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_card_srs", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_id", "card_id"})
+}, indexes = {
+        // Serves due-card lookups and the keyset-paginated review queue (ordered by next_review_at)
+        @Index(name = "idx_user_card_srs_user_next_review", columnList = "user_id, next_review_at")
 })
 public class UserCardSrs {
     @Id
@@ -41,4 +45,10 @@ public class UserCardSrs {
 
     @Column(name="last_reviewed_at")
     private LocalDateTime lastReviewedAt;
+
+    // Bumped on every write, so writers that computed a new state from the same prior row notice each other
+    @Version
+    @ColumnDefault("0")
+    @Column(name="version", nullable = false)
+    private long version;
 }
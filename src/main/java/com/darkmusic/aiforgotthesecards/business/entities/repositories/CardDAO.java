@@ -6,7 +6,9 @@ import com.darkmusic.aiforgotthesecards.business.entities.User;
 import jakarta.persistence.TypedQuery;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface CardDAO extends CrudRepository<Card, Long> {
     List<Card> query(TypedQuery<Card> query);
@@ -20,4 +22,37 @@ public interface CardDAO extends CrudRepository<Card, Long> {
     Iterable<Card> findByDeckUserWithTags(User user);
 
     long countByDeckUser(User user);
+
+    /**
+     * Up to {@code limit} cards with ids above {@code afterId}, in id order, reading only the columns asked for:
+     * no card entity, deck or tag is loaded, and the faces are only read when {@code withFront} or
+     * {@code withBack} is set.
+     *
+     * @param deckId Only cards of this deck, or null
+     * @param userId Only cards in decks of this user, or null
+     * @param afterId Id of the last card of the previous page, or null for the first page
+     */
+    List<CardRow> findPage(Long deckId, Long userId, Long afterId, int limit, boolean withFront, boolean withBack);
+
+    /**
+     * Tag names of these cards by card id; cards without tags are left out.
+     */
+    Map<Long, List<String>> findTagNames(Collection<Long> cardIds);
+
+    List<Card> findAllByIdWithDeck(Collection<Long> ids);
+
+    /**
+     * Delete these cards and their tag links with set-based statements instead of loading and removing each card.
+     * SRS records of the cards must already be removed.
+     *
+     * @return Number of cards deleted
+     */
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * Persist new cards, flushing and clearing the persistence context every {@code chunkSize} cards so inserts
+     * go out in JDBC batches and a large import does not pile up managed entities. Entities loaded before the
+     * call are detached once a chunk is flushed.
+     */
+    void persistAll(List<Card> cards, int chunkSize);
 }
@@ -6,10 +6,17 @@ import com.darkmusic.aiforgotthesecards.business.entities.User;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class CardDAOImpl implements CardDAO {
+    // Keeps IN lists well below the bind parameter limits of every supported database
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     private final EntityManager em;
 
     public CardDAOImpl(EntityManager em) {
@@ -66,6 +73,98 @@ public class CardDAOImpl implements CardDAO {
                 .getSingleResult();
     }
 
+    @Override
+    public List<CardRow> findPage(Long deckId, Long userId, Long afterId, int limit,
+                                  boolean withFront, boolean withBack) {
+        StringBuilder hql = new StringBuilder("select c.id, c.deck.id")
+                .append(withFront ? ", c.front" : "")
+                .append(withBack ? ", c.back" : "")
+                .append(" from Card c where 1 = 1");
+        if (deckId != null) {
+            hql.append(" and c.deck.id = :deckId");
+        }
+        if (userId != null) {
+            hql.append(" and c.deck.user.id = :userId");
+        }
+        if (afterId != null) {
+            hql.append(" and c.id > :afterId");
+        }
+        TypedQuery<Object[]> query = em.createQuery(hql.append(" order by c.id").toString(), Object[].class)
+                .setMaxResults(limit);
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+
+        List<CardRow> rows = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            int column = 2;
+            String front = withFront ? (String) row[column++] : null;
+            String back = withBack ? (String) row[column] : null;
+            rows.add(new CardRow((Long) row[0], (Long) row[1], front, back));
+        }
+        return rows;
+    }
+
+    @Override
+    public Map<Long, List<String>> findTagNames(Collection<Long> cardIds) {
+        Map<Long, List<String>> names = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return names;
+        }
+        em.createQuery("select c.id, t.name from Card c join c.tags t where c.id in :ids order by t.name",
+                        Object[].class)
+                .setParameter("ids", cardIds)
+                .getResultList()
+                .forEach(row -> names.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]));
+        return names;
+    }
+
+    @Override
+    public List<Card> findAllByIdWithDeck(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("from Card c join fetch c.deck d where c.id in :ids", Card.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        // Removals queued earlier (e.g. SRS records) must reach the database before the rows they reference go
+        em.flush();
+        List<Long> all = List.copyOf(ids);
+        int deleted = 0;
+        for (int from = 0; from < all.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = all.subList(from, Math.min(all.size(), from + DELETE_CHUNK_SIZE));
+            em.createNativeQuery("delete from card_tag where card_id in (:ids)")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+            deleted += em.createQuery("delete from Card c where c.id in :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        return deleted;
+    }
+
+    @Override
+    public void persistAll(List<Card> cards, int chunkSize) {
+        for (int i = 0; i < cards.size(); i++) {
+            em.persist(cards.get(i));
+            if ((i + 1) % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+    }
+
     @Override
     public <S extends Card> S save(S entity) {
         if (entity.getId() != null && entity.getId() > 0L) {
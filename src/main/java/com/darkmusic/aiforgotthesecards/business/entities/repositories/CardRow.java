@@ -0,0 +1,8 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+/**
+ * Columns of a card read without loading the entity. {@code front} and {@code back} are null when the query
+ * did not select them.
+ */
+public record CardRow(long id, long deckId, String front, String back) {
+}
@@ -0,0 +1,35 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * The database behind an {@link EntityManager}, for the few queries that cannot be written portably in JPQL.
+ */
+public enum DatabaseDialect {
+    POSTGRES,
+    SQLITE,
+    H2,
+    OTHER;
+
+    public static DatabaseDialect of(EntityManager em) {
+        Dialect dialect = em.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            return POSTGRES;
+        }
+        // hibernate-community-dialects is a runtime-only dependency, so match SQLiteDialect by name
+        if (dialect.getClass().getName().contains("SQLite")) {
+            return SQLITE;
+        }
+        if (dialect instanceof H2Dialect) {
+            return H2;
+        }
+        return OTHER;
+    }
+}
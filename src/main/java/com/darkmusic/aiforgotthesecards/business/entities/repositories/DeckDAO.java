@@ -11,4 +11,9 @@ public interface DeckDAO extends CrudRepository<Deck, Long> {
     List<Deck> query(TypedQuery<Deck> query);
 
     Iterable<Deck> findByUser(User user);
+
+    /**
+     * A reference to the deck with this id, for associations, without loading it.
+     */
+    Deck getReference(long id);
 }
@@ -22,11 +22,16 @@ public class DeckDAOImpl implements DeckDAO {
 
     @Override
     public Iterable<Deck> findByUser(User user) {
-        return em.createQuery("from Deck where user_id = :userId", Deck.class)
+        return em.createQuery("from Deck where user.id = :userId", Deck.class)
                 .setParameter("userId", user.getId())
                 .getResultList();
     }
 
+    @Override
+    public Deck getReference(long id) {
+        return em.getReference(Deck.class, id);
+    }
+
     @Override
     public <S extends Deck> S save(S entity) {
         if (entity.getId() != null && entity.getId() > 0L) {
@@ -0,0 +1,37 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import com.darkmusic.aiforgotthesecards.business.entities.DeckSrsCounter;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DeckSrsCounterDAO extends CrudRepository<DeckSrsCounter, DeckSrsCounter.Key> {
+    List<DeckSrsCounter> findByUserId(long userId);
+
+    List<Long> findUserIds();
+
+    Optional<LocalDate> findBucketDate(long userId, long deckId);
+
+    /**
+     * Add the given deltas to a counter row, provided it is still bucketed on {@code bucketDate}.
+     *
+     * @return Number of rows updated; 0 when the row does not exist or was re-bucketed meanwhile
+     */
+    int applyDelta(long userId, long deckId, LocalDate bucketDate,
+                   long totalDelta, long reviewedDelta, long overdueDelta, long dueOnBucketDateDelta);
+
+    void deleteByUserAndDeck(long userId, long deckId);
+
+    void deleteByDeckId(long deckId);
+
+    /**
+     * Count from scratch, bucketed on {@code bucketDate}. Returns unsaved rows, one per deck owned by the
+     * user that has at least one card.
+     *
+     * @param deckIds Decks to count, or null for all of the user's decks
+     */
+    List<DeckSrsCounter> recount(long userId, Collection<Long> deckIds, LocalDate bucketDate);
+}
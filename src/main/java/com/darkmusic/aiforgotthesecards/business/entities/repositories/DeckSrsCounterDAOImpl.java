@@ -0,0 +1,190 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import com.darkmusic.aiforgotthesecards.business.entities.DeckSrsCounter;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class DeckSrsCounterDAOImpl implements DeckSrsCounterDAO {
+    private final EntityManager em;
+
+    public DeckSrsCounterDAOImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<DeckSrsCounter> findByUserId(long userId) {
+        return em.createQuery("from DeckSrsCounter where userId = :userId", DeckSrsCounter.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findUserIds() {
+        return em.createQuery("select distinct c.userId from DeckSrsCounter c", Long.class).getResultList();
+    }
+
+    @Override
+    public Optional<LocalDate> findBucketDate(long userId, long deckId) {
+        // Scalar read, so no counter entity is left in the persistence context to go stale after applyDelta
+        return em.createQuery("select c.bucketDate from DeckSrsCounter c where c.userId = :userId and c.deckId = :deckId",
+                        LocalDate.class)
+                .setParameter("userId", userId)
+                .setParameter("deckId", deckId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public int applyDelta(long userId, long deckId, LocalDate bucketDate,
+                          long totalDelta, long reviewedDelta, long overdueDelta, long dueOnBucketDateDelta) {
+        return em.createQuery("update DeckSrsCounter c set " +
+                        "c.totalCards = c.totalCards + :total, " +
+                        "c.reviewedCards = c.reviewedCards + :reviewed, " +
+                        "c.overdueCards = c.overdueCards + :overdue, " +
+                        "c.dueOnBucketDate = c.dueOnBucketDate + :dueOn, " +
+                        "c.updatedAt = :now " +
+                        "where c.userId = :userId and c.deckId = :deckId and c.bucketDate = :bucketDate")
+                .setParameter("total", totalDelta)
+                .setParameter("reviewed", reviewedDelta)
+                .setParameter("overdue", overdueDelta)
+                .setParameter("dueOn", dueOnBucketDateDelta)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("userId", userId)
+                .setParameter("deckId", deckId)
+                .setParameter("bucketDate", bucketDate)
+                .executeUpdate();
+    }
+
+    @Override
+    public void deleteByUserAndDeck(long userId, long deckId) {
+        em.createQuery("delete from DeckSrsCounter where userId = :userId and deckId = :deckId")
+                .setParameter("userId", userId)
+                .setParameter("deckId", deckId)
+                .executeUpdate();
+    }
+
+    @Override
+    public void deleteByDeckId(long deckId) {
+        em.createQuery("delete from DeckSrsCounter where deckId = :deckId")
+                .setParameter("deckId", deckId)
+                .executeUpdate();
+    }
+
+    @Override
+    public List<DeckSrsCounter> recount(long userId, Collection<Long> deckIds, LocalDate bucketDate) {
+        if (deckIds != null && deckIds.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime dayStart = bucketDate.atStartOfDay();
+        String jpql = "select d.id, count(c), count(s), " +
+                "sum(case when s.nextReviewAt < :dayStart then 1 else 0 end), " +
+                "sum(case when s.nextReviewAt >= :dayStart and s.nextReviewAt < :dayEnd then 1 else 0 end) " +
+                "from Card c join c.deck d " +
+                "left join UserCardSrs s on s.card = c and s.user.id = :userId " +
+                "where d.user.id = :userId" +
+                (deckIds != null ? " and d.id in :deckIds" : "") +
+                " group by d.id";
+        var query = em.createQuery(jpql, Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("dayStart", dayStart)
+                .setParameter("dayEnd", dayStart.plusDays(1));
+        if (deckIds != null) {
+            query.setParameter("deckIds", deckIds);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DeckSrsCounter> counters = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            DeckSrsCounter counter = new DeckSrsCounter();
+            counter.setUserId(userId);
+            counter.setDeckId((Long) row[0]);
+            counter.setTotalCards(((Number) row[1]).longValue());
+            counter.setReviewedCards(((Number) row[2]).longValue());
+            counter.setOverdueCards(row[3] == null ? 0 : ((Number) row[3]).longValue());
+            counter.setDueOnBucketDate(row[4] == null ? 0 : ((Number) row[4]).longValue());
+            counter.setBucketDate(bucketDate);
+            counter.setUpdatedAt(now);
+            counters.add(counter);
+        }
+        return counters;
+    }
+
+    @Override
+    public <S extends DeckSrsCounter> S save(S entity) {
+        // Composite key is always assigned, so merge covers both insert and update
+        em.merge(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends DeckSrsCounter> Iterable<S> saveAll(Iterable<S> entities) {
+        for (S entity : entities) {
+            save(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public Optional<DeckSrsCounter> findById(DeckSrsCounter.Key key) {
+        return Optional.ofNullable(em.find(DeckSrsCounter.class, key));
+    }
+
+    @Override
+    public boolean existsById(DeckSrsCounter.Key key) {
+        return findById(key).isPresent();
+    }
+
+    @Override
+    public Iterable<DeckSrsCounter> findAll() {
+        return em.createQuery("from DeckSrsCounter", DeckSrsCounter.class).getResultList();
+    }
+
+    @Override
+    public Iterable<DeckSrsCounter> findAllById(Iterable<DeckSrsCounter.Key> keys) {
+        List<DeckSrsCounter> found = new ArrayList<>();
+        for (DeckSrsCounter.Key key : keys) {
+            findById(key).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return em.createQuery("select count(c) from DeckSrsCounter c", Long.class).getSingleResult();
+    }
+
+    @Override
+    public void deleteById(DeckSrsCounter.Key key) {
+        findById(key).ifPresent(em::remove);
+    }
+
+    @Override
+    public void delete(DeckSrsCounter entity) {
+        em.remove(em.merge(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends DeckSrsCounter.Key> keys) {
+        for (DeckSrsCounter.Key key : keys) {
+            deleteById(key);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends DeckSrsCounter> entities) {
+        for (DeckSrsCounter entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        em.createQuery("delete from DeckSrsCounter").executeUpdate();
+    }
+}
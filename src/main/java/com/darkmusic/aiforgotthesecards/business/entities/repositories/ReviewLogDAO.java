@@ -0,0 +1,27 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReviewLogDAO extends CrudRepository<ReviewLog, Long> {
+    List<ReviewLog> findByUserId(long userId);
+
+    /**
+     * Reviews recorded since {@code since} that are newer than what {@code user_card_srs} holds for their card,
+     * in log order. Used to finish projecting reviews that were logged but not projected before a restart.
+     */
+    List<ReviewLog> findUnprojectedSince(LocalDateTime since);
+
+    /**
+     * Per-deck counts of the user's reviews with {@code reviewedAt >= since}; decks without any are omitted.
+     */
+    List<SrsDailyCounts> countByDeckSince(long userId, LocalDateTime since);
+
+    /**
+     * The user's reviews counted by quality and by the repetitions the card had before the review.
+     */
+    List<SrsQualityCounts> countQualities(long userId);
+}
@@ -0,0 +1,135 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public class ReviewLogDAOImpl implements ReviewLogDAO {
+    private final EntityManager em;
+
+    public ReviewLogDAOImpl(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public List<ReviewLog> findByUserId(long userId) {
+        return em.createQuery("from ReviewLog where userId = :userId order by id", ReviewLog.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    @Override
+    public List<ReviewLog> findUnprojectedSince(LocalDateTime since) {
+        return em.createQuery(
+                        "from ReviewLog l where l.recordedAt >= :since and not exists (" +
+                                "select 1 from UserCardSrs s where s.user.id = l.userId and s.card.id = l.cardId " +
+                                "and s.lastReviewedAt >= l.reviewedAt) " +
+                                "order by l.id",
+                        ReviewLog.class)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    @Override
+    public List<SrsDailyCounts> countByDeckSince(long userId, LocalDateTime since) {
+        return em.createQuery(
+                        "select new com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsDailyCounts(" +
+                                "l.deckId, " +
+                                "sum(case when l.intervalBefore is null then 1 else 0 end), " +
+                                "sum(case when l.intervalBefore is null then 0 else 1 end)) " +
+                                "from ReviewLog l where l.userId = :userId and l.reviewedAt >= :since " +
+                                "group by l.deckId",
+                        SrsDailyCounts.class)
+                .setParameter("userId", userId)
+                .setParameter("since", since)
+                .getResultList();
+    }
+
+    @Override
+    public List<SrsQualityCounts> countQualities(long userId) {
+        return em.createQuery(
+                        "select new com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQualityCounts(" +
+                                "l.quality, l.repetitionsBefore, count(l)) " +
+                                "from ReviewLog l where l.userId = :userId " +
+                                "group by l.quality, l.repetitionsBefore",
+                        SrsQualityCounts.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    @Override
+    public <S extends ReviewLog> S save(S entity) {
+        // Append-only: existing rows are never merged back
+        if (entity.getId() == null) {
+            em.persist(entity);
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends ReviewLog> Iterable<S> saveAll(Iterable<S> entities) {
+        for (S entity : entities) {
+            save(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public Optional<ReviewLog> findById(Long aLong) {
+        return Optional.ofNullable(em.find(ReviewLog.class, aLong));
+    }
+
+    @Override
+    public boolean existsById(Long aLong) {
+        return findById(aLong).isPresent();
+    }
+
+    @Override
+    public Iterable<ReviewLog> findAll() {
+        return em.createQuery("from ReviewLog", ReviewLog.class).getResultList();
+    }
+
+    @Override
+    public Iterable<ReviewLog> findAllById(Iterable<Long> longs) {
+        return em.createQuery("from ReviewLog where id in :ids", ReviewLog.class)
+                .setParameter("ids", longs)
+                .getResultList();
+    }
+
+    @Override
+    public long count() {
+        return em.createQuery("select count(l) from ReviewLog l", Long.class).getSingleResult();
+    }
+
+    @Override
+    public void deleteById(Long aLong) {
+        em.remove(em.find(ReviewLog.class, aLong));
+    }
+
+    @Override
+    public void delete(ReviewLog entity) {
+        em.remove(em.merge(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> longs) {
+        for (Long id : longs) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ReviewLog> entities) {
+        for (ReviewLog entity : entities) {
+            em.remove(em.merge(entity));
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        em.createQuery("delete from ReviewLog").executeUpdate();
+    }
+}
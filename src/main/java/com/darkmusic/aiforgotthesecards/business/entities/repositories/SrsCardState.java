@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scalar SRS scheduling state for one of a user's cards, without the card or user entities attached.
+ */
+public record SrsCardState(
+        long cardId,
+        long deckId,
+        LocalDateTime nextReviewAt,
+        int intervalDays,
+        float easeFactor,
+        int repetitions,
+        LocalDateTime lastReviewedAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+/**
+ * Reviews a user logged in one deck since some point in time, split into first reviews of new cards
+ * and reviews of cards seen before.
+ */
+public record SrsDailyCounts(
+        long deckId,
+        long newCards,
+        long reviews
+) {
+}
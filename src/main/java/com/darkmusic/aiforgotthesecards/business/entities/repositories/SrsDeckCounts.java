@@ -0,0 +1,16 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+/**
+ * Card counts for one of a user's decks. {@code dueCards} counts reviewed cards that are due;
+ * never-reviewed cards ({@code totalCards - reviewedCards}) are not included in it.
+ */
+public record SrsDeckCounts(
+        long deckId,
+        long totalCards,
+        long reviewedCards,
+        long dueCards
+) {
+    public long newCards() {
+        return totalCards - reviewedCards;
+    }
+}
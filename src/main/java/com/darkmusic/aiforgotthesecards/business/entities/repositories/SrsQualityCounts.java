@@ -0,0 +1,12 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+/**
+ * How many of a user's reviews were answered with {@code quality} while the card stood at
+ * {@code repetitionsBefore} successful repetitions (null for a card's first review).
+ */
+public record SrsQualityCounts(
+        Integer quality,
+        Integer repetitionsBefore,
+        long reviews
+) {
+}
@@ -0,0 +1,14 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+
+/**
+ * A card paired with the user's SRS record for it.
+ * {@code srs} is null when the user has never reviewed the card.
+ */
+public record SrsQueueEntry(Card card, UserCardSrs srs) {
+    public boolean isNew() {
+        return srs == null;
+    }
+}
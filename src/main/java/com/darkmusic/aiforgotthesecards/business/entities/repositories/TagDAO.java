@@ -4,7 +4,9 @@ import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import jakarta.persistence.TypedQuery;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface TagDAO extends CrudRepository<Tag, Long> {
     List<Tag> query(TypedQuery<Tag> query);
@@ -12,4 +14,16 @@ public interface TagDAO extends CrudRepository<Tag, Long> {
     List<Tag> findTagsUsedByDecks();
 
     List<Tag> findTagsUsedByCards();
+
+    /**
+     * The id of the tag for each of {@code names}, keyed by the name as given. A name matches a stored tag
+     * ignoring case (the oldest tag wins if several do); a tag is created for each name that matches none,
+     * skipping any a concurrent transaction creates first. No two names may differ only in case.
+     */
+    Map<String, Long> findOrCreateIds(Collection<String> names);
+
+    /**
+     * A reference to the tag with this id, for associations, without loading it.
+     */
+    Tag getReference(long id);
 }
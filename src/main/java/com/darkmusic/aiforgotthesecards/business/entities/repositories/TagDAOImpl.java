@@ -2,9 +2,20 @@ package com.darkmusic.aiforgotthesecards.business.entities.repositories;
 
 import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
-
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 public class TagDAOImpl implements TagDAO {
@@ -35,6 +46,103 @@ public class TagDAOImpl implements TagDAO {
                 .getResultList();
     }
 
+    @Override
+    public Map<String, Long> findOrCreateIds(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        if (names.isEmpty()) {
+            return ids;
+        }
+        // On SQLite, ids for the names that turn out to be new are taken before anything is read: the generator
+        // writes its table on a connection of its own, and a transaction that has read before that write can
+        // no longer write itself (SQLITE_BUSY_SNAPSHOT). Elsewhere only the names found missing get one.
+        DatabaseDialect dialect = DatabaseDialect.of(em);
+        boolean idsFirst = dialect == DatabaseDialect.SQLITE;
+        Map<String, Object> newIds = new LinkedHashMap<>();
+        Map<String, String> byLowerCaseName = new HashMap<>();
+        for (String name : names) {
+            newIds.put(name, idsFirst ? nextId() : null);
+            byLowerCaseName.put(name.toLowerCase(Locale.ROOT), name);
+        }
+
+        // Where several stored names differ only in case, the oldest tag wins
+        em.createQuery("select lower(t.name), t.id from Tag t where lower(t.name) in :names order by t.id",
+                        Object[].class)
+                .setParameter("names", byLowerCaseName.keySet())
+                .getResultList()
+                .forEach(row -> {
+                    String name = byLowerCaseName.get((String) row[0]);
+                    if (name != null) {
+                        ids.putIfAbsent(name, (Long) row[1]);
+                    }
+                });
+        newIds.keySet().removeAll(ids.keySet());
+        if (newIds.isEmpty()) {
+            return ids;
+        }
+        if (!idsFirst) {
+            newIds.replaceAll((name, id) -> nextId());
+        }
+
+        List<String> values = new ArrayList<>(newIds.size());
+        for (int i = 0; i < newIds.size(); i++) {
+            values.add("(:id" + i + ", :name" + i + ")");
+        }
+        if (dialect == DatabaseDialect.POSTGRES || dialect == DatabaseDialect.SQLITE) {
+            // One statement for every new name; a name a concurrent transaction inserted first is not returned
+            // and is read back below
+            Query insert = em.createNativeQuery("insert into tag (id, name) values " + String.join(", ", values) +
+                    " on conflict (name) do nothing returning name, id");
+            bind(insert, newIds);
+            for (Object row : insert.getResultList()) {
+                Object[] columns = (Object[]) row;
+                ids.put((String) columns[0], ((Number) columns[1]).longValue());
+            }
+        }
+        else {
+            // Hibernate renders the conflict clause as a merge on H2, which only supports clauses that update;
+            // this update changes nothing
+            Query insert = em.createQuery("insert into Tag (id, name) values " + String.join(", ", values) +
+                    " on conflict (name) do update set name = excluded.name");
+            bind(insert, newIds);
+            insert.executeUpdate();
+        }
+
+        List<String> unreturned = newIds.keySet().stream().filter(name -> !ids.containsKey(name)).toList();
+        if (!unreturned.isEmpty()) {
+            em.createQuery("select t.name, t.id from Tag t where t.name in :names", Object[].class)
+                    .setParameter("names", unreturned)
+                    .getResultList()
+                    .forEach(row -> ids.put((String) row[0], (Long) row[1]));
+        }
+        return ids;
+    }
+
+    private static void bind(Query insert, Map<String, Object> newIds) {
+        int i = 0;
+        for (Map.Entry<String, Object> entry : newIds.entrySet()) {
+            insert.setParameter("id" + i, entry.getValue());
+            insert.setParameter("name" + i, entry.getKey());
+            i++;
+        }
+    }
+
+    /**
+     * Next id from the entity's own generator, so tags inserted here never collide with ones persisted the usual
+     * way.
+     */
+    private Object nextId() {
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        Generator generator = session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Tag.class)
+                .getGenerator();
+        return ((BeforeExecutionGenerator) generator).generate(session, null, null, EventType.INSERT);
+    }
+
+    @Override
+    public Tag getReference(long id) {
+        return em.getReference(Tag.class, id);
+    }
+
     @Override
     public <S extends Tag> S save(S entity) {
         if (entity.getId() != null && entity.getId() > 0L) {
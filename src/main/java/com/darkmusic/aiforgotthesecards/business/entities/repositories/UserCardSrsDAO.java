@@ -6,8 +6,13 @@ import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
 import jakarta.persistence.TypedQuery;
 import org.springframework.data.repository.CrudRepository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserCardSrsDAO extends CrudRepository<UserCardSrs, Long> {
     List<UserCardSrs> query(TypedQuery<UserCardSrs> query);
@@ -15,4 +20,128 @@ public interface UserCardSrsDAO extends CrudRepository<UserCardSrs, Long> {
     Optional<UserCardSrs> findByUserAndCard(User user, Card card);
 
     List<UserCardSrs> findByUser(User user);
+
+    List<UserCardSrs> findByUserAndCardIds(User user, Collection<Long> cardIds);
+
+    /**
+     * SRS records of any user for the given cards, with card and deck fetched.
+     */
+    List<UserCardSrs> findByCardIds(Collection<Long> cardIds);
+
+    /**
+     * Number of the user's reviewed cards per deck whose {@code nextReviewAt} falls in [{@code from}, {@code to}].
+     */
+    Map<Long, Long> countDueByDeck(long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Number of the user's reviewed cards per calendar day of {@code nextReviewAt}, for cards due before
+     * {@code to}. Overdue cards are included under their original day.
+     *
+     * @param deckId Deck to count, or null for all of the user's decks
+     */
+    Map<LocalDate, Long> countDueByDay(long userId, Long deckId, LocalDateTime to);
+
+    /**
+     * The user's stored states for the given cards with their row versions, keyed by card id. Read as scalars,
+     * so nothing is left in the persistence context to go stale after {@link #upsertState}.
+     */
+    Map<Long, VersionedSrsState> findVersionedStates(long userId, Collection<Long> cardIds);
+
+    /**
+     * Write the user's state for a card in one statement: insert it if the card has no row yet, otherwise
+     * overwrite the row if it is still at {@code expectedVersion} ({@code insert ... on conflict do update ...
+     * where}), bumping the version.
+     *
+     * @param expectedVersion Version of the row the state was computed from, or null if there was no row
+     * @param newId Id from {@link #reserveId} for the row should this insert it, or null to take one then
+     * @return false if another writer inserted or changed the row since it was read
+     */
+    boolean upsertState(long userId, SrsCardState state, Long expectedVersion, Long newId);
+
+    /**
+     * An id for a row {@link #upsertState} may insert later, on databases that need it taken before the
+     * writing transaction reads: on SQLite the id generator writes on a connection of its own, which SQLite
+     * refuses once that transaction has read. Null elsewhere, where upsertState takes ids as it inserts.
+     * Call outside any transaction that has read.
+     */
+    Long reserveId();
+
+    /**
+     * Scheduling scalars for every card the user has reviewed, without hydrating entities.
+     */
+    List<SrsCardState> findStatesByUser(long userId);
+
+    /**
+     * Total, reviewed and due-reviewed card counts per deck, computed in a single grouped query.
+     * Decks without cards are not returned.
+     *
+     * @param userId Owner of the decks; other users' decks never match
+     * @param deckIds Decks to count, or null for all of the user's decks
+     * @param dueAt Reviewed cards with {@code nextReviewAt} at or before this time are counted as due
+     */
+    List<SrsDeckCounts> countByDeck(long userId, Collection<Long> deckIds, LocalDateTime dueAt);
+
+    /**
+     * Load the user's cards together with their SRS records in a single query.
+     *
+     * @param user The user whose cards are queued
+     * @param deckId Optional deck filter; only decks owned by the user are matched
+     * @param dueAt When set, only never-reviewed cards and cards due at or before this time are returned;
+     *              when null, every card is returned (cram)
+     */
+    List<SrsQueueEntry> findQueueEntries(User user, Long deckId, LocalDateTime dueAt);
+
+    /**
+     * Same selection as {@link #findQueueEntries}, but read through a scrolled result set and handed to
+     * {@code consumer} in chunks of at most {@code chunkSize} entries with tags initialized.
+     * Entries are detached after their chunk is consumed, so memory stays bounded by the chunk size.
+     * Must be called inside a transaction.
+     */
+    void streamQueueEntries(User user, Long deckId, LocalDateTime dueAt, int chunkSize,
+                            Consumer<List<SrsQueueEntry>> consumer);
+
+    /**
+     * One page of reviewed cards that are due, ordered by (nextReviewAt, card id).
+     * Pass null for {@code afterNextReviewAt}/{@code afterCardId} to start from the beginning.
+     */
+    List<SrsQueueEntry> findDuePage(User user, Long deckId, LocalDateTime dueAt,
+                                    LocalDateTime afterNextReviewAt, Long afterCardId, int limit);
+
+    /**
+     * One page of never-reviewed cards, ordered by card id.
+     * Pass null for {@code afterCardId} to start from the beginning.
+     */
+    List<SrsQueueEntry> findNewPage(User user, Long deckId, Long afterCardId, int limit);
+
+    /**
+     * At most {@code limit} reviewed cards that are due, most overdue first, with tags initialized.
+     *
+     * @param deckIds Decks to draw from, or null for all of the user's decks
+     */
+    List<SrsQueueEntry> findDue(User user, Collection<Long> deckIds, LocalDateTime dueAt, int limit);
+
+    /**
+     * Hand every reviewed card that is due to {@code consumer} as scheduling scalars, read through a scrolled
+     * result set in no particular order, so callers can select from the whole backlog without holding it.
+     * Must be called inside a transaction.
+     *
+     * @param deckIds Decks to draw from, or null for all of the user's decks
+     */
+    void streamDueStates(long userId, Collection<Long> deckIds, LocalDateTime dueAt, int fetchSize,
+                         Consumer<SrsCardState> consumer);
+
+    /**
+     * The user's SRS records for the given cards, in the order of {@code cardIds}, with tags initialized.
+     * Cards without a record are skipped.
+     */
+    List<SrsQueueEntry> findEntriesByCardIds(User user, List<Long> cardIds);
+
+    /**
+     * At most {@code limit} never-reviewed cards in a pseudo-random order fixed by {@code seed}, with tags
+     * initialized. The same seed picks the same cards, so a queue reloaded during the day does not swap in
+     * different new cards.
+     *
+     * @param deckIds Decks to draw from, or null for all of the user's decks
+     */
+    List<SrsQueueEntry> findNewSample(User user, Collection<Long> deckIds, long seed, int limit);
 }
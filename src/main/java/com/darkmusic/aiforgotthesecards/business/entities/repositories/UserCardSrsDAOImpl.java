@@ -5,11 +5,36 @@ import com.darkmusic.aiforgotthesecards.business.entities.User;
 import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.Generator;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserCardSrsDAOImpl implements UserCardSrsDAO {
+    // Two rounds of multiplicative hashing for the new-card sample; the seed is added between them so that
+    // different seeds give different orders, not just rotations of one. Small enough to never overflow a bigint.
+    private static final long SAMPLE_MULTIPLIER = 611_953L;
+    private static final long SAMPLE_MODULUS = 1_000_003L;
+    private static final long SAMPLE_MULTIPLIER_2 = 40_503L;
+    private static final long SAMPLE_MODULUS_2 = 65_521L;
+
     private final EntityManager em;
 
     public UserCardSrsDAOImpl(EntityManager em) {
@@ -39,6 +64,517 @@ public class UserCardSrsDAOImpl implements UserCardSrsDAO {
                 .getResultList();
     }
 
+    @Override
+    public List<UserCardSrs> findByUserAndCardIds(User user, Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("from UserCardSrs s where s.user.id = :userId and s.card.id in :cardIds", UserCardSrs.class)
+                .setParameter("userId", user.getId())
+                .setParameter("cardIds", cardIds)
+                .getResultList();
+    }
+
+    @Override
+    public List<UserCardSrs> findByCardIds(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        return em.createQuery("from UserCardSrs s join fetch s.card c join fetch c.deck where c.id in :cardIds",
+                        UserCardSrs.class)
+                .setParameter("cardIds", cardIds)
+                .getResultList();
+    }
+
+    @Override
+    public Map<Long, Long> countDueByDeck(long userId, LocalDateTime from, LocalDateTime to) {
+        Map<Long, Long> counts = new HashMap<>();
+        em.createQuery("select s.card.deck.id, count(s) from UserCardSrs s " +
+                        "where s.user.id = :userId and s.nextReviewAt >= :from and s.nextReviewAt <= :to " +
+                        "group by s.card.deck.id", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList()
+                .forEach(row -> counts.put((Long) row[0], ((Number) row[1]).longValue()));
+        return counts;
+    }
+
+    @Override
+    public Map<LocalDate, Long> countDueByDay(long userId, Long deckId, LocalDateTime to) {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        if (DatabaseDialect.of(em) == DatabaseDialect.SQLITE) {
+            // SQLite keeps timestamps as epoch millis, which cast(... as date) leaves untouched. Shift each one
+            // by the UTC offset the JVM's zone had at that instant (as Hibernate did to write and read it) and
+            // take the date, so rows on either side of a DST change land on their own local day.
+            long toMillis = Timestamp.valueOf(to).getTime();
+            Number earliest = (Number) em.createNativeQuery("select min(next_review_at) from user_card_srs " +
+                            "where user_id = :userId and next_review_at < :to")
+                    .setParameter("userId", userId)
+                    .setParameter("to", toMillis)
+                    .getSingleResult();
+            if (earliest == null) {
+                return counts;
+            }
+            ZoneRules rules = ZoneId.systemDefault().getRules();
+            Instant from = Instant.ofEpochMilli(earliest.longValue());
+            List<ZoneOffsetTransition> transitions = new ArrayList<>();
+            for (ZoneOffsetTransition transition = rules.nextTransition(from);
+                 transition != null && transition.getInstant().toEpochMilli() < toMillis;
+                 transition = rules.nextTransition(transition.getInstant())) {
+                transitions.add(transition);
+            }
+            StringBuilder offset = new StringBuilder(transitions.isEmpty() ? "" : "case");
+            for (int i = 0; i < transitions.size(); i++) {
+                offset.append(" when s.next_review_at < :until").append(i).append(" then :offset").append(i);
+            }
+            offset.append(transitions.isEmpty() ? ":offset0" : " else :offset" + transitions.size() + " end");
+
+            var query = em.createNativeQuery("select date(s.next_review_at / 1000 + " + offset + ", 'unixepoch') as day, count(*) " +
+                            "from user_card_srs s " +
+                            (deckId != null ? "join card c on c.id = s.card_id " : "") +
+                            "where s.user_id = :userId and s.next_review_at < :to" +
+                            (deckId != null ? " and c.deck_id = :deckId" : "") +
+                            " group by day")
+                    .setParameter("userId", userId)
+                    .setParameter("to", toMillis);
+            for (int i = 0; i < transitions.size(); i++) {
+                query.setParameter("until" + i, transitions.get(i).getInstant().toEpochMilli())
+                        .setParameter("offset" + i, transitions.get(i).getOffsetBefore().getTotalSeconds());
+            }
+            query.setParameter("offset" + transitions.size(), transitions.isEmpty()
+                    ? rules.getOffset(from).getTotalSeconds()
+                    : transitions.getLast().getOffsetAfter().getTotalSeconds());
+            if (deckId != null) {
+                query.setParameter("deckId", deckId);
+            }
+            for (Object result : query.getResultList()) {
+                Object[] row = (Object[]) result;
+                counts.put(LocalDate.parse((String) row[0]), ((Number) row[1]).longValue());
+            }
+            return counts;
+        }
+
+        // Elsewhere Hibernate renders the cast natively (e.g. ::date on Postgres)
+        var query = em.createQuery("select cast(s.nextReviewAt as LocalDate), count(s) from UserCardSrs s " +
+                        "where s.user.id = :userId and s.nextReviewAt < :to" +
+                        (deckId != null ? " and s.card.deck.id = :deckId" : "") +
+                        " group by cast(s.nextReviewAt as LocalDate)", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("to", to);
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        query.getResultList().forEach(row -> counts.put((LocalDate) row[0], ((Number) row[1]).longValue()));
+        return counts;
+    }
+
+    @Override
+    public Map<Long, VersionedSrsState> findVersionedStates(long userId, Collection<Long> cardIds) {
+        Map<Long, VersionedSrsState> states = new HashMap<>();
+        if (cardIds.isEmpty()) {
+            return states;
+        }
+        em.createQuery("select c.id, c.deck.id, s.nextReviewAt, s.intervalDays, s.easeFactor, s.repetitions, " +
+                        "s.lastReviewedAt, s.version from UserCardSrs s join s.card c " +
+                        "where s.user.id = :userId and c.id in :cardIds", Object[].class)
+                .setParameter("userId", userId)
+                .setParameter("cardIds", cardIds)
+                .getResultList()
+                .forEach(row -> states.put((Long) row[0], new VersionedSrsState(
+                        new SrsCardState((Long) row[0], (Long) row[1], (LocalDateTime) row[2], (Integer) row[3],
+                                (Float) row[4], (Integer) row[5], (LocalDateTime) row[6]),
+                        (Long) row[7])));
+        return states;
+    }
+
+    @Override
+    public boolean upsertState(long userId, SrsCardState state, Long expectedVersion, Long newId) {
+        // A version of -1 never matches, so a first write loses to a row someone else inserted meanwhile
+        // instead of overwriting it
+        long version = expectedVersion == null ? -1L : expectedVersion;
+        if (DatabaseDialect.of(em) == DatabaseDialect.SQLITE) {
+            // The SQLite dialect cannot render HQL conflict clauses; SQLite's own syntax matches Postgres
+            return em.createNativeQuery("insert into user_card_srs (id, user_id, card_id, next_review_at, " +
+                            "interval_days, ease_factor, repetitions, last_reviewed_at, version) " +
+                            "values (:id, :userId, :cardId, :nextReviewAt, :intervalDays, :easeFactor, :repetitions, " +
+                            ":lastReviewedAt, 0) " +
+                            "on conflict (user_id, card_id) do update set next_review_at = excluded.next_review_at, " +
+                            "interval_days = excluded.interval_days, ease_factor = excluded.ease_factor, " +
+                            "repetitions = excluded.repetitions, last_reviewed_at = excluded.last_reviewed_at, " +
+                            "version = user_card_srs.version + 1 " +
+                            "where user_card_srs.version = :expectedVersion")
+                    .setParameter("id", newId != null ? newId : nextId(em))
+                    .setParameter("userId", userId)
+                    .setParameter("cardId", state.cardId())
+                    .setParameter("nextReviewAt", Timestamp.valueOf(state.nextReviewAt()).getTime())
+                    .setParameter("intervalDays", state.intervalDays())
+                    .setParameter("easeFactor", state.easeFactor())
+                    .setParameter("repetitions", state.repetitions())
+                    .setParameter("lastReviewedAt", Timestamp.valueOf(state.lastReviewedAt()).getTime())
+                    .setParameter("expectedVersion", version)
+                    .executeUpdate() == 1;
+        }
+
+        // Hibernate renders the conflict clause per dialect (a merge on H2) and takes the id from the entity's
+        // own sequence, so ids never collide with rows persisted the usual way
+        return em.createQuery("insert into UserCardSrs (user, card, nextReviewAt, intervalDays, easeFactor, " +
+                        "repetitions, lastReviewedAt, version) " +
+                        "values (:user, :card, :nextReviewAt, :intervalDays, :easeFactor, :repetitions, " +
+                        ":lastReviewedAt, 0) " +
+                        "on conflict (user, card) do update set nextReviewAt = excluded.nextReviewAt, " +
+                        "intervalDays = excluded.intervalDays, easeFactor = excluded.easeFactor, " +
+                        "repetitions = excluded.repetitions, lastReviewedAt = excluded.lastReviewedAt, " +
+                        "version = version + 1 " +
+                        "where version = :expectedVersion")
+                .setParameter("user", em.getReference(User.class, userId))
+                .setParameter("card", em.getReference(Card.class, state.cardId()))
+                .setParameter("nextReviewAt", state.nextReviewAt())
+                .setParameter("intervalDays", state.intervalDays())
+                .setParameter("easeFactor", state.easeFactor())
+                .setParameter("repetitions", state.repetitions())
+                .setParameter("lastReviewedAt", state.lastReviewedAt())
+                .setParameter("expectedVersion", version)
+                .executeUpdate() == 1;
+    }
+
+    @Override
+    public Long reserveId() {
+        if (DatabaseDialect.of(em) != DatabaseDialect.SQLITE) {
+            return null;
+        }
+        // On an entity manager of its own, so this needs no transaction; the generator keeps its state per factory
+        try (EntityManager own = em.getEntityManagerFactory().createEntityManager()) {
+            return ((Number) nextId(own)).longValue();
+        }
+    }
+
+    /**
+     * Next id from the entity's own generator, for native inserts that must not collide with persisted rows.
+     */
+    private static Object nextId(EntityManager em) {
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        Generator generator = session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(UserCardSrs.class)
+                .getGenerator();
+        return ((BeforeExecutionGenerator) generator).generate(session, null, null, EventType.INSERT);
+    }
+
+    @Override
+    public List<SrsCardState> findStatesByUser(long userId) {
+        return em.createQuery(
+                        "select new com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState(" +
+                                "c.id, c.deck.id, s.nextReviewAt, s.intervalDays, s.easeFactor, s.repetitions, s.lastReviewedAt) " +
+                                "from UserCardSrs s join s.card c where s.user.id = :userId",
+                        SrsCardState.class)
+                .setParameter("userId", userId)
+                .getResultList();
+    }
+
+    @Override
+    public List<SrsDeckCounts> countByDeck(long userId, Collection<Long> deckIds, LocalDateTime dueAt) {
+        if (deckIds != null && deckIds.isEmpty()) {
+            return List.of();
+        }
+        String jpql = "select new com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsDeckCounts(" +
+                "d.id, count(c), count(s), sum(case when s.nextReviewAt <= :dueAt then 1 else 0 end)) " +
+                "from Card c join c.deck d " +
+                "left join UserCardSrs s on s.card = c and s.user.id = :userId " +
+                "where d.user.id = :userId" +
+                (deckIds != null ? " and d.id in :deckIds" : "") +
+                " group by d.id";
+        var query = em.createQuery(jpql, SrsDeckCounts.class)
+                .setParameter("userId", userId)
+                .setParameter("dueAt", dueAt);
+        if (deckIds != null) {
+            query.setParameter("deckIds", deckIds);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public List<SrsQueueEntry> findQueueEntries(User user, Long deckId, LocalDateTime dueAt) {
+        StringBuilder jpql = new StringBuilder(
+                "select c, s from Card c " +
+                        "join fetch c.deck d " +
+                        "left join fetch c.tags t " +
+                        "left join UserCardSrs s on s.card = c and s.user.id = :userId " +
+                        "where d.user.id = :userId");
+        if (deckId != null) {
+            jpql.append(" and d.id = :deckId");
+        }
+        if (dueAt != null) {
+            jpql.append(" and (s.id is null or s.nextReviewAt <= :dueAt)");
+        }
+
+        var query = em.createQuery(jpql.toString(), Object[].class)
+                .setParameter("userId", user.getId());
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        if (dueAt != null) {
+            query.setParameter("dueAt", dueAt);
+        }
+
+        // The tag fetch repeats each card once per tag; collapse back to one entry per card.
+        Map<Long, SrsQueueEntry> entries = new LinkedHashMap<>();
+        for (Object[] row : query.getResultList()) {
+            Card card = (Card) row[0];
+            entries.putIfAbsent(card.getId(), new SrsQueueEntry(card, (UserCardSrs) row[1]));
+        }
+        return new ArrayList<>(entries.values());
+    }
+
+    @Override
+    public void streamQueueEntries(User user, Long deckId, LocalDateTime dueAt, int chunkSize,
+                                   Consumer<List<SrsQueueEntry>> consumer) {
+        // No tag fetch here: a collection fetch would repeat rows per tag and defeat scrolling.
+        StringBuilder jpql = new StringBuilder(
+                "select c, s from Card c " +
+                        "join fetch c.deck d " +
+                        "left join UserCardSrs s on s.card = c and s.user.id = :userId " +
+                        "where d.user.id = :userId");
+        if (deckId != null) {
+            jpql.append(" and d.id = :deckId");
+        }
+        if (dueAt != null) {
+            jpql.append(" and (s.id is null or s.nextReviewAt <= :dueAt)");
+        }
+
+        var query = em.createQuery(jpql.toString(), Object[].class)
+                .setParameter("userId", user.getId())
+                .setHint("org.hibernate.fetchSize", chunkSize);
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        if (dueAt != null) {
+            query.setParameter("dueAt", dueAt);
+        }
+
+        List<SrsQueueEntry> chunk = new ArrayList<>(chunkSize);
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            var iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                chunk.add(new SrsQueueEntry((Card) row[0], (UserCardSrs) row[1]));
+                if (chunk.size() == chunkSize) {
+                    flushChunk(chunk, consumer);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flushChunk(chunk, consumer);
+        }
+    }
+
+    private void flushChunk(List<SrsQueueEntry> chunk, Consumer<List<SrsQueueEntry>> consumer) {
+        fetchTags(chunk);
+        consumer.accept(List.copyOf(chunk));
+        for (SrsQueueEntry entry : chunk) {
+            em.detach(entry.card());
+            if (entry.srs() != null) {
+                em.detach(entry.srs());
+            }
+        }
+        chunk.clear();
+    }
+
+    @Override
+    public List<SrsQueueEntry> findDuePage(User user, Long deckId, LocalDateTime dueAt,
+                                           LocalDateTime afterNextReviewAt, Long afterCardId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "select s from UserCardSrs s " +
+                        "join fetch s.card c " +
+                        "join fetch c.deck d " +
+                        "where s.user.id = :userId and d.user.id = :userId and s.nextReviewAt <= :dueAt");
+        if (deckId != null) {
+            jpql.append(" and d.id = :deckId");
+        }
+        if (afterNextReviewAt != null && afterCardId != null) {
+            jpql.append(" and (s.nextReviewAt > :afterAt or (s.nextReviewAt = :afterAt and c.id > :afterId))");
+        }
+        jpql.append(" order by s.nextReviewAt, c.id");
+
+        var query = em.createQuery(jpql.toString(), UserCardSrs.class)
+                .setParameter("userId", user.getId())
+                .setParameter("dueAt", dueAt)
+                .setMaxResults(limit);
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        if (afterNextReviewAt != null && afterCardId != null) {
+            query.setParameter("afterAt", afterNextReviewAt);
+            query.setParameter("afterId", afterCardId);
+        }
+
+        List<SrsQueueEntry> entries = new ArrayList<>();
+        for (UserCardSrs srs : query.getResultList()) {
+            entries.add(new SrsQueueEntry(srs.getCard(), srs));
+        }
+        fetchTags(entries);
+        return entries;
+    }
+
+    @Override
+    public List<SrsQueueEntry> findNewPage(User user, Long deckId, Long afterCardId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "select c from Card c " +
+                        "join fetch c.deck d " +
+                        "where d.user.id = :userId " +
+                        "and not exists (select 1 from UserCardSrs s where s.card = c and s.user.id = :userId)");
+        if (deckId != null) {
+            jpql.append(" and d.id = :deckId");
+        }
+        if (afterCardId != null) {
+            jpql.append(" and c.id > :afterId");
+        }
+        jpql.append(" order by c.id");
+
+        var query = em.createQuery(jpql.toString(), Card.class)
+                .setParameter("userId", user.getId())
+                .setMaxResults(limit);
+        if (deckId != null) {
+            query.setParameter("deckId", deckId);
+        }
+        if (afterCardId != null) {
+            query.setParameter("afterId", afterCardId);
+        }
+
+        List<SrsQueueEntry> entries = new ArrayList<>();
+        for (Card card : query.getResultList()) {
+            entries.add(new SrsQueueEntry(card, null));
+        }
+        fetchTags(entries);
+        return entries;
+    }
+
+    @Override
+    public List<SrsQueueEntry> findDue(User user, Collection<Long> deckIds, LocalDateTime dueAt, int limit) {
+        if (limit <= 0 || (deckIds != null && deckIds.isEmpty())) {
+            return new ArrayList<>();
+        }
+        var query = em.createQuery("select s from UserCardSrs s " +
+                        "join fetch s.card c " +
+                        "join fetch c.deck d " +
+                        "where s.user.id = :userId and d.user.id = :userId and s.nextReviewAt <= :dueAt" +
+                        (deckIds != null ? " and d.id in :deckIds" : "") +
+                        " order by s.nextReviewAt, c.id", UserCardSrs.class)
+                .setParameter("userId", user.getId())
+                .setParameter("dueAt", dueAt)
+                .setMaxResults(limit);
+        if (deckIds != null) {
+            query.setParameter("deckIds", deckIds);
+        }
+
+        List<SrsQueueEntry> entries = new ArrayList<>();
+        for (UserCardSrs srs : query.getResultList()) {
+            entries.add(new SrsQueueEntry(srs.getCard(), srs));
+        }
+        fetchTags(entries);
+        return entries;
+    }
+
+    @Override
+    public void streamDueStates(long userId, Collection<Long> deckIds, LocalDateTime dueAt, int fetchSize,
+                                Consumer<SrsCardState> consumer) {
+        if (deckIds != null && deckIds.isEmpty()) {
+            return;
+        }
+        var query = em.createQuery(
+                        "select new com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState(" +
+                                "c.id, d.id, s.nextReviewAt, s.intervalDays, s.easeFactor, s.repetitions, s.lastReviewedAt) " +
+                                "from UserCardSrs s join s.card c join c.deck d " +
+                                "where s.user.id = :userId and d.user.id = :userId and s.nextReviewAt <= :dueAt" +
+                                (deckIds != null ? " and d.id in :deckIds" : ""),
+                        SrsCardState.class)
+                .setParameter("userId", userId)
+                .setParameter("dueAt", dueAt)
+                .setHint("org.hibernate.fetchSize", fetchSize);
+        if (deckIds != null) {
+            query.setParameter("deckIds", deckIds);
+        }
+        try (Stream<SrsCardState> states = query.getResultStream()) {
+            states.forEach(consumer);
+        }
+    }
+
+    @Override
+    public List<SrsQueueEntry> findEntriesByCardIds(User user, List<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, UserCardSrs> byCardId = new HashMap<>();
+        em.createQuery("select s from UserCardSrs s " +
+                        "join fetch s.card c " +
+                        "join fetch c.deck " +
+                        "where s.user.id = :userId and c.id in :cardIds", UserCardSrs.class)
+                .setParameter("userId", user.getId())
+                .setParameter("cardIds", cardIds)
+                .getResultList()
+                .forEach(srs -> byCardId.put(srs.getCard().getId(), srs));
+
+        List<SrsQueueEntry> entries = new ArrayList<>(byCardId.size());
+        for (Long cardId : cardIds) {
+            UserCardSrs srs = byCardId.get(cardId);
+            if (srs != null) {
+                entries.add(new SrsQueueEntry(srs.getCard(), srs));
+            }
+        }
+        fetchTags(entries);
+        return entries;
+    }
+
+    @Override
+    public List<SrsQueueEntry> findNewSample(User user, Collection<Long> deckIds, long seed, int limit) {
+        if (limit <= 0 || (deckIds != null && deckIds.isEmpty())) {
+            return new ArrayList<>();
+        }
+        // A seeded hash of the id: cheap, portable across dialects, and lets the database stop after the
+        // first rows instead of shuffling the whole deck
+        var query = em.createQuery("select c from Card c " +
+                        "join fetch c.deck d " +
+                        "where d.user.id = :userId " +
+                        "and not exists (select 1 from UserCardSrs s where s.card = c and s.user.id = :userId)" +
+                        (deckIds != null ? " and d.id in :deckIds" : "") +
+                        " order by mod(mod(c.id * :a + :seed, :p) * :b, :q), c.id",
+                        Card.class)
+                .setParameter("userId", user.getId())
+                // Bound as longs so every dialect does the arithmetic in bigint
+                .setParameter("a", SAMPLE_MULTIPLIER)
+                .setParameter("seed", Math.floorMod(seed, SAMPLE_MODULUS))
+                .setParameter("p", SAMPLE_MODULUS)
+                .setParameter("b", SAMPLE_MULTIPLIER_2)
+                .setParameter("q", SAMPLE_MODULUS_2)
+                .setMaxResults(limit);
+        if (deckIds != null) {
+            query.setParameter("deckIds", deckIds);
+        }
+
+        List<SrsQueueEntry> entries = new ArrayList<>();
+        for (Card card : query.getResultList()) {
+            entries.add(new SrsQueueEntry(card, null));
+        }
+        fetchTags(entries);
+        return entries;
+    }
+
+    /**
+     * Initialize the tags of a page of cards with one query instead of one lazy load per card.
+     * Tags can't be fetch-joined into the page queries themselves without breaking the row limit.
+     */
+    private void fetchTags(List<SrsQueueEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Long> cardIds = new ArrayList<>(entries.size());
+        for (SrsQueueEntry entry : entries) {
+            cardIds.add(entry.card().getId());
+        }
+        em.createQuery("select distinct c from Card c left join fetch c.tags where c.id in :ids", Card.class)
+                .setParameter("ids", cardIds)
+                .getResultList();
+    }
+
     @Override
     public <S extends UserCardSrs> S save(S entity) {
         if (entity.getId() != null && entity.getId() > 0L) {
@@ -0,0 +1,10 @@
+package com.darkmusic.aiforgotthesecards.business.entities.repositories;
+
+/**
+ * A stored {@link SrsCardState} together with the row version it was read at, for conditional writes.
+ */
+public record VersionedSrsState(
+        SrsCardState state,
+        long version
+) {
+}
@@ -0,0 +1,90 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One Anki import run by {@link AnkiImportService}. Written by the import thread, read by status requests.
+ */
+public final class AnkiImportJob {
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final long userId;
+    private final List<Long> deckIds = new CopyOnWriteArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile long cards;
+    private volatile long importedCards;
+    private volatile long importedReviews;
+    private volatile String message;
+
+    AnkiImportJob(String id, long userId) {
+        this.id = id;
+        this.userId = userId;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long userId() {
+        return userId;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** The decks created so far, one per Anki deck holding cards. */
+    public List<Long> deckIds() {
+        return List.copyOf(deckIds);
+    }
+
+    /** Cards in the collection, known once the import has started. */
+    public long cards() {
+        return cards;
+    }
+
+    public long importedCards() {
+        return importedCards;
+    }
+
+    /** Imported cards that came with review history, and so with an SRS record. */
+    public long importedReviews() {
+        return importedReviews;
+    }
+
+    /** Why the import failed, once it has. */
+    public String message() {
+        return message;
+    }
+
+    boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    void started(long cards) {
+        this.cards = cards;
+        this.state = State.RUNNING;
+    }
+
+    void deckCreated(long deckId) {
+        deckIds.add(deckId);
+    }
+
+    void committed(long cards, long reviews) {
+        importedCards += cards;
+        importedReviews += reviews;
+    }
+
+    void done() {
+        state = State.DONE;
+    }
+
+    void failed(String message) {
+        this.message = message;
+        this.state = State.FAILED;
+    }
+}
@@ -0,0 +1,509 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports Anki decks ({@code .apkg} files: a zip archive around an SQLite collection) as background jobs.
+ *
+ * <p>The upload is unpacked to a temporary directory while it is received, keeping only the collection, and
+ * then read with the SQLite driver the application already ships. Every Anki deck holding cards becomes a deck
+ * of the uploading user, its templates taken from the note type most of its cards use. Every Anki card becomes
+ * a card, its front and back rendered from the note's fields (see {@link AnkiTemplates}), tagged with the
+ * note's tags; cards Anki has scheduled also get an SRS record carrying over their due date, interval and
+ * ease. Media files are not imported.</p>
+ *
+ * <p>Cards are read in order and committed in chunks of {@code aiforgot.cards.import.chunk-size}, each in a
+ * transaction of its own, so memory stays bounded by one chunk whatever the size of the collection. Imports
+ * run one at a time on a single thread, queued in the order they were uploaded; writes are what they spend
+ * their time on, and on SQLite they could not run side by side anyway. A failed import keeps the chunks it
+ * committed. Jobs are kept in memory, at most {@value #MAX_JOBS} finished ones, oldest dropped first.</p>
+ */
+@Service
+public class AnkiImportService {
+    private static final Logger log = LoggerFactory.getLogger(AnkiImportService.class);
+
+    private static final int MAX_JOBS = 1000;
+    private static final String FIELD_SEPARATOR = "\u001f";
+
+    // Anki's card types; queue and due depend on them
+    private static final int TYPE_NEW = 0;
+    private static final int TYPE_REVIEW = 2;
+    // Anki's answer buttons in the review log: 1 is "Again"; manual reschedules log 0
+    private static final int EASE_AGAIN = 1;
+    private static final int REVLOG_REVIEW = 1;
+    // Due values above this are epoch seconds (cards in learning) rather than days since the collection began
+    private static final long DUE_EPOCH_SECONDS = 1_000_000_000L;
+
+    private static final String CARDS_SQL = """
+            select c.id, case when c.odid != 0 then c.odid else c.did end,
+                   c.ord, c.type, case when c.odid != 0 and c.odue != 0 then c.odue else c.due end,
+                   c.ivl, c.factor, n.mid, n.flds, n.tags
+            from cards c join notes n on n.id = c.nid
+            order by c.id""";
+
+    // Anki deck, note type and card ordinal, most used first
+    private static final String DECK_TEMPLATES_SQL = """
+            select case when c.odid != 0 then c.odid else c.did end, n.mid, c.ord, count(*)
+            from cards c join notes n on n.id = c.nid
+            group by 1, 2, 3
+            order by 4 desc""";
+
+    private record Template(String front, String back) {
+    }
+
+    private record Model(boolean cloze, List<String> fieldNames, Map<Integer, Template> templates) {
+        Template template(int ord) {
+            return templates.get(cloze ? 0 : ord);
+        }
+    }
+
+    /**
+     * @param created Start of the collection's first day; review due dates count days from it
+     */
+    private record AnkiCollection(Instant created, Map<Long, Model> models, Map<Long, String> deckNames) {
+    }
+
+    private record AnkiCard(long id, long deckId, int ord, int type, long due, int interval, int factor,
+                            long modelId, String fields, String tags) {
+    }
+
+    /**
+     * @param lastReviewedAt Time of the latest answer, or null if none is logged
+     * @param streak Correct review answers since the last "Again"
+     */
+    private record History(LocalDateTime lastReviewedAt, int streak) {
+    }
+
+    private final CardDAO cardDAO;
+    private final DeckDAO deckDAO;
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final TagResolutionService tagResolutionService;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTransaction;
+    private final int chunkSize;
+    private final long maxCollectionBytes;
+    private final ExecutorService executor;
+
+    // Insertion-ordered, so iteration starts at the oldest job. Guarded by itself.
+    private final LinkedHashMap<String, AnkiImportJob> jobs = new LinkedHashMap<>();
+
+    public AnkiImportService(CardDAO cardDAO, DeckDAO deckDAO, UserCardSrsDAO userCardSrsDAO,
+                             TagResolutionService tagResolutionService, DeckSrsCounterService deckSrsCounterService,
+                             ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${aiforgot.cards.import.chunk-size:500}") int chunkSize,
+                             @Value("${aiforgot.anki-import.max-collection-size:1GB}") DataSize maxCollectionSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("aiforgot.cards.import.chunk-size must be at least 1");
+        }
+        this.cardDAO = cardDAO;
+        this.deckDAO = deckDAO;
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.tagResolutionService = tagResolutionService;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.maxCollectionBytes = maxCollectionSize.toBytes();
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("anki-import-", 0).factory());
+    }
+
+    /**
+     * Unpack the {@code .apkg} read from {@code apkg} and queue its import into decks of {@code user}.
+     *
+     * @throws IllegalArgumentException if the archive holds no collection this can read
+     * @throws IOException if the upload cannot be read or is not a zip archive
+     */
+    public AnkiImportJob submit(User user, InputStream apkg) throws IOException {
+        Path directory = Files.createTempDirectory("anki-import-");
+        try {
+            Path collection = unpack(apkg, directory);
+            AnkiImportJob job = new AnkiImportJob(UUID.randomUUID().toString(), user.getId());
+            executor.execute(() -> run(user, directory, collection, job));
+            register(job);
+            return job;
+        } catch (RejectedExecutionException e) {
+            FileSystemUtils.deleteRecursively(directory);
+            throw new IllegalStateException("Anki imports are shutting down", e);
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(directory);
+            throw e;
+        }
+    }
+
+    /**
+     * The user's import with this id, unless it never existed, belongs to someone else, or was dropped.
+     */
+    public Optional<AnkiImportJob> find(User user, String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id)).filter(job -> job.userId() == user.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void register(AnkiImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id(), job);
+            Iterator<AnkiImportJob> oldest = jobs.values().iterator();
+            int excess = jobs.size() - MAX_JOBS;
+            while (excess > 0 && oldest.hasNext()) {
+                if (oldest.next().isFinished()) {
+                    oldest.remove();
+                    excess--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the archive's collection into {@code directory}. Archives that also support older Anki versions
+     * hold {@code collection.anki21}, or only {@code collection.anki2}; current versions write
+     * {@code collection.anki21b}, which is compressed differently and not read here.
+     */
+    private Path unpack(InputStream apkg, Path directory) throws IOException {
+        Map<String, Path> collections = new HashMap<>();
+        boolean compressedOnly = false;
+        try (ZipInputStream zip = new ZipInputStream(apkg)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (name.equals("collection.anki21") || name.equals("collection.anki2")) {
+                    Path target = directory.resolve(name);
+                    try (OutputStream out = Files.newOutputStream(target)) {
+                        copy(zip, out);
+                    }
+                    collections.put(name, target);
+                }
+                else if (name.equals("collection.anki21b")) {
+                    compressedOnly = true;
+                }
+            }
+        }
+        Path collection = collections.getOrDefault("collection.anki21", collections.get("collection.anki2"));
+        if (collection == null) {
+            throw new IllegalArgumentException(compressedOnly
+                    ? "This deck was exported in the current Anki format only; export it again with "
+                    + "\"Support older Anki versions\" checked"
+                    : "Not an Anki deck package: the archive holds no collection");
+        }
+        return collection;
+    }
+
+    private void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxCollectionBytes) {
+                throw new IllegalArgumentException("Anki collection larger than " + maxCollectionBytes + " bytes");
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private void run(User user, Path directory, Path collection, AnkiImportJob job) {
+        try (Connection anki = DriverManager.getConnection("jdbc:sqlite:" + collection)) {
+            importCollection(user, anki, job);
+            job.done();
+        } catch (Exception e) {
+            log.warn("Anki import {} for user {} failed", job.id(), user.getId(), e);
+            job.failed(e.getMessage() != null ? e.getMessage() : "Unknown error occurred");
+        } finally {
+            try {
+                FileSystemUtils.deleteRecursively(directory);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", directory, e);
+            }
+        }
+    }
+
+    private void importCollection(User user, Connection anki, AnkiImportJob job) throws SQLException, IOException {
+        AnkiCollection collection = readCollection(anki);
+        try (Statement count = anki.createStatement();
+             ResultSet rs = count.executeQuery("select count(*) from cards")) {
+            rs.next();
+            job.started(rs.getLong(1));
+        }
+        Map<Long, Deck> decks = createDecks(user, anki, collection, job);
+
+        try (Statement cards = anki.createStatement(); ResultSet rs = cards.executeQuery(CARDS_SQL)) {
+            List<AnkiCard> chunk = new ArrayList<>(chunkSize);
+            while (rs.next()) {
+                chunk.add(new AnkiCard(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getLong(5),
+                        rs.getInt(6), rs.getInt(7), rs.getLong(8), rs.getString(9), rs.getString(10)));
+                if (chunk.size() == chunkSize) {
+                    commit(user, collection, decks, chunk, history(anki, chunk), job);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                commit(user, collection, decks, chunk, history(anki, chunk), job);
+            }
+        }
+    }
+
+    private AnkiCollection readCollection(Connection anki) throws SQLException, IOException {
+        try (Statement statement = anki.createStatement();
+             ResultSet rs = statement.executeQuery("select crt, models, decks from col")) {
+            if (!rs.next()) {
+                throw new IllegalArgumentException("Anki collection has no col row");
+            }
+            String models = rs.getString(2);
+            if (models == null || models.isBlank()) {
+                // Newer schemas keep note types in tables of their own, and only downgrade on a legacy export
+                throw new IllegalArgumentException("Unsupported Anki collection; export it again with "
+                        + "\"Support older Anki versions\" checked");
+            }
+            return new AnkiCollection(Instant.ofEpochSecond(rs.getLong(1)), parseModels(objectMapper.readTree(models)),
+                    parseDeckNames(objectMapper.readTree(rs.getString(3))));
+        }
+    }
+
+    private static Map<Long, Model> parseModels(JsonNode models) {
+        Map<Long, Model> parsed = new HashMap<>();
+        for (Map.Entry<String, JsonNode> entry : models.properties()) {
+            JsonNode model = entry.getValue();
+            List<JsonNode> fields = new ArrayList<>();
+            model.path("flds").forEach(fields::add);
+            fields.sort(Comparator.comparingInt(field -> field.path("ord").asInt()));
+            Map<Integer, Template> templates = new HashMap<>();
+            for (JsonNode template : model.path("tmpls")) {
+                templates.put(template.path("ord").asInt(),
+                        new Template(template.path("qfmt").asText(""), template.path("afmt").asText("")));
+            }
+            parsed.put(Long.parseLong(entry.getKey()), new Model(model.path("type").asInt() == 1,
+                    fields.stream().map(field -> field.path("name").asText("")).toList(), templates));
+        }
+        return parsed;
+    }
+
+    private static Map<Long, String> parseDeckNames(JsonNode decks) {
+        Map<Long, String> names = new HashMap<>();
+        for (Map.Entry<String, JsonNode> entry : decks.properties()) {
+            names.put(Long.parseLong(entry.getKey()), entry.getValue().path("name").asText(entry.getKey()));
+        }
+        return names;
+    }
+
+    private Map<Long, Deck> createDecks(User user, Connection anki, AnkiCollection collection, AnkiImportJob job)
+            throws SQLException {
+        Map<Long, Template> templates = new LinkedHashMap<>();
+        try (Statement statement = anki.createStatement(); ResultSet rs = statement.executeQuery(DECK_TEMPLATES_SQL)) {
+            while (rs.next()) {
+                Model model = collection.models().get(rs.getLong(2));
+                Template template = model == null ? null : model.template(rs.getInt(3));
+                templates.putIfAbsent(rs.getLong(1), template != null ? template : new Template(null, null));
+            }
+        }
+
+        Map<Long, Deck> decks = newTransaction.execute(status -> {
+            Map<Long, Deck> created = new HashMap<>();
+            templates.forEach((ankiDeckId, template) -> {
+                Deck deck = new Deck();
+                deck.setName(collection.deckNames().getOrDefault(ankiDeckId, "Anki deck " + ankiDeckId));
+                deck.setDescription("Imported from Anki");
+                deck.setUser(user);
+                deck.setTemplateFront(template.front());
+                deck.setTemplateBack(template.back());
+                created.put(ankiDeckId, deckDAO.save(deck));
+            });
+            return created;
+        });
+        decks.values().forEach(deck -> job.deckCreated(deck.getId()));
+        return decks;
+    }
+
+    /**
+     * The review history of the chunk's scheduled cards, by Anki card id.
+     */
+    private static Map<Long, History> history(Connection anki, List<AnkiCard> chunk) throws SQLException {
+        List<AnkiCard> scheduled = chunk.stream().filter(card -> card.type() != TYPE_NEW).toList();
+        Map<Long, History> history = new HashMap<>();
+        if (scheduled.isEmpty()) {
+            return history;
+        }
+        String sql = "select cid, id, ease, type from revlog where cid in ("
+                + "?,".repeat(scheduled.size() - 1) + "?) order by cid, id";
+        try (PreparedStatement statement = anki.prepareStatement(sql)) {
+            for (int i = 0; i < scheduled.size(); i++) {
+                statement.setLong(i + 1, scheduled.get(i).id());
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                long cardId = 0;
+                long lastReviewMillis = 0;
+                int streak = 0;
+                while (rs.next()) {
+                    if (rs.getLong(1) != cardId) {
+                        if (cardId != 0) {
+                            history.put(cardId, new History(toLocal(Instant.ofEpochMilli(lastReviewMillis)), streak));
+                        }
+                        cardId = rs.getLong(1);
+                        streak = 0;
+                    }
+                    lastReviewMillis = rs.getLong(2);
+                    int ease = rs.getInt(3);
+                    if (ease == EASE_AGAIN) {
+                        streak = 0;
+                    }
+                    else if (ease > EASE_AGAIN && rs.getInt(4) == REVLOG_REVIEW) {
+                        streak++;
+                    }
+                }
+                if (cardId != 0) {
+                    history.put(cardId, new History(toLocal(Instant.ofEpochMilli(lastReviewMillis)), streak));
+                }
+            }
+        }
+        return history;
+    }
+
+    private void commit(User user, AnkiCollection collection, Map<Long, Deck> decks, List<AnkiCard> chunk,
+                        Map<Long, History> history, AnkiImportJob job) {
+        List<SrsStateChangedEvent> events = newTransaction.execute(status -> {
+            // Cards and SRS records take their ids before anything else in this transaction touches the database:
+            // on SQLite the id generator writes on a connection of its own, which SQLite refuses once this
+            // transaction has read
+            List<Card> cards = new ArrayList<>(chunk.size());
+            List<UserCardSrs> states = new ArrayList<>();
+            for (AnkiCard row : chunk) {
+                Card card = toCard(row, collection.models().get(row.modelId()));
+                card.setDeck(decks.get(row.deckId()));
+                cardDAO.save(card);
+                cards.add(card);
+                if (row.type() != TYPE_NEW) {
+                    UserCardSrs srs = toSrs(user, card, row, collection.created(), history.get(row.id()));
+                    userCardSrsDAO.save(srs);
+                    states.add(srs);
+                }
+            }
+
+            Map<String, Tag> tags = tagResolutionService.resolveReferences(chunk.stream()
+                    .flatMap(row -> tagNames(row).stream())
+                    .toList());
+            for (int i = 0; i < cards.size(); i++) {
+                Set<Tag> cardTags = new HashSet<>();
+                for (String name : tagNames(chunk.get(i))) {
+                    Tag tag = tags.get(TagResolutionService.normalize(name));
+                    if (tag != null) {
+                        cardTags.add(tag);
+                    }
+                }
+                cards.get(i).setTags(cardTags);
+            }
+
+            // One recount per deck on its next read instead of a counter update per card
+            chunk.stream().map(row -> decks.get(row.deckId()).getId()).distinct()
+                    .forEach(deckSrsCounterService::recount);
+            List<SrsStateChangedEvent> changed = states.stream()
+                    .map(srs -> new SrsStateChangedEvent(user.getId(), SrsService.toState(srs)))
+                    .toList();
+            changed.forEach(eventPublisher::publishEvent);
+            return changed;
+        });
+        job.committed(chunk.size(), events.size());
+    }
+
+    private static Card toCard(AnkiCard row, Model model) {
+        String[] values = row.fields().split(FIELD_SEPARATOR, -1);
+        Card card = new Card();
+        if (model == null) {
+            card.setFront(values[0]);
+            card.setBack(values.length > 1 ? values[1] : "");
+            return card;
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < model.fieldNames().size(); i++) {
+            fields.put(model.fieldNames().get(i), i < values.length ? values[i] : "");
+        }
+        fields.putIfAbsent("Tags", String.join(" ", tagNames(row)));
+        Template template = model.template(row.ord());
+        if (template != null) {
+            card.setFront(AnkiTemplates.render(template.front(), fields, row.ord() + 1, false));
+            card.setBack(AnkiTemplates.render(template.back(), fields, row.ord() + 1, true));
+        }
+        return card;
+    }
+
+    /**
+     * The card's Anki scheduling as SM-2 state: review cards keep their interval, and count as past the two
+     * fixed first steps so their next correct answer multiplies it by the ease; cards in (re)learning start over.
+     */
+    private static UserCardSrs toSrs(User user, Card card, AnkiCard row, Instant collectionCreated,
+                                     History history) {
+        UserCardSrs srs = new UserCardSrs();
+        srs.setUser(user);
+        srs.setCard(card);
+        srs.setNextReviewAt(toLocal(row.due() > DUE_EPOCH_SECONDS
+                ? Instant.ofEpochSecond(row.due())
+                : collectionCreated.plus(Duration.ofDays(row.due()))));
+        srs.setIntervalDays(Math.max(row.interval(), 1));
+        srs.setEaseFactor(row.factor() > 0
+                ? Math.max(SrsService.MIN_EASE_FACTOR, row.factor() / 1000f)
+                : SrsService.DEFAULT_EASE_FACTOR);
+        srs.setRepetitions(row.type() == TYPE_REVIEW ? Math.max(2, history == null ? 0 : history.streak()) : 0);
+        srs.setLastReviewedAt(history != null
+                ? history.lastReviewedAt()
+                : srs.getNextReviewAt().minusDays(srs.getIntervalDays()));
+        return srs;
+    }
+
+    private static List<String> tagNames(AnkiCard row) {
+        String tags = row.tags() == null ? "" : row.tags().trim();
+        return tags.isEmpty() ? List.of() : Arrays.asList(tags.split("\\s+"));
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
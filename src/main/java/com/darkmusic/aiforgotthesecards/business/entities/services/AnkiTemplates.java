@@ -0,0 +1,127 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders Anki card templates ({@code {{Field}}}, {@code {{#Field}}...{{/Field}}} and {@code {{^Field}}...}
+ * sections, and the {@code text}, {@code cloze}, {@code hint} and {@code type} filters) into the HTML of a
+ * card's front or back.
+ *
+ * <p>A card here shows its front above its back, so {@code {{FrontSide}}} renders as nothing and the
+ * {@code <hr id=answer>} Anki puts after it is dropped. Type-in-the-answer boxes and text-to-speech render as
+ * nothing; other filters (furigana and the like) pass the field through unchanged.</p>
+ */
+final class AnkiTemplates {
+    private static final Pattern CLOZE = Pattern.compile("\\{\\{c(\\d+)::(.*?)(?:::(.*?))?}}", Pattern.DOTALL);
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern LEADING_ANSWER_RULE = Pattern.compile("^\\s*<hr id=\"?answer\"?>\\s*");
+
+    private AnkiTemplates() {
+    }
+
+    /**
+     * @param fields The note's fields by name
+     * @param clozeNumber For cloze notes, which cloze this card asks for (Anki's card ordinal + 1)
+     * @param answer Whether this is the back of the card, which reveals the cloze
+     */
+    static String render(String template, Map<String, String> fields, int clozeNumber, boolean answer) {
+        String html = renderSection(template == null ? "" : template, fields, clozeNumber, answer).trim();
+        return answer ? LEADING_ANSWER_RULE.matcher(html).replaceFirst("") : html;
+    }
+
+    private static String renderSection(String template, Map<String, String> fields, int clozeNumber,
+                                        boolean answer) {
+        StringBuilder out = new StringBuilder(template.length());
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf("{{", position);
+            int close = open < 0 ? -1 : template.indexOf("}}", open + 2);
+            if (close < 0) {
+                out.append(template, position, template.length());
+                break;
+            }
+            out.append(template, position, open);
+            String tag = template.substring(open + 2, close).trim();
+            position = close + 2;
+
+            if (tag.startsWith("#") || tag.startsWith("^")) {
+                String name = tag.substring(1).trim();
+                String end = "{{/" + name + "}}";
+                int endAt = template.indexOf(end, position);
+                if (endAt < 0) {
+                    continue;
+                }
+                boolean present = !field(fields, name).isBlank();
+                if (present == tag.startsWith("#")) {
+                    out.append(renderSection(template.substring(position, endAt), fields, clozeNumber, answer));
+                }
+                position = endAt + end.length();
+            }
+            else if (!tag.startsWith("/") && !tag.startsWith("!")) {
+                out.append(replacement(tag, fields, clozeNumber, answer));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String replacement(String tag, Map<String, String> fields, int clozeNumber, boolean answer) {
+        String[] parts = tag.split(":");
+        String name = parts[parts.length - 1].trim();
+        if (name.equals("FrontSide")) {
+            return "";
+        }
+        String value = field(fields, name);
+        // Filters apply from the one nearest the field outwards
+        for (int i = parts.length - 2; i >= 0; i--) {
+            String filter = parts[i].trim();
+            if (filter.equals("type") || filter.startsWith("tts")) {
+                return "";
+            }
+            value = switch (filter) {
+                case "text" -> HTML_TAG.matcher(value).replaceAll("");
+                case "cloze" -> cloze(value, clozeNumber, answer);
+                default -> value;
+            };
+        }
+        return value;
+    }
+
+    /**
+     * The text with cloze {@code clozeNumber} hidden (front) or highlighted (back), and every other cloze shown
+     * as plain text.
+     */
+    static String cloze(String text, int clozeNumber, boolean answer) {
+        Matcher matcher = CLOZE.matcher(text);
+        StringBuilder out = new StringBuilder(text.length());
+        while (matcher.find()) {
+            String replacement;
+            if (Integer.parseInt(matcher.group(1)) != clozeNumber) {
+                replacement = matcher.group(2);
+            }
+            else if (answer) {
+                replacement = "<span class=\"cloze\">" + matcher.group(2) + "</span>";
+            }
+            else {
+                replacement = "<span class=\"cloze\">[" + (matcher.group(3) != null ? matcher.group(3) : "...")
+                        + "]</span>";
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    private static String field(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            for (Map.Entry<String, String> entry : fields.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(name)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return value == null ? "" : value;
+    }
+}
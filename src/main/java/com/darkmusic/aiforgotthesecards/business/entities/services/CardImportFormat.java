@@ -0,0 +1,11 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+/**
+ * How the rows of a card import are encoded.
+ */
+public enum CardImportFormat {
+    /** One JSON object per line, as {@link CardImportRow}. */
+    NDJSON,
+    /** Columns front, back and optionally tags, the tags separated by semicolons. */
+    CSV
+}
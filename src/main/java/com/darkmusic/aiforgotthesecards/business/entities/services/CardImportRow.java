@@ -0,0 +1,9 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.List;
+
+/**
+ * One card to import. As an NDJSON line: {@code {"front": "...", "back": "...", "tags": ["..."]}}.
+ */
+public record CardImportRow(String front, String back, List<String> tags) {
+}
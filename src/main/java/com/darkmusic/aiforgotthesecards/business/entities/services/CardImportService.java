@@ -0,0 +1,178 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports cards into a deck from a stream of rows, NDJSON or CSV, without reading the whole input first.
+ *
+ * <p>Rows are parsed one at a time and committed in chunks of {@code aiforgot.cards.import.chunk-size}, each
+ * in a transaction of its own, so memory stays bounded by one chunk and a failure loses at most the chunk it
+ * happened in. Progress is reported as an offset: the number of rows of the input that are committed. An
+ * import that stopped early is resumed by sending the same input again with that offset, which skips the
+ * rows already imported.</p>
+ */
+@Service
+public class CardImportService {
+    // Longest CSV row accepted; NDJSON rows are bounded by Jackson's own limits on string length
+    private static final int MAX_CSV_ROW_CHARS = 1 << 20;
+
+    /**
+     * @param offset Rows of the input committed so far, counting any skipped by the requested offset
+     * @param imported Cards created by this import
+     */
+    public record Progress(long offset, long imported) {
+    }
+
+    @FunctionalInterface
+    private interface Rows {
+        /** The next row, or null at the end of the input. */
+        CardImportRow next() throws IOException;
+    }
+
+    private final CardDAO cardDAO;
+    private final TagResolutionService tagResolutionService;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+    private final int chunkSize;
+
+    public CardImportService(CardDAO cardDAO, TagResolutionService tagResolutionService,
+                             DeckSrsCounterService deckSrsCounterService, ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${aiforgot.cards.import.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("aiforgot.cards.import.chunk-size must be at least 1");
+        }
+        this.cardDAO = cardDAO;
+        this.tagResolutionService = tagResolutionService;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import the rows of {@code in} after the first {@code offset} into {@code deck}. {@code progress} is told
+     * after every committed chunk; if it throws, the import stops there.
+     *
+     * <p>If the input cannot be read or parsed, or a chunk fails to commit, the exception propagates and
+     * every chunk reported to {@code progress} stays committed.</p>
+     *
+     * @param header For CSV, whether the first line holds column names rather than a card
+     * @return Progress after the last row
+     */
+    public Progress importCards(Deck deck, CardImportFormat format, InputStream in, boolean header, long offset,
+                                Consumer<Progress> progress) throws IOException {
+        Rows rows = switch (format) {
+            case NDJSON -> ndjsonRows(in);
+            case CSV -> csvRows(in, header);
+        };
+
+        long position = 0;
+        while (position < offset && rows.next() != null) {
+            position++;
+        }
+
+        long imported = 0;
+        List<CardImportRow> chunk = new ArrayList<>(chunkSize);
+        CardImportRow row;
+        do {
+            row = rows.next();
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() == chunkSize || (row == null && !chunk.isEmpty())) {
+                commit(deck, chunk);
+                position += chunk.size();
+                imported += chunk.size();
+                chunk.clear();
+                progress.accept(new Progress(position, imported));
+            }
+        } while (row != null);
+        return new Progress(position, imported);
+    }
+
+    private void commit(Deck deck, List<CardImportRow> chunk) {
+        newTransaction.executeWithoutResult(status -> {
+            // Cards take their ids before anything else in this transaction touches the database: on SQLite the
+            // id generator writes on a connection of its own, which SQLite refuses once this transaction has read
+            List<Card> cards = new ArrayList<>(chunk.size());
+            for (CardImportRow row : chunk) {
+                Card card = new Card();
+                card.setFront(row.front());
+                card.setBack(row.back());
+                card.setDeck(deck);
+                cardDAO.save(card);
+                cards.add(card);
+            }
+
+            Map<String, Tag> tags = tagResolutionService.resolveReferences(chunk.stream()
+                    .map(CardImportRow::tags)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .toList());
+            for (int i = 0; i < cards.size(); i++) {
+                Set<Tag> cardTags = new HashSet<>();
+                List<String> names = chunk.get(i).tags();
+                if (names != null) {
+                    for (String name : names) {
+                        Tag tag = tags.get(TagResolutionService.normalize(name));
+                        if (tag != null) {
+                            cardTags.add(tag);
+                        }
+                    }
+                }
+                cards.get(i).setTags(cardTags);
+            }
+            deckSrsCounterService.cardsAdded(deck, cards.size());
+        });
+    }
+
+    private Rows ndjsonRows(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        MappingIterator<CardImportRow> values = objectMapper.readerFor(CardImportRow.class).readValues(parser);
+        return () -> values.hasNextValue() ? values.nextValue() : null;
+    }
+
+    private static Rows csvRows(InputStream in, boolean header) throws IOException {
+        CsvRowReader csv = new CsvRowReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), MAX_CSV_ROW_CHARS);
+        if (header) {
+            csv.next();
+        }
+        return () -> {
+            List<String> fields = csv.next();
+            if (fields == null) {
+                return null;
+            }
+            List<String> tags = fields.size() > 2 ? Arrays.asList(fields.get(2).split(";")) : List.of();
+            return new CardImportRow(fields.get(0), fields.size() > 1 ? fields.get(1) : null, tags);
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV (RFC 4180) one row at a time: comma-separated fields, optionally in double quotes, where a quoted
+ * field may contain commas, line breaks and doubled quotes. Lines end with LF or CRLF; empty lines are
+ * skipped. Only the current row is held in memory, and a row longer than {@code maxRowChars} is rejected.
+ * Wrap unbuffered input in a {@link java.io.BufferedReader}; characters are read one at a time.
+ */
+final class CsvRowReader {
+    private final Reader in;
+    private final int maxRowChars;
+    private boolean atStart = true;
+
+    CsvRowReader(Reader in, int maxRowChars) {
+        this.in = in;
+        this.maxRowChars = maxRowChars;
+    }
+
+    /**
+     * The fields of the next row, or null at the end of the input.
+     *
+     * @throws IOException if the input cannot be read, a row is too long or a quoted field is not closed
+     */
+    List<String> next() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == '\r') {
+                c = read();
+            }
+        } while (c == '\n');
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int rowChars = 0;
+        boolean quoted = false;
+        while (true) {
+            if (++rowChars > maxRowChars) {
+                throw new IOException("CSV row longer than " + maxRowChars + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("CSV quoted field is not closed");
+                }
+                if (c == '"') {
+                    int after = read();
+                    if (after == '"') {
+                        field.append('"');
+                    }
+                    else {
+                        quoted = false;
+                        c = after;
+                        continue;
+                    }
+                }
+                else {
+                    field.append((char) c);
+                }
+            }
+            else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            }
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            }
+            else if (c == '\r') {
+                int after = read();
+                if (after != '\n') {
+                    // A lone CR is kept as part of the field
+                    field.append('\r');
+                }
+                c = after;
+                continue;
+            }
+            else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = in.read();
+        if (atStart) {
+            atStart = false;
+            // Byte order mark, as spreadsheet programs write at the start of UTF-8 CSV
+            if (c == '\uFEFF') {
+                c = in.read();
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,321 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.DeckSrsCounter;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckSrsCounterDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsDeckCounts;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Maintains {@link DeckSrsCounter} rows. Every method that changes counts is meant to run in the same
+ * transaction as the card or SRS change it accounts for. Deltas are only applied to rows that already
+ * exist; missing or stale rows are (re)built from a recount the next time they are read, and a
+ * periodic reconciliation repairs any drift.
+ */
+@Service
+public class DeckSrsCounterService {
+    private static final Logger log = LoggerFactory.getLogger(DeckSrsCounterService.class);
+
+    private final DeckSrsCounterDAO deckSrsCounterDAO;
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final DeckDAO deckDAO;
+    private final SrsColumnStore srsColumnStore;
+    private final EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    public DeckSrsCounterService(DeckSrsCounterDAO deckSrsCounterDAO, UserCardSrsDAO userCardSrsDAO, DeckDAO deckDAO,
+                                 SrsColumnStore srsColumnStore, EntityManager em,
+                                 ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.deckSrsCounterDAO = deckSrsCounterDAO;
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.deckDAO = deckDAO;
+        this.srsColumnStore = srsColumnStore;
+        this.em = em;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Account for a card's SRS state changing.
+     *
+     * @param previousNextReviewAt The card's next review time before, or null if it had never been reviewed
+     */
+    public void reviewed(long userId, long deckId, LocalDateTime previousNextReviewAt, LocalDateTime nextReviewAt) {
+        Delta delta = new Delta();
+        if (previousNextReviewAt == null) {
+            delta.reviewed++;
+        } else {
+            delta.addDue(previousNextReviewAt, -1);
+        }
+        delta.addDue(nextReviewAt, 1);
+        apply(userId, deckId, delta);
+    }
+
+    public void cardsAdded(Deck deck, long count) {
+        if (deck == null || deck.getId() == null) {
+            return;
+        }
+        Delta delta = new Delta();
+        delta.total = count;
+        apply(ownerOf(deck), deck.getId(), delta);
+    }
+
+    /**
+     * Account for cards about to be deleted and delete their SRS records, which would otherwise
+     * block the delete.
+     */
+    public void removeCards(Collection<Card> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        Map<DeckSrsCounter.Key, Delta> deltas = new HashMap<>();
+        for (Card card : cards) {
+            deltas.computeIfAbsent(new DeckSrsCounter.Key(ownerOf(card.getDeck()), card.getDeck().getId()), k -> new Delta())
+                    .total--;
+        }
+        List<Long> cardIds = cards.stream().map(Card::getId).toList();
+        Map<Long, List<Long>> removed = new HashMap<>();
+        for (UserCardSrs srs : userCardSrsDAO.findByCardIds(cardIds)) {
+            Delta delta = deltas.computeIfAbsent(
+                    new DeckSrsCounter.Key(srs.getUser().getId(), srs.getCard().getDeck().getId()), k -> new Delta());
+            delta.reviewed--;
+            delta.addDue(srs.getNextReviewAt(), -1);
+            removed.computeIfAbsent(srs.getUser().getId(), id -> new ArrayList<>()).add(srs.getCard().getId());
+            em.remove(srs);
+        }
+        deltas.forEach((key, delta) -> apply(key.getUserId(), key.getDeckId(), delta));
+        // The due index and column store drop them after commit, like review updates
+        removed.forEach((userId, ids) -> eventPublisher.publishEvent(new SrsCardsRemovedEvent(userId, ids)));
+    }
+
+    /**
+     * Account for a card moving from {@code from} to its current deck.
+     */
+    public void cardMoved(Card card, Deck from) {
+        Deck to = card.getDeck();
+        if (from == null || to == null || Objects.equals(from.getId(), to.getId())) {
+            return;
+        }
+        Delta leaving = new Delta();
+        leaving.total = -1;
+        Delta arriving = new Delta();
+        arriving.total = 1;
+        apply(ownerOf(from), from.getId(), leaving);
+        apply(ownerOf(to), to.getId(), arriving);
+
+        for (UserCardSrs srs : userCardSrsDAO.findByCardIds(List.of(card.getId()))) {
+            Delta out = new Delta();
+            out.reviewed = -1;
+            out.addDue(srs.getNextReviewAt(), -1);
+            apply(srs.getUser().getId(), from.getId(), out);
+            Delta in = new Delta();
+            in.reviewed = 1;
+            in.addDue(srs.getNextReviewAt(), 1);
+            apply(srs.getUser().getId(), to.getId(), in);
+            srsColumnStore.moveCard(srs.getUser().getId(), card.getId(), to.getId());
+        }
+    }
+
+    public void deckDeleted(long deckId) {
+        deckSrsCounterDAO.deleteByDeckId(deckId);
+    }
+
+    /**
+     * Drop the deck's rows so they are recounted on their next read; cheaper than a delta per card when many
+     * cards of the deck change at once, as in an import.
+     */
+    public void recount(long deckId) {
+        deckSrsCounterDAO.deleteByDeckId(deckId);
+    }
+
+    /**
+     * Counts for the user's decks as of {@code now}, rebuilding rows that are missing or bucketed on an
+     * earlier day. Apart from those rebuilds this reads one row per deck plus the user's cards that fall
+     * due earlier today.
+     *
+     * @param deckIds Decks to report, or null for all of the user's decks
+     */
+    @Transactional
+    public List<SrsDeckCounts> countsFor(User user, Collection<Long> deckIds, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        Map<Long, DeckSrsCounter> counters = new HashMap<>();
+        for (DeckSrsCounter counter : deckSrsCounterDAO.findByUserId(user.getId())) {
+            counters.put(counter.getDeckId(), counter);
+        }
+
+        List<Long> wanted = new ArrayList<>();
+        for (Deck deck : deckDAO.findByUser(user)) {
+            if (deckIds == null || deckIds.contains(deck.getId())) {
+                wanted.add(deck.getId());
+            }
+        }
+        List<Long> rebuild = wanted.stream()
+                .filter(id -> !counters.containsKey(id) || !today.equals(counters.get(id).getBucketDate()))
+                .toList();
+        if (!rebuild.isEmpty()) {
+            for (DeckSrsCounter counter : rebuild(user.getId(), rebuild, today)) {
+                counters.put(counter.getDeckId(), counter);
+            }
+        }
+
+        Map<Long, Long> dueToday = userCardSrsDAO.countDueByDeck(user.getId(), today.atStartOfDay(), now);
+        List<SrsDeckCounts> result = new ArrayList<>(wanted.size());
+        for (Long deckId : wanted) {
+            DeckSrsCounter counter = counters.get(deckId);
+            result.add(new SrsDeckCounts(deckId, counter.getTotalCards(), counter.getReviewedCards(),
+                    counter.getOverdueCards() + dueToday.getOrDefault(deckId, 0L)));
+        }
+        return result;
+    }
+
+    /**
+     * Recount every materialized row and fix the ones that drifted.
+     */
+    @Scheduled(fixedDelayString = "${aiforgot.srs.deck-counters.reconcile-interval:PT1H}",
+            initialDelayString = "${aiforgot.srs.deck-counters.reconcile-interval:PT1H}")
+    public void reconcile() {
+        int repaired = 0;
+        for (Long userId : deckSrsCounterDAO.findUserIds()) {
+            try {
+                Integer fixed = transaction.execute(status -> reconcileUser(userId));
+                repaired += fixed == null ? 0 : fixed;
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile deck counters for user {}", userId, e);
+            }
+        }
+        if (repaired > 0) {
+            log.info("Repaired {} drifted deck counter rows", repaired);
+        }
+    }
+
+    int reconcileUser(long userId) {
+        LocalDate today = LocalDate.now();
+        Map<Long, DeckSrsCounter> actual = new HashMap<>();
+        for (DeckSrsCounter counter : deckSrsCounterDAO.recount(userId, null, today)) {
+            actual.put(counter.getDeckId(), counter);
+        }
+
+        int repaired = 0;
+        for (DeckSrsCounter stored : deckSrsCounterDAO.findByUserId(userId)) {
+            DeckSrsCounter fresh = actual.get(stored.getDeckId());
+            if (fresh == null) {
+                if (!deckDAO.existsById(stored.getDeckId())) {
+                    deckSrsCounterDAO.delete(stored);
+                    repaired++;
+                    continue;
+                }
+                fresh = empty(userId, stored.getDeckId(), today);
+            }
+            if (stored.getTotalCards() != fresh.getTotalCards()
+                    || stored.getReviewedCards() != fresh.getReviewedCards()
+                    || !stored.getBucketDate().equals(fresh.getBucketDate())
+                    || stored.getOverdueCards() != fresh.getOverdueCards()
+                    || stored.getDueOnBucketDate() != fresh.getDueOnBucketDate()) {
+                if (stored.getBucketDate().equals(today)) {
+                    log.debug("Deck counter drift for user {} deck {}", userId, stored.getDeckId());
+                    repaired++;
+                }
+                deckSrsCounterDAO.save(fresh);
+            }
+        }
+        return repaired;
+    }
+
+    private List<DeckSrsCounter> rebuild(long userId, List<Long> deckIds, LocalDate today) {
+        Map<Long, DeckSrsCounter> rebuilt = new LinkedHashMap<>();
+        for (Long deckId : deckIds) {
+            // Decks without cards do not show up in the recount
+            rebuilt.put(deckId, empty(userId, deckId, today));
+        }
+        for (DeckSrsCounter counter : deckSrsCounterDAO.recount(userId, deckIds, today)) {
+            rebuilt.put(counter.getDeckId(), counter);
+        }
+        deckSrsCounterDAO.saveAll(rebuilt.values());
+        return new ArrayList<>(rebuilt.values());
+    }
+
+    private void apply(long userId, long deckId, Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        Optional<LocalDate> bucketDate = deckSrsCounterDAO.findBucketDate(userId, deckId);
+        if (bucketDate.isEmpty()) {
+            // Built on first read
+            return;
+        }
+        long overdue = delta.overdue(bucketDate.get());
+        long dueOn = delta.dueOn(bucketDate.get());
+        if (deckSrsCounterDAO.applyDelta(userId, deckId, bucketDate.get(),
+                delta.total, delta.reviewed, overdue, dueOn) == 0) {
+            // Re-bucketed concurrently; drop the row so the next read recounts it
+            deckSrsCounterDAO.deleteByUserAndDeck(userId, deckId);
+        }
+    }
+
+    private long ownerOf(Deck deck) {
+        if (deck.getUser() != null) {
+            return deck.getUser().getId();
+        }
+        return deckDAO.findById(deck.getId()).orElseThrow().getUser().getId();
+    }
+
+    private static DeckSrsCounter empty(long userId, long deckId, LocalDate bucketDate) {
+        DeckSrsCounter counter = new DeckSrsCounter();
+        counter.setUserId(userId);
+        counter.setDeckId(deckId);
+        counter.setBucketDate(bucketDate);
+        counter.setUpdatedAt(LocalDateTime.now());
+        return counter;
+    }
+
+    /**
+     * Pending change to one counter row. Due changes are kept as timestamps until the row's bucket
+     * date is known.
+     */
+    private static final class Delta {
+        private long total;
+        private long reviewed;
+        private final Map<LocalDateTime, Long> due = new HashMap<>();
+
+        void addDue(LocalDateTime nextReviewAt, long sign) {
+            due.merge(nextReviewAt, sign, Long::sum);
+        }
+
+        long overdue(LocalDate bucketDate) {
+            LocalDateTime start = bucketDate.atStartOfDay();
+            return due.entrySet().stream()
+                    .filter(e -> e.getKey().isBefore(start))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        long dueOn(LocalDate bucketDate) {
+            return due.entrySet().stream()
+                    .filter(e -> e.getKey().toLocalDate().equals(bucketDate))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        boolean isEmpty() {
+            return total == 0 && reviewed == 0 && due.values().stream().allMatch(v -> v == 0);
+        }
+    }
+}
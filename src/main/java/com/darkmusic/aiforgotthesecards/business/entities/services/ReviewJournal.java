@@ -0,0 +1,635 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.ReviewLogDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.VersionedSrsState;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write path for reviews: an append-only {@code review_log} plus a write-behind projection into
+ * {@code user_card_srs}.
+ *
+ * <p>Reviews are appended to a bounded in-process buffer, each caller's reviews as one entry. Whichever
+ * caller gets the commit lock first drains the buffer and inserts what is in it in one transaction (group
+ * commit), using the connection it already holds; the other callers just wait for their entries to be
+ * committed. An entry is never split between transactions, so a caller's reviews commit or fail together. Once a
+ * review is durable in the log, the card's new state is handed to a background projector that upserts
+ * {@code user_card_srs} in batches, keeping only the latest state per card.</p>
+ *
+ * <p>Until a state is projected it is served from an in-memory overlay ({@link #pendingState}), and
+ * {@link #awaitProjected} gives readers read-your-writes: it projects the user's outstanding states in
+ * the caller's transaction and waits for any batch the projector already has in flight.</p>
+ */
+@Service
+public class ReviewJournal {
+    private static final Logger log = LoggerFactory.getLogger(ReviewJournal.class);
+
+    private static final int MAX_PROJECTION_ATTEMPTS = 3;
+    private static final int MAX_UPSERT_ATTEMPTS = 5;
+
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final CardDAO cardDAO;
+    private final ReviewLogDAO reviewLogDAO;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final EntityManager em;
+    private final TransactionTemplate newTransaction;
+    private final TransactionTemplate transaction;
+    private final boolean writeBehind;
+    private final int maxBatchSize;
+    private final Duration linger;
+    private final Duration readYourWritesTimeout;
+    private final Duration recoveryWindow;
+
+    private final int bufferSize;
+    private final ConcurrentLinkedQueue<Entry> buffer = new ConcurrentLinkedQueue<>();
+    // One permit per buffered review, so the buffer holds at most bufferSize reviews
+    private final Semaphore bufferSpace;
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    // All pending bookkeeping is guarded by this monitor; it is never held across I/O or other locks
+    private final Object pendingLock = new Object();
+    private final Map<Long, UserPending> pending = new HashMap<>();
+    private final LinkedBlockingQueue<Long> dirtyUsers = new LinkedBlockingQueue<>();
+    private long sequence;
+
+    private volatile boolean running = true;
+    private final Thread projector;
+
+    public ReviewJournal(UserCardSrsDAO userCardSrsDAO, CardDAO cardDAO, ReviewLogDAO reviewLogDAO,
+                         DeckSrsCounterService deckSrsCounterService, EntityManager em,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${aiforgot.srs.write-behind.enabled:true}") boolean writeBehind,
+                         @Value("${aiforgot.srs.review-log.buffer-size:4096}") int bufferSize,
+                         @Value("${aiforgot.srs.review-log.max-batch-size:256}") int maxBatchSize,
+                         @Value("${aiforgot.srs.write-behind.linger:PT0.05S}") Duration linger,
+                         @Value("${aiforgot.srs.write-behind.read-timeout:PT5S}") Duration readYourWritesTimeout,
+                         @Value("${aiforgot.srs.review-log.recovery-window:P1D}") Duration recoveryWindow) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.cardDAO = cardDAO;
+        this.reviewLogDAO = reviewLogDAO;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.em = em;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.writeBehind = writeBehind;
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+        this.readYourWritesTimeout = readYourWritesTimeout;
+        this.recoveryWindow = recoveryWindow;
+        this.bufferSize = bufferSize;
+        this.bufferSpace = new Semaphore(bufferSize);
+        this.projector = writeBehind
+                ? Thread.ofVirtual().name("srs-projector").start(this::runProjector)
+                : null;
+    }
+
+    /**
+     * State of a card that has been reviewed but not yet projected into {@code user_card_srs}.
+     */
+    public Optional<SrsCardState> pendingState(long userId, long cardId) {
+        synchronized (pendingLock) {
+            UserPending userPending = pending.get(userId);
+            Pending p = userPending == null ? null : userPending.latest.get(cardId);
+            return p == null ? Optional.empty() : Optional.of(p.state());
+        }
+    }
+
+    /**
+     * Queue one caller's reviews for the log, in the order they happened; each carries the card's new state.
+     * The returned future completes once all of them are committed, in one transaction; pass it to
+     * {@link #awaitDurable}. Call while holding the user's {@link UserReviewLocks} lock.
+     */
+    public CompletableFuture<Void> append(List<ReviewLog> reviews) {
+        if (reviews.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Pending> entryPending = new ArrayList<>(reviews.size());
+        for (ReviewLog review : reviews) {
+            Long newId = newRowId(review, pendingNewId(review.getUserId(), review.getCardId()));
+            synchronized (pendingLock) {
+                Pending p = new Pending(review.getUserId(), toState(review), review.getQuality(), newId, ++sequence, 0);
+                pending.computeIfAbsent(review.getUserId(), id -> new UserPending()).latest.put(review.getCardId(), p);
+                entryPending.add(p);
+            }
+        }
+        Entry entry = new Entry(reviews, entryPending, new CompletableFuture<>());
+
+        // Room for the whole entry at once; one larger than the buffer waits for all of it
+        while (!bufferSpace.tryAcquire(entry.space(bufferSize))) {
+            // Buffer full: commit what is queued ourselves rather than block
+            commitLock.lock();
+            try {
+                commitBatch();
+            } finally {
+                commitLock.unlock();
+            }
+        }
+        buffer.add(entry);
+        return entry.durable();
+    }
+
+    /**
+     * Block until the appended reviews are committed to the log, taking part in the group commit.
+     * With write-behind disabled, the user's new states are also projected before returning.
+     * Must not be called while holding the user's {@link UserReviewLocks} lock.
+     */
+    public void awaitDurable(long userId, CompletableFuture<Void> durable) {
+        while (!durable.isDone()) {
+            commitLock.lock();
+            try {
+                if (!durable.isDone()) {
+                    commitBatch();
+                }
+            } finally {
+                commitLock.unlock();
+            }
+        }
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+
+        if (!writeBehind) {
+            awaitProjected(userId);
+        }
+    }
+
+    /**
+     * Make every review the user has committed so far visible in {@code user_card_srs} for the current
+     * transaction. States not yet picked up by the projector are written here, in the caller's
+     * transaction; batches the projector already has in flight are waited for.
+     */
+    public void awaitProjected(long userId) {
+        long deadline = System.nanoTime() + readYourWritesTimeout.toNanos();
+        List<Pending> claimed;
+        synchronized (pendingLock) {
+            UserPending userPending = pending.get(userId);
+            if (userPending == null) {
+                return;
+            }
+            while (userPending.projectorInFlight > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    log.warn("Timed out waiting for SRS projection of user {}", userId);
+                    break;
+                }
+                try {
+                    pendingLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            claimed = claim(userPending, Integer.MAX_VALUE);
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        transaction.executeWithoutResult(status -> {
+            // Registered before projecting, so the claim is released however the transaction ends: if project()
+            // throws inside a transaction joined here, the claim is only released once that outer one rolls back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completionStatus) {
+                    release(claimed, completionStatus == STATUS_COMMITTED, false);
+                }
+            });
+            project(claimed);
+        });
+    }
+
+    /**
+     * {@link #awaitProjected(long)}, then also wait until the card's latest state is committed to
+     * {@code user_card_srs} when another caller was projecting it at the time. Call outside a transaction:
+     * projecting here commits on its own, and a claim held by an enclosing transaction is never released.
+     */
+    public void awaitProjected(long userId, long cardId) {
+        long deadline = System.nanoTime() + readYourWritesTimeout.toNanos();
+        while (true) {
+            awaitProjected(userId);
+            synchronized (pendingLock) {
+                UserPending userPending = pending.get(userId);
+                if (userPending == null || !userPending.latest.containsKey(cardId)) {
+                    return;
+                }
+                if (!userPending.unclaimed.containsKey(cardId) || userPending.inFlightCards.contains(cardId)) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        log.warn("Timed out waiting for SRS projection of card {} for user {}", cardId, userId);
+                        return;
+                    }
+                    try {
+                        pendingLock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * On startup, re-queue reviews that were logged but never projected, e.g. because the process
+     * stopped with states still waiting for the projector.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<ReviewLog> unprojected = reviewLogDAO.findUnprojectedSince(LocalDateTime.now().minus(recoveryWindow));
+        if (unprojected.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Card> cards = new HashMap<>();
+        cardDAO.findAllByIdWithDeck(unprojected.stream().map(ReviewLog::getCardId).distinct().toList())
+                .forEach(c -> cards.put(c.getId(), c));
+        // Reviews are in log order, so a card's later reviews take over the id reserved for its first
+        Map<List<Long>, Long> newIds = new HashMap<>();
+        for (ReviewLog review : unprojected) {
+            List<Long> key = List.of(review.getUserId(), review.getCardId());
+            newIds.put(key, newRowId(review, newIds.get(key)));
+        }
+        synchronized (pendingLock) {
+            for (ReviewLog review : unprojected) {
+                if (cards.containsKey(review.getCardId())) {
+                    markDurable(new Pending(review.getUserId(), toState(review), review.getQuality(),
+                            newIds.get(List.of(review.getUserId(), review.getCardId())), ++sequence, 0), true);
+                }
+            }
+        }
+        log.info("Re-queued {} unprojected reviews from the review log", unprojected.size());
+        if (!writeBehind) {
+            unprojected.stream().map(ReviewLog::getUserId).distinct().forEach(this::awaitProjected);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (projector == null) {
+            return;
+        }
+        try {
+            projector.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Best effort; anything left is still in the log and is picked up by recover() on the next start
+        Set<Long> users;
+        synchronized (pendingLock) {
+            users = new LinkedHashSet<>(pending.keySet());
+        }
+        try {
+            projectUsers(users);
+        } catch (RuntimeException e) {
+            log.warn("Could not project remaining SRS states on shutdown", e);
+        }
+    }
+
+    /**
+     * The id for the card's {@code user_card_srs} row should projecting this review insert it: the one already
+     * reserved for an earlier unprojected review of the card, or a new one if the review started from no row.
+     * Taken here, outside the projection transaction, because that transaction may have read already (see
+     * {@link UserCardSrsDAO#reserveId}).
+     */
+    private Long newRowId(ReviewLog review, Long earlier) {
+        if (earlier != null) {
+            return earlier;
+        }
+        return review.getIntervalBefore() == null ? userCardSrsDAO.reserveId() : null;
+    }
+
+    private Long pendingNewId(long userId, long cardId) {
+        synchronized (pendingLock) {
+            UserPending userPending = pending.get(userId);
+            Pending p = userPending == null ? null : userPending.latest.get(cardId);
+            return p == null ? null : p.newId();
+        }
+    }
+
+    static SrsCardState toState(ReviewLog review) {
+        return new SrsCardState(
+                review.getCardId(),
+                review.getDeckId(),
+                review.getNextReviewAt(),
+                review.getIntervalAfter(),
+                review.getEaseAfter(),
+                review.getRepetitionsAfter(),
+                review.getReviewedAt());
+    }
+
+    /**
+     * Drain whole entries from the buffer, up to {@code maxBatchSize} reviews (or one larger entry), and
+     * insert them in one transaction. Caller holds {@link #commitLock}, so it is the only one taking entries.
+     */
+    private void commitBatch() {
+        List<Entry> batch = new ArrayList<>();
+        int reviews = 0;
+        for (Entry next = buffer.peek();
+             next != null && (batch.isEmpty() || reviews + next.reviews().size() <= maxBatchSize);
+             next = buffer.peek()) {
+            buffer.poll();
+            bufferSpace.release(next.space(bufferSize));
+            batch.add(next);
+            reviews += next.reviews().size();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int batchSize = reviews;
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                batch.forEach(e -> e.reviews().forEach(reviewLogDAO::save));
+                em.flush();
+                batch.forEach(e -> e.reviews().forEach(em::detach));
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} reviews to the review log", batchSize, e);
+            synchronized (pendingLock) {
+                for (Entry entry : batch) {
+                    entry.pending().forEach(this::forget);
+                }
+            }
+            batch.forEach(entry -> entry.durable().completeExceptionally(e));
+            return;
+        }
+
+        synchronized (pendingLock) {
+            for (Entry entry : batch) {
+                entry.pending().forEach(p -> markDurable(p, false));
+            }
+        }
+        batch.forEach(entry -> entry.durable().complete(null));
+    }
+
+    /** Caller holds {@link #pendingLock}. */
+    private void markDurable(Pending p, boolean recovered) {
+        UserPending userPending = pending.computeIfAbsent(p.userId(), id -> new UserPending());
+        if (recovered) {
+            userPending.latest.put(p.state().cardId(), p);
+        }
+        Pending current = userPending.latest.get(p.state().cardId());
+        if (current == null || current.seq() > p.seq()) {
+            // A newer review of the card is already queued; only its state needs projecting
+            return;
+        }
+        userPending.unclaimed.put(p.state().cardId(), p);
+        dirtyUsers.offer(p.userId());
+        pendingLock.notifyAll();
+    }
+
+    /** Caller holds {@link #pendingLock}. */
+    private void forget(Pending p) {
+        UserPending userPending = pending.get(p.userId());
+        if (userPending == null) {
+            return;
+        }
+        userPending.latest.remove(p.state().cardId(), p);
+        userPending.unclaimed.remove(p.state().cardId(), p);
+        if (userPending.isEmpty()) {
+            pending.remove(p.userId());
+        }
+        pendingLock.notifyAll();
+    }
+
+    /**
+     * Move up to {@code limit} of the user's unclaimed states to in-flight. Caller holds {@link #pendingLock}.
+     */
+    private List<Pending> claim(UserPending userPending, int limit) {
+        List<Pending> claimed = new ArrayList<>();
+        Iterator<Pending> it = userPending.unclaimed.values().iterator();
+        while (it.hasNext() && claimed.size() < limit) {
+            Pending p = it.next();
+            if (userPending.inFlightCards.add(p.state().cardId())) {
+                it.remove();
+                claimed.add(p);
+            }
+        }
+        return claimed;
+    }
+
+    private void release(List<Pending> claimed, boolean committed, boolean byProjector) {
+        synchronized (pendingLock) {
+            for (Pending p : claimed) {
+                UserPending userPending = pending.get(p.userId());
+                if (userPending == null) {
+                    continue;
+                }
+                userPending.inFlightCards.remove(p.state().cardId());
+                if (byProjector) {
+                    userPending.projectorInFlight--;
+                }
+                if (committed) {
+                    userPending.latest.remove(p.state().cardId(), p);
+                } else if (!userPending.unclaimed.containsKey(p.state().cardId())) {
+                    if (p.attempts() + 1 < MAX_PROJECTION_ATTEMPTS) {
+                        userPending.unclaimed.put(p.state().cardId(), p.retried());
+                        userPending.latest.replace(p.state().cardId(), p, p.retried());
+                        dirtyUsers.offer(p.userId());
+                    } else {
+                        log.error("Giving up projecting review of card {} for user {}; it remains in the review log",
+                                p.state().cardId(), p.userId());
+                        userPending.latest.remove(p.state().cardId(), p);
+                    }
+                }
+                if (userPending.isEmpty()) {
+                    pending.remove(p.userId());
+                }
+            }
+            pendingLock.notifyAll();
+        }
+    }
+
+    /**
+     * Upsert the claimed states into {@code user_card_srs} and adjust the deck counters to match. Runs
+     * inside a transaction. Each row is written with one conditional upsert against the version it was
+     * read at; if another writer got there first the row is re-read, the review applied again on top of
+     * what that writer left, and the write retried.
+     */
+    private void project(List<Pending> claimed) {
+        Map<Long, List<Pending>> byUser = new LinkedHashMap<>();
+        claimed.forEach(p -> byUser.computeIfAbsent(p.userId(), id -> new ArrayList<>()).add(p));
+
+        for (Map.Entry<Long, List<Pending>> userEntry : byUser.entrySet()) {
+            long userId = userEntry.getKey();
+            List<Long> cardIds = userEntry.getValue().stream().map(p -> p.state().cardId()).toList();
+
+            Map<Long, VersionedSrsState> stored = new HashMap<>(userCardSrsDAO.findVersionedStates(userId, cardIds));
+            Map<Long, Card> newCards = new HashMap<>();
+            List<Long> missing = cardIds.stream().filter(id -> !stored.containsKey(id)).toList();
+            cardDAO.findAllByIdWithDeck(missing).forEach(c -> newCards.put(c.getId(), c));
+
+            for (Pending p : userEntry.getValue()) {
+                SrsCardState state = p.state();
+                for (int attempt = 1; ; attempt++) {
+                    VersionedSrsState before = stored.get(state.cardId());
+                    Long deckId;
+                    if (before == null) {
+                        Card card = newCards.get(state.cardId());
+                        if (card == null) {
+                            // Card was deleted after the review was logged
+                            break;
+                        }
+                        deckId = card.getDeck().getId();
+                    } else if (before.state().lastReviewedAt() != null
+                            && !state.lastReviewedAt().isAfter(before.state().lastReviewedAt())) {
+                        // The row already reflects this review or a later one
+                        break;
+                    } else {
+                        deckId = before.state().deckId();
+                    }
+
+                    if (userCardSrsDAO.upsertState(userId, state, before == null ? null : before.version(),
+                            before == null ? p.newId() : null)) {
+                        stored.put(state.cardId(),
+                                new VersionedSrsState(state, before == null ? 0 : before.version() + 1));
+                        deckSrsCounterService.reviewed(userId, deckId,
+                                before == null ? null : before.state().nextReviewAt(), state.nextReviewAt());
+                        break;
+                    }
+                    if (attempt == MAX_UPSERT_ATTEMPTS) {
+                        throw new OptimisticLockingFailureException(
+                                "user_card_srs row of card " + state.cardId() + " for user " + userId
+                                        + " kept changing while being written");
+                    }
+                    VersionedSrsState current = userCardSrsDAO.findVersionedStates(userId, List.of(state.cardId()))
+                            .get(state.cardId());
+                    if (current == null) {
+                        stored.remove(state.cardId());
+                    } else {
+                        stored.put(state.cardId(), current);
+                    }
+                    state = reapply(state, current == null ? null : current.state(), p.quality());
+                }
+            }
+        }
+    }
+
+    /**
+     * The review behind {@code reviewed} applied again, to {@code current} instead of the state it was first
+     * computed from, so the write that beat it is built on rather than overwritten.
+     *
+     * @param current The row as re-read, or {@code null} if it is gone and the review starts a new record
+     */
+    private static SrsCardState reapply(SrsCardState reviewed, SrsCardState current, int quality) {
+        UserCardSrs srs = new UserCardSrs();
+        srs.setIntervalDays(current == null ? 0 : current.intervalDays());
+        srs.setEaseFactor(current == null ? SrsService.DEFAULT_EASE_FACTOR : current.easeFactor());
+        srs.setRepetitions(current == null ? 0 : current.repetitions());
+        SrsService.applyReview(srs, quality, reviewed.lastReviewedAt());
+        return new SrsCardState(reviewed.cardId(), reviewed.deckId(), srs.getNextReviewAt(),
+                srs.getIntervalDays(), srs.getEaseFactor(), srs.getRepetitions(), srs.getLastReviewedAt());
+    }
+
+    private void runProjector() {
+        while (running) {
+            try {
+                Long first = dirtyUsers.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Let a burst of reviews accumulate so they share one transaction
+                Thread.sleep(linger);
+                Set<Long> users = new LinkedHashSet<>();
+                users.add(first);
+                List<Long> more = new ArrayList<>();
+                dirtyUsers.drainTo(more);
+                users.addAll(more);
+                projectUsers(users);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("SRS projector failed", e);
+            }
+        }
+    }
+
+    private void projectUsers(Set<Long> users) {
+        List<Pending> claimed = new ArrayList<>();
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                // Claimed inside the transaction, so in-flight work always has a connection to finish on
+                synchronized (pendingLock) {
+                    for (Long userId : users) {
+                        UserPending userPending = pending.get(userId);
+                        if (userPending == null || claimed.size() >= maxBatchSize) {
+                            if (userPending != null && !userPending.unclaimed.isEmpty()) {
+                                dirtyUsers.offer(userId);
+                            }
+                            continue;
+                        }
+                        List<Pending> mine = claim(userPending, maxBatchSize - claimed.size());
+                        userPending.projectorInFlight += mine.size();
+                        claimed.addAll(mine);
+                        if (!userPending.unclaimed.isEmpty()) {
+                            dirtyUsers.offer(userId);
+                        }
+                    }
+                }
+                project(claimed);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to project {} SRS states", claimed.size(), e);
+            release(claimed, false, true);
+            return;
+        }
+        release(claimed, true, true);
+    }
+
+    private record Entry(List<ReviewLog> reviews, List<Pending> pending, CompletableFuture<Void> durable) {
+        int space(int bufferSize) {
+            return Math.min(reviews.size(), bufferSize);
+        }
+    }
+
+    // The quality is kept so the review can be applied again if its row changed under it; newId is the id
+    // reserved for the row in case the projection inserts it
+    private record Pending(long userId, SrsCardState state, int quality, Long newId, long seq, int attempts) {
+        Pending retried() {
+            return new Pending(userId, state, quality, newId, seq, attempts + 1);
+        }
+    }
+
+    private static final class UserPending {
+        // Latest logged (possibly not yet durable) state per card that user_card_srs does not reflect yet
+        private final Map<Long, Pending> latest = new HashMap<>();
+        // Durable states waiting to be projected
+        private final Map<Long, Pending> unclaimed = new LinkedHashMap<>();
+        // Cards currently being projected by someone, so two writers never upsert the same row
+        private final Set<Long> inFlightCards = new HashSet<>();
+        private int projectorInFlight;
+
+        boolean isEmpty() {
+            return latest.isEmpty() && unclaimed.isEmpty() && inFlightCards.isEmpty();
+        }
+    }
+}
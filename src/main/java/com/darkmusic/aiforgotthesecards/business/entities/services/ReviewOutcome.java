@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+
+/**
+ * Result of applying one {@link ReviewSubmission}.
+ * {@code state} is the card's SRS state after the item was processed, or null when
+ * the card could not be reviewed at all.
+ */
+public record ReviewOutcome(long cardId, Status status, SrsCardState state) {
+    public enum Status {
+        APPLIED,
+        NOT_FOUND,
+        FORBIDDEN,
+        STALE
+    }
+}
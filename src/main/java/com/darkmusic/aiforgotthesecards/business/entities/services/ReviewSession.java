@@ -0,0 +1,71 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A user's pass through a queue fixed when the session started: just the card ids, in order, and how far
+ * the user has got. Cards are loaded one at a time as the cursor reaches them.
+ */
+public final class ReviewSession {
+    private final String id;
+    private final long userId;
+    private final long[] cardIds;
+    private final AtomicInteger position = new AtomicInteger();
+    // Held while an answer is applied, so one card is never reviewed twice by racing requests
+    private final ReentrantLock answering = new ReentrantLock();
+    private volatile long lastUsedNanos;
+
+    ReviewSession(String id, long userId, long[] cardIds) {
+        this.id = id;
+        this.userId = userId;
+        this.cardIds = cardIds;
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long userId() {
+        return userId;
+    }
+
+    public int size() {
+        return cardIds.length;
+    }
+
+    /**
+     * Index of the current card; equal to {@link #size()} once every card has been answered or skipped.
+     */
+    public int position() {
+        return position.get();
+    }
+
+    public boolean isFinished() {
+        return position.get() >= cardIds.length;
+    }
+
+    long cardIdAt(int index) {
+        return cardIds[index];
+    }
+
+    /**
+     * Move past the card at {@code index} if the cursor is still on it.
+     */
+    void advanceFrom(int index) {
+        position.compareAndSet(index, index + 1);
+    }
+
+    ReentrantLock answering() {
+        return answering;
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    void touch() {
+        lastUsedNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,152 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQueueEntry;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Server-side review sessions: the queue is computed once when a session starts and kept as a cursor over
+ * its card ids, so each step loads a single card instead of rebuilding the queue.
+ *
+ * <p>Sessions live in memory only. At most {@code aiforgot.srs.sessions.max} are kept, least-recently-used
+ * evicted first, and one left idle for {@code aiforgot.srs.sessions.idle-timeout} expires; either way the
+ * client starts a new one. The number held is published as {@code srs.review.sessions}.</p>
+ */
+@Service
+public class ReviewSessionService {
+    private final SrsService srsService;
+    private final CardDAO cardDAO;
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final long idleNanos;
+    private final int maxSessions;
+
+    // Access-ordered, so iteration starts at the least recently used session. Guarded by itself.
+    private final LinkedHashMap<String, ReviewSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ReviewSessionService(SrsService srsService, CardDAO cardDAO, UserCardSrsDAO userCardSrsDAO,
+                                MeterRegistry meterRegistry,
+                                @Value("${aiforgot.srs.sessions.max:10000}") int maxSessions,
+                                @Value("${aiforgot.srs.sessions.idle-timeout:PT2H}") Duration idleTimeout) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("aiforgot.srs.sessions.max must be at least 1");
+        }
+        this.srsService = srsService;
+        this.cardDAO = cardDAO;
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.maxSessions = maxSessions;
+        this.idleNanos = idleTimeout.toNanos();
+        Gauge.builder("srs.review.sessions", sessions, s -> {
+                    synchronized (s) {
+                        return s.size();
+                    }
+                })
+                .description("Review sessions held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a session over {@code queue}, in its order.
+     */
+    public ReviewSession start(User user, List<SrsQueueEntry> queue) {
+        long[] cardIds = new long[queue.size()];
+        for (int i = 0; i < cardIds.length; i++) {
+            cardIds[i] = queue.get(i).card().getId();
+        }
+        ReviewSession session = new ReviewSession(UUID.randomUUID().toString(), user.getId(), cardIds);
+        synchronized (sessions) {
+            sessions.put(session.id(), session);
+            Iterator<ReviewSession> eldest = sessions.values().iterator();
+            while (eldest.hasNext()) {
+                ReviewSession candidate = eldest.next();
+                if (sessions.size() <= maxSessions && !isExpired(candidate)) {
+                    break;
+                }
+                eldest.remove();
+            }
+        }
+        return session;
+    }
+
+    /**
+     * The user's session with this id, unless it never existed, belongs to someone else, or was evicted.
+     */
+    public Optional<ReviewSession> find(User user, String id) {
+        synchronized (sessions) {
+            ReviewSession session = sessions.get(id);
+            if (session == null || session.userId() != user.getId()) {
+                return Optional.empty();
+            }
+            if (isExpired(session)) {
+                sessions.remove(id);
+                return Optional.empty();
+            }
+            session.touch();
+            return Optional.of(session);
+        }
+    }
+
+    public void end(ReviewSession session) {
+        synchronized (sessions) {
+            sessions.remove(session.id(), session);
+        }
+    }
+
+    /**
+     * The card under the cursor with the user's current SRS record, or empty once the session is finished.
+     * Cards deleted or moved out of the user's decks since the session started are skipped.
+     */
+    public Optional<SrsQueueEntry> current(User user, ReviewSession session) {
+        int index;
+        while ((index = session.position()) < session.size()) {
+            Optional<Card> card = cardDAO.findById(session.cardIdAt(index))
+                    .filter(c -> c.getDeck().getUser().getId().equals(user.getId()));
+            if (card.isPresent()) {
+                return Optional.of(new SrsQueueEntry(card.get(),
+                        userCardSrsDAO.findByUserAndCard(user, card.get()).orElse(null)));
+            }
+            session.advanceFrom(index);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Apply the review of the card under the cursor and move to the next card.
+     *
+     * @throws IllegalStateException if {@code card} is not the current card, or another answer to this
+     *                               session is still being applied
+     */
+    public UserCardSrs answer(User user, ReviewSession session, Card card, int quality) {
+        if (!session.answering().tryLock()) {
+            throw new IllegalStateException("Another answer to this session is in progress");
+        }
+        try {
+            int index = session.position();
+            if (index >= session.size() || session.cardIdAt(index) != card.getId()) {
+                throw new IllegalStateException("Card " + card.getId() + " is not the session's current card");
+            }
+            UserCardSrs srs = srsService.processReview(user, card, quality);
+            session.advanceFrom(index);
+            return srs;
+        } finally {
+            session.answering().unlock();
+        }
+    }
+
+    private boolean isExpired(ReviewSession session) {
+        return System.nanoTime() - session.lastUsedNanos() >= idleNanos;
+    }
+}
@@ -0,0 +1,9 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.time.LocalDateTime;
+
+/**
+ * One review as recorded by a client. {@code reviewedAt} may be null, meaning "now".
+ */
+public record ReviewSubmission(long cardId, int quality, LocalDateTime reviewedAt) {
+}
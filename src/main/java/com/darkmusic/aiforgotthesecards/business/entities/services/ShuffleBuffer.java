@@ -0,0 +1,52 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Randomizes a stream of items while holding at most {@code capacity} of them in memory.
+ * Once the buffer is full, each incoming item evicts a randomly chosen buffered item to the sink.
+ * The result is a windowed shuffle: items can move anywhere within the window, so ordering of the
+ * source still shows through at scales larger than the buffer.
+ *
+ * <p>Not thread-safe.</p>
+ */
+public class ShuffleBuffer<T> {
+    private final int capacity;
+    private final Random random;
+    private final List<T> buffer;
+
+    public ShuffleBuffer(int capacity, Random random) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.random = random;
+        this.buffer = new ArrayList<>(capacity);
+    }
+
+    /**
+     * Add an item, emitting a random buffered item to {@code sink} if the buffer is full.
+     */
+    public void offer(T item, Consumer<? super T> sink) {
+        if (buffer.size() < capacity) {
+            buffer.add(item);
+            return;
+        }
+        int index = random.nextInt(capacity);
+        sink.accept(buffer.get(index));
+        buffer.set(index, item);
+    }
+
+    /**
+     * Emit everything still buffered, in random order.
+     */
+    public void drain(Consumer<? super T> sink) {
+        Collections.shuffle(buffer, random);
+        buffer.forEach(sink);
+        buffer.clear();
+    }
+}
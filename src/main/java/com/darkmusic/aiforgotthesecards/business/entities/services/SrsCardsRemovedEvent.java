@@ -0,0 +1,10 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.List;
+
+/**
+ * Published by {@link DeckSrsCounterService} when a user's SRS records are deleted along with their cards,
+ * so read models drop them once the delete commits.
+ */
+public record SrsCardsRemovedEvent(long userId, List<Long> cardIds) {
+}
@@ -0,0 +1,476 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Optional in-process store of each user's SRS state as primitive columns in direct buffers, so that due
+ * counts, forecasts and due-card selection run as loops over primitives instead of over entities.
+ *
+ * <p>Enabled with {@code aiforgot.srs.column-store.enabled}; when disabled every method must not be called
+ * and callers fall back to the database. Like {@link SrsDueIndex}, a user's columns are loaded from
+ * {@code user_card_srs} on first use, kept current by {@link SrsStateChangedEvent}s, and evicted
+ * least-recently-used first beyond {@code aiforgot.srs.column-store.max-users} users.</p>
+ *
+ * <p>Times are stored as seconds since 1970-01-01T00:00 of the local clock, so a day is always
+ * 86,400 seconds and {@code floorDiv(t, 86400)} is the local epoch day.</p>
+ */
+@Service
+public class SrsColumnStore {
+    private static final Logger log = LoggerFactory.getLogger(SrsColumnStore.class);
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final boolean enabled;
+    private final int maxUsers;
+
+    // Access-ordered, so iteration starts at the least recently used user. Guarded by itself.
+    private final LinkedHashMap<Long, UserColumns> users = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SrsColumnStore(UserCardSrsDAO userCardSrsDAO,
+                          @Value("${aiforgot.srs.column-store.enabled:false}") boolean enabled,
+                          @Value("${aiforgot.srs.column-store.max-users:1000}") int maxUsers) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of reviewed cards due at {@code now}.
+     *
+     * @param deckId Deck to count, or null for all decks
+     */
+    public long dueCount(long userId, Long deckId, LocalDateTime now) {
+        long nowSeconds = toSeconds(now);
+        UserColumns columns = getOrLoad(userId);
+        synchronized (columns) {
+            long count = 0;
+            for (int row = 0; row < columns.size; row++) {
+                if (columns.nextReview.get(row) <= nowSeconds && matches(columns, row, deckId)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Number of cards the user has reviewed at least once.
+     *
+     * @param deckId Deck to count, or null for all decks
+     */
+    public long reviewedCount(long userId, Long deckId) {
+        UserColumns columns = getOrLoad(userId);
+        synchronized (columns) {
+            if (deckId == null) {
+                return columns.size;
+            }
+            long count = 0;
+            for (int row = 0; row < columns.size; row++) {
+                if (columns.deckIds.get(row) == deckId) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Cards coming due on each of {@code days} days from {@code startDate}; see {@link SrsForecast}.
+     *
+     * @param deckId Deck to forecast, or null for all decks
+     */
+    public SrsForecast forecast(long userId, Long deckId, LocalDate startDate, int days) {
+        long startDay = startDate.toEpochDay();
+        long[] counts = new long[days];
+        long overdue = 0;
+        UserColumns columns = getOrLoad(userId);
+        synchronized (columns) {
+            for (int row = 0; row < columns.size; row++) {
+                if (!matches(columns, row, deckId)) {
+                    continue;
+                }
+                long day = Math.floorDiv(columns.nextReview.get(row), SECONDS_PER_DAY) - startDay;
+                if (day < 0) {
+                    overdue++;
+                } else if (day < days) {
+                    counts[(int) day]++;
+                }
+            }
+        }
+        return new SrsForecast(startDate, overdue, Arrays.stream(counts).boxed().toList());
+    }
+
+    /**
+     * Ids of at most {@code limit} cards due at {@code now}, most overdue first (ties by card id).
+     * Selection keeps a bounded heap, so it is a single pass over the columns whatever the limit.
+     *
+     * @param deckIds Decks to draw from, or null for all decks
+     */
+    public long[] dueCardIds(long userId, Collection<Long> deckIds, LocalDateTime now, int limit) {
+        return dueCardIds(userId, deckIds, now, limit, SrsQueueOrder.OVERDUE, 0L);
+    }
+
+    /**
+     * Ids of at most {@code limit} cards due at {@code now}, in {@code order} (ties by card id).
+     *
+     * @param deckIds Decks to draw from, or null for all decks
+     * @param seed Seed for {@link SrsQueueOrder#RANDOM}
+     */
+    public long[] dueCardIds(long userId, Collection<Long> deckIds, LocalDateTime now, int limit,
+                             SrsQueueOrder order, long seed) {
+        if (limit <= 0) {
+            return new long[0];
+        }
+        long nowSeconds = toSeconds(now);
+        long[] decks = deckIds == null ? null : deckIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        UserColumns columns = getOrLoad(userId);
+
+        // Max-heap on (key, cardId): the root is the last card kept so far
+        double[] heapKey = new double[Math.min(limit, 1024)];
+        long[] heapCard = new long[heapKey.length];
+        int heapSize = 0;
+        synchronized (columns) {
+            for (int row = 0; row < columns.size; row++) {
+                long due = columns.nextReview.get(row);
+                if (due > nowSeconds) {
+                    continue;
+                }
+                if (decks != null && Arrays.binarySearch(decks, columns.deckIds.get(row)) < 0) {
+                    continue;
+                }
+                long card = columns.cardIds.get(row);
+                double key = order.sortKey(card, nowSeconds - due, columns.intervals.get(row), columns.eases.get(row), seed);
+                if (heapSize < limit) {
+                    if (heapSize == heapKey.length) {
+                        int grown = (int) Math.min(limit, heapKey.length * 2L);
+                        heapKey = Arrays.copyOf(heapKey, grown);
+                        heapCard = Arrays.copyOf(heapCard, grown);
+                    }
+                    siftUp(heapKey, heapCard, heapSize++, key, card);
+                } else if (before(key, card, heapKey[0], heapCard[0])) {
+                    siftDown(heapKey, heapCard, heapSize, key, card);
+                }
+            }
+        }
+
+        // Popping the max-heap yields the kept cards from last to first
+        long[] result = new long[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heapCard[0];
+            heapSize--;
+            if (heapSize > 0) {
+                siftDown(heapKey, heapCard, heapSize, heapKey[heapSize], heapCard[heapSize]);
+            }
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStateChanged(SrsStateChangedEvent event) {
+        UserColumns columns = loadedColumns(event.userId());
+        if (columns != null) {
+            synchronized (columns) {
+                if (columns.loaded) {
+                    columns.put(event.state());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop a single card, e.g. when it is deleted.
+     */
+    public void remove(long userId, long cardId) {
+        UserColumns columns = loadedColumns(userId);
+        if (columns != null) {
+            synchronized (columns) {
+                columns.remove(cardId);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsRemoved(SrsCardsRemovedEvent event) {
+        event.cardIds().forEach(cardId -> remove(event.userId(), cardId));
+    }
+
+    /**
+     * Record that a card moved to another deck.
+     */
+    public void moveCard(long userId, long cardId, long deckId) {
+        UserColumns columns = loadedColumns(userId);
+        if (columns != null) {
+            synchronized (columns) {
+                int row = columns.find(cardId);
+                if (row >= 0) {
+                    columns.deckIds.put(row, deckId);
+                }
+            }
+        }
+    }
+
+    static long toSeconds(LocalDateTime at) {
+        return at.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static boolean matches(UserColumns columns, int row, Long deckId) {
+        return deckId == null || columns.deckIds.get(row) == deckId;
+    }
+
+    private static boolean before(double keyA, long cardA, double keyB, long cardB) {
+        return keyA < keyB || (keyA == keyB && cardA < cardB);
+    }
+
+    private static void siftUp(double[] heapKey, long[] heapCard, int index, double key, long card) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(heapKey[parent], heapCard[parent], key, card)) {
+                break;
+            }
+            heapKey[index] = heapKey[parent];
+            heapCard[index] = heapCard[parent];
+            index = parent;
+        }
+        heapKey[index] = key;
+        heapCard[index] = card;
+    }
+
+    private static void siftDown(double[] heapKey, long[] heapCard, int size, double key, long card) {
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heapKey[child], heapCard[child], heapKey[child + 1], heapCard[child + 1])) {
+                child++;
+            }
+            if (!before(key, card, heapKey[child], heapCard[child])) {
+                break;
+            }
+            heapKey[index] = heapKey[child];
+            heapCard[index] = heapCard[child];
+            index = child;
+        }
+        heapKey[index] = key;
+        heapCard[index] = card;
+    }
+
+    private UserColumns loadedColumns(long userId) {
+        synchronized (users) {
+            return users.get(userId);
+        }
+    }
+
+    private UserColumns getOrLoad(long userId) {
+        UserColumns columns;
+        synchronized (users) {
+            columns = users.computeIfAbsent(userId, id -> new UserColumns());
+            Iterator<Map.Entry<Long, UserColumns>> eldest = users.entrySet().iterator();
+            while (users.size() > maxUsers && eldest.hasNext()) {
+                if (eldest.next().getValue() != columns) {
+                    eldest.remove();
+                }
+            }
+        }
+
+        // Registered before loading, so updates committed while the query runs wait on the
+        // monitor and are applied on top of the loaded state.
+        synchronized (columns) {
+            if (!columns.loaded) {
+                try {
+                    for (SrsCardState state : userCardSrsDAO.findStatesByUser(userId)) {
+                        columns.put(state);
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (users) {
+                        users.remove(userId, columns);
+                    }
+                    throw e;
+                }
+                columns.loaded = true;
+                log.debug("Loaded SRS columns for user {} ({} cards)", userId, columns.size);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * One user's cards, one row per card. Rows are kept dense: removing a row moves the last row into its
+     * place. {@code slotKeys}/{@code slotRows} form an open-addressing map from card id to row.
+     */
+    private static final class UserColumns {
+        private static final int INITIAL_CAPACITY = 64;
+        private static final long EMPTY = 0L;
+        private static final long DELETED = -1L;
+
+        private boolean loaded;
+        private int size;
+        private int capacity;
+        private LongBuffer cardIds;
+        private LongBuffer deckIds;
+        private LongBuffer nextReview;
+        private IntBuffer intervals;
+        private FloatBuffer eases;
+        private ShortBuffer repetitions;
+
+        private long[] slotKeys = new long[INITIAL_CAPACITY * 2];
+        private int[] slotRows = new int[INITIAL_CAPACITY * 2];
+        private int slotsUsed;
+
+        UserColumns() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        void put(SrsCardState state) {
+            int row = find(state.cardId());
+            if (row < 0) {
+                if (size == capacity) {
+                    allocate(capacity * 2);
+                }
+                row = size++;
+                insertSlot(state.cardId(), row);
+            }
+            cardIds.put(row, state.cardId());
+            deckIds.put(row, state.deckId());
+            nextReview.put(row, toSeconds(state.nextReviewAt()));
+            intervals.put(row, state.intervalDays());
+            eases.put(row, state.easeFactor());
+            repetitions.put(row, (short) Math.min(Short.MAX_VALUE, state.repetitions()));
+        }
+
+        void remove(long cardId) {
+            int slot = findSlot(cardId);
+            if (slot < 0) {
+                return;
+            }
+            int row = slotRows[slot];
+            slotKeys[slot] = DELETED;
+            int last = --size;
+            if (row != last) {
+                long moved = cardIds.get(last);
+                cardIds.put(row, moved);
+                deckIds.put(row, deckIds.get(last));
+                nextReview.put(row, nextReview.get(last));
+                intervals.put(row, intervals.get(last));
+                eases.put(row, eases.get(last));
+                repetitions.put(row, repetitions.get(last));
+                slotRows[findSlot(moved)] = row;
+            }
+        }
+
+        int find(long cardId) {
+            int slot = findSlot(cardId);
+            return slot < 0 ? -1 : slotRows[slot];
+        }
+
+        private int findSlot(long cardId) {
+            int mask = slotKeys.length - 1;
+            for (int slot = mix(cardId) & mask; ; slot = (slot + 1) & mask) {
+                long key = slotKeys[slot];
+                if (key == cardId) {
+                    return slot;
+                }
+                if (key == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private void insertSlot(long cardId, int row) {
+            // Keep at most half the slots in use, counting deleted ones, so probes stay short and terminate
+            if ((slotsUsed + 1) * 2 > slotKeys.length) {
+                rehash(size * 4 > slotKeys.length ? slotKeys.length * 2 : slotKeys.length);
+            }
+            int mask = slotKeys.length - 1;
+            int slot = mix(cardId) & mask;
+            while (slotKeys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = cardId;
+            slotRows[slot] = row;
+            slotsUsed++;
+        }
+
+        private void rehash(int slots) {
+            slotKeys = new long[slots];
+            slotRows = new int[slots];
+            slotsUsed = 0;
+            int mask = slots - 1;
+            // The row being inserted is already counted in size but has no slot yet
+            for (int row = 0; row < size - 1; row++) {
+                long cardId = cardIds.get(row);
+                int slot = mix(cardId) & mask;
+                while (slotKeys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slotKeys[slot] = cardId;
+                slotRows[slot] = row;
+                slotsUsed++;
+            }
+        }
+
+        private void allocate(int newCapacity) {
+            LongBuffer newCardIds = longs(newCapacity);
+            LongBuffer newDeckIds = longs(newCapacity);
+            LongBuffer newNextReview = longs(newCapacity);
+            IntBuffer newIntervals = direct(newCapacity, Integer.BYTES).asIntBuffer();
+            FloatBuffer newEases = direct(newCapacity, Float.BYTES).asFloatBuffer();
+            ShortBuffer newRepetitions = direct(newCapacity, Short.BYTES).asShortBuffer();
+            if (cardIds != null) {
+                newCardIds.put(0, cardIds, 0, size);
+                newDeckIds.put(0, deckIds, 0, size);
+                newNextReview.put(0, nextReview, 0, size);
+                newIntervals.put(0, intervals, 0, size);
+                newEases.put(0, eases, 0, size);
+                newRepetitions.put(0, repetitions, 0, size);
+            }
+            cardIds = newCardIds;
+            deckIds = newDeckIds;
+            nextReview = newNextReview;
+            intervals = newIntervals;
+            eases = newEases;
+            repetitions = newRepetitions;
+            capacity = newCapacity;
+        }
+
+        private static LongBuffer longs(int capacity) {
+            return direct(capacity, Long.BYTES).asLongBuffer();
+        }
+
+        private static ByteBuffer direct(int capacity, int width) {
+            return ByteBuffer.allocateDirect(capacity * width).order(ByteOrder.nativeOrder());
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
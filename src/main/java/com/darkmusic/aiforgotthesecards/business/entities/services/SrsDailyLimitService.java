@@ -0,0 +1,294 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.ReviewLogDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsDailyCounts;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQueueEntry;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds today's review queue within the user's and decks' daily limits.
+ *
+ * <p>Limits count reviews logged since the start of the day in {@code review_log}: a card's first review
+ * counts against the new-card limit, any later review against the review limit. The remaining allowance
+ * is passed to the queue queries as row limits, so no more cards are read than are returned, except that
+ * decks with limits of their own are each read up to the allowance and the best cards taken across them.</p>
+ *
+ * <p>When due cards are wanted in an order the database cannot index ({@link SrsQueueOrder#RETRIEVABILITY},
+ * {@link SrsQueueOrder#RANDOM}), the due rows are streamed as scalars through a {@link TopK} heap holding
+ * only the allowance, and just the selected cards are then loaded.</p>
+ */
+@Service
+public class SrsDailyLimitService {
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final ReviewLogDAO reviewLogDAO;
+    private final DeckDAO deckDAO;
+    private final SrsColumnStore srsColumnStore;
+    private final int defaultNewCardsPerDay;
+    private final int defaultReviewsPerDay;
+
+    /** Rows fetched per round trip when streaming due cards for top-K selection. */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    public SrsDailyLimitService(UserCardSrsDAO userCardSrsDAO, ReviewLogDAO reviewLogDAO, DeckDAO deckDAO,
+                                SrsColumnStore srsColumnStore,
+                                @Value("${aiforgot.srs.daily-limits.new-cards:20}") int defaultNewCardsPerDay,
+                                @Value("${aiforgot.srs.daily-limits.reviews:200}") int defaultReviewsPerDay) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.reviewLogDAO = reviewLogDAO;
+        this.deckDAO = deckDAO;
+        this.srsColumnStore = srsColumnStore;
+        this.defaultNewCardsPerDay = defaultNewCardsPerDay;
+        this.defaultReviewsPerDay = defaultReviewsPerDay;
+    }
+
+    /**
+     * Due cards (most overdue first) followed by a sample of new cards, as many as today's limits still allow.
+     *
+     * @param deckId Deck to review, or null for all of the user's decks
+     */
+    @Transactional
+    public List<SrsQueueEntry> queue(User user, Long deckId, LocalDateTime now) {
+        return queue(user, deckId, now, SrsQueueOrder.OVERDUE, 0L);
+    }
+
+    /**
+     * Today's queue with due cards picked and ordered by {@code order}. New cards follow the due cards,
+     * except with {@link SrsQueueOrder#RANDOM}, where the whole queue is in the seeded order.
+     *
+     * @param deckId Deck to review, or null for all of the user's decks
+     * @param seed Seed for {@link SrsQueueOrder#RANDOM}
+     */
+    @Transactional
+    public List<SrsQueueEntry> queue(User user, Long deckId, LocalDateTime now, SrsQueueOrder order, long seed) {
+        LocalDate today = now.toLocalDate();
+        Allowance allowance = allowance(user, today);
+        int newLeft = allowance.newLeft();
+        int reviewsLeft = allowance.reviewsLeft();
+
+        // Decks with their own limits are queried one by one; all others share a single query
+        List<Deck> limitedDecks = new ArrayList<>();
+        List<Long> otherDeckIds = new ArrayList<>();
+        for (Deck deck : deckDAO.findByUser(user)) {
+            if (deckId != null && !deckId.equals(deck.getId())) {
+                continue;
+            }
+            if (deck.getNewCardsPerDay() != null || deck.getReviewsPerDay() != null) {
+                limitedDecks.add(deck);
+            } else {
+                otherDeckIds.add(deck.getId());
+            }
+        }
+
+        // Every slice (the decks without limits of their own, then each deck with them) is read up to the
+        // user's whole allowance or the deck's, whichever is less, and the user's allowance is applied to all
+        // slices together; no slice is served from what an earlier one left over
+        long sampleSeed = Objects.hash(user.getId(), today);
+        List<SrsQueueEntry> due = new ArrayList<>();
+        List<SrsQueueEntry> fresh = new ArrayList<>();
+        if (!otherDeckIds.isEmpty()) {
+            // Skip the id list when it covers every deck the user has
+            List<Long> deckIds = deckId == null && limitedDecks.isEmpty() ? null : otherDeckIds;
+            due.addAll(findDue(user, deckIds, now, reviewsLeft, order, seed));
+            fresh.addAll(userCardSrsDAO.findNewSample(user, deckIds, sampleSeed, newLeft));
+        }
+        for (Deck deck : limitedDecks) {
+            SrsDailyCounts done = allowance.doneIn(deck.getId());
+            int deckReviews = Math.min(reviewsLeft,
+                    remaining(limitOr(deck.getReviewsPerDay(), Integer.MAX_VALUE), done.reviews()));
+            int deckNew = Math.min(newLeft,
+                    remaining(limitOr(deck.getNewCardsPerDay(), Integer.MAX_VALUE), done.newCards()));
+            due.addAll(findDue(user, List.of(deck.getId()), now, deckReviews, order, seed));
+            fresh.addAll(userCardSrsDAO.findNewSample(user, List.of(deck.getId()), sampleSeed, deckNew));
+        }
+
+        if (!limitedDecks.isEmpty()) {
+            // Each slice is in order; take the best across slices, up to the user's allowance
+            due.sort(Comparator.comparingDouble((SrsQueueEntry e) -> sortKey(e, now, order, seed))
+                    .thenComparing(e -> e.card().getId()));
+            fresh.sort(Comparator.comparingDouble((SrsQueueEntry e) -> SrsQueueOrder.randomKey(e.card().getId(), sampleSeed))
+                    .thenComparing(e -> e.card().getId()));
+            due = new ArrayList<>(due.subList(0, Math.min(due.size(), reviewsLeft)));
+            fresh = fresh.subList(0, Math.min(fresh.size(), newLeft));
+        }
+        due.addAll(fresh);
+        if (order == SrsQueueOrder.RANDOM) {
+            due.sort(Comparator.comparingDouble((SrsQueueEntry e) -> SrsQueueOrder.randomKey(e.card().getId(), seed))
+                    .thenComparing(e -> e.card().getId()));
+        }
+        return due;
+    }
+
+    /**
+     * Up to {@code limit} cards from several decks at once, interleaved rather than one deck after another:
+     * due cards first, then new cards, each merged from per-deck cursors by {@link WeightedMerge}. Within a
+     * deck due cards come most overdue first and new cards in creation order. A deck with weight 2 supplies
+     * twice as many cards as a deck with weight 1 until it runs out or reaches its own daily limit, and the
+     * user's daily limits cap the total. Decks are read a page at a time, so only about {@code limit} cards
+     * are loaded however many decks there are.
+     *
+     * @param deckIds Decks to study, or null for all of the user's decks
+     * @param weights Weight per deck id; decks not listed weigh 1
+     */
+    @Transactional
+    public List<SrsQueueEntry> interleavedQueue(User user, Collection<Long> deckIds, Map<Long, Double> weights,
+                                                int limit, LocalDateTime now) {
+        Allowance allowance = allowance(user, now.toLocalDate());
+        WeightedMerge<SrsQueueEntry> due = new WeightedMerge<>();
+        WeightedMerge<SrsQueueEntry> fresh = new WeightedMerge<>();
+        for (Deck deck : deckDAO.findByUser(user)) {
+            if (deckIds != null && !deckIds.contains(deck.getId())) {
+                continue;
+            }
+            SrsDailyCounts done = allowance.doneIn(deck.getId());
+            double weight = weights.getOrDefault(deck.getId(), 1.0);
+            due.add(new DueCursor(user, deck.getId(), now), weight,
+                    remaining(limitOr(deck.getReviewsPerDay(), Integer.MAX_VALUE), done.reviews()));
+            fresh.add(new NewCursor(user, deck.getId()), weight,
+                    remaining(limitOr(deck.getNewCardsPerDay(), Integer.MAX_VALUE), done.newCards()));
+        }
+
+        List<SrsQueueEntry> queue = new ArrayList<>(due.take(Math.min(limit, allowance.reviewsLeft())));
+        queue.addAll(fresh.take(Math.min(limit - queue.size(), allowance.newLeft())));
+        return queue;
+    }
+
+    /**
+     * How many new cards the user takes on per day, before counting what was already studied today.
+     */
+    public int newCardsPerDay(User user) {
+        return limitOr(user.getNewCardsPerDay(), defaultNewCardsPerDay);
+    }
+
+    /**
+     * Reviews already logged today and what is left of the user's daily limits.
+     */
+    private Allowance allowance(User user, LocalDate today) {
+        Map<Long, SrsDailyCounts> doneByDeck = new HashMap<>();
+        long newDone = 0;
+        long reviewsDone = 0;
+        for (SrsDailyCounts counts : reviewLogDAO.countByDeckSince(user.getId(), today.atStartOfDay())) {
+            doneByDeck.put(counts.deckId(), counts);
+            newDone += counts.newCards();
+            reviewsDone += counts.reviews();
+        }
+        return new Allowance(doneByDeck,
+                remaining(limitOr(user.getNewCardsPerDay(), defaultNewCardsPerDay), newDone),
+                remaining(limitOr(user.getReviewsPerDay(), defaultReviewsPerDay), reviewsDone));
+    }
+
+    /**
+     * With the column store enabled the due cards are picked in memory and only those rows are read.
+     */
+    private List<SrsQueueEntry> findDue(User user, List<Long> deckIds, LocalDateTime now, int limit,
+                                        SrsQueueOrder order, long seed) {
+        if (srsColumnStore.isEnabled()) {
+            long[] cardIds = srsColumnStore.dueCardIds(user.getId(), deckIds, now, limit, order, seed);
+            return userCardSrsDAO.findEntriesByCardIds(user, Arrays.stream(cardIds).boxed().toList());
+        }
+        if (order == SrsQueueOrder.OVERDUE) {
+            // Served by the (user_id, next_review_at) index
+            return userCardSrsDAO.findDue(user, deckIds, now, limit);
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        TopK<Keyed> selected = new TopK<>(limit, Comparator.comparingDouble(Keyed::key).thenComparingLong(Keyed::cardId));
+        userCardSrsDAO.streamDueStates(user.getId(), deckIds, now, STREAM_FETCH_SIZE,
+                state -> selected.offer(new Keyed(state.cardId(), sortKey(state.cardId(), state.nextReviewAt(),
+                        state.intervalDays(), state.easeFactor(), now, order, seed))));
+        return userCardSrsDAO.findEntriesByCardIds(user, selected.drain().stream().map(Keyed::cardId).toList());
+    }
+
+    private static double sortKey(SrsQueueEntry entry, LocalDateTime now, SrsQueueOrder order, long seed) {
+        return sortKey(entry.card().getId(), entry.srs().getNextReviewAt(), entry.srs().getIntervalDays(),
+                entry.srs().getEaseFactor(), now, order, seed);
+    }
+
+    private static double sortKey(long cardId, LocalDateTime nextReviewAt, int intervalDays, float easeFactor,
+                                  LocalDateTime now, SrsQueueOrder order, long seed) {
+        long overdueSeconds = Math.max(0, Duration.between(nextReviewAt, now).getSeconds());
+        return order.sortKey(cardId, overdueSeconds, intervalDays, easeFactor, seed);
+    }
+
+    private record Keyed(long cardId, double key) {
+    }
+
+    private record Allowance(Map<Long, SrsDailyCounts> doneByDeck, int newLeft, int reviewsLeft) {
+        SrsDailyCounts doneIn(long deckId) {
+            return doneByDeck.getOrDefault(deckId, new SrsDailyCounts(deckId, 0, 0));
+        }
+    }
+
+    /** One deck's due cards, most overdue first, read by keyset page. */
+    private final class DueCursor implements WeightedMerge.Cursor<SrsQueueEntry> {
+        private final User user;
+        private final long deckId;
+        private final LocalDateTime now;
+        private LocalDateTime afterNextReviewAt;
+        private Long afterCardId;
+
+        DueCursor(User user, long deckId, LocalDateTime now) {
+            this.user = user;
+            this.deckId = deckId;
+            this.now = now;
+        }
+
+        @Override
+        public List<SrsQueueEntry> fetch(int max) {
+            List<SrsQueueEntry> page = userCardSrsDAO.findDuePage(user, deckId, now, afterNextReviewAt, afterCardId, max);
+            if (!page.isEmpty()) {
+                SrsQueueEntry last = page.get(page.size() - 1);
+                afterNextReviewAt = last.srs().getNextReviewAt();
+                afterCardId = last.card().getId();
+            }
+            return page;
+        }
+    }
+
+    /** One deck's never-reviewed cards in id order, read by keyset page. */
+    private final class NewCursor implements WeightedMerge.Cursor<SrsQueueEntry> {
+        private final User user;
+        private final long deckId;
+        private Long afterCardId;
+
+        NewCursor(User user, long deckId) {
+            this.user = user;
+            this.deckId = deckId;
+        }
+
+        @Override
+        public List<SrsQueueEntry> fetch(int max) {
+            List<SrsQueueEntry> page = userCardSrsDAO.findNewPage(user, deckId, afterCardId, max);
+            if (!page.isEmpty()) {
+                afterCardId = page.get(page.size() - 1).card().getId();
+            }
+            return page;
+        }
+    }
+
+    private static int limitOr(Integer limit, int fallback) {
+        return limit == null ? fallback : limit;
+    }
+
+    private static int remaining(int limit, long done) {
+        return (int) Math.max(0, limit - done);
+    }
+}
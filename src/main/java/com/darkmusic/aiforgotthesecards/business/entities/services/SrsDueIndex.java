@@ -0,0 +1,249 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, per-user index of reviewed cards ordered by {@code nextReviewAt}.
+ *
+ * <p>A user's index is built from {@code user_card_srs} the first time it is needed and kept current
+ * by {@link SrsStateChangedEvent}s, delivered after the review transaction commits. Indexes are evicted
+ * least-recently-used first once more than {@code aiforgot.srs.due-index.max-users} users are indexed
+ * or more than {@code aiforgot.srs.due-index.max-entries} cards are held in total.</p>
+ *
+ * <p>Only cards with an SRS record are indexed; never-reviewed cards are counted in the database.</p>
+ */
+@Service
+public class SrsDueIndex {
+    private static final Logger log = LoggerFactory.getLogger(SrsDueIndex.class);
+
+    private static final Comparator<SrsCardState> DUE_ORDER = Comparator
+            .comparing(SrsCardState::nextReviewAt)
+            .thenComparingLong(SrsCardState::cardId);
+
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final int maxUsers;
+    private final long maxEntries;
+
+    // Access-ordered, so iteration starts at the least recently used user. Guarded by itself.
+    private final LinkedHashMap<Long, UserIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong totalEntries = new AtomicLong();
+
+    public SrsDueIndex(UserCardSrsDAO userCardSrsDAO,
+                       @Value("${aiforgot.srs.due-index.max-users:1000}") int maxUsers,
+                       @Value("${aiforgot.srs.due-index.max-entries:2000000}") long maxEntries) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.maxUsers = maxUsers;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The reviewed card with the earliest {@code nextReviewAt}, if it is due at {@code now}.
+     */
+    public Optional<SrsCardState> nextDue(long userId, LocalDateTime now) {
+        UserIndex index = getOrLoad(userId);
+        synchronized (index) {
+            if (index.byDue.isEmpty()) {
+                return Optional.empty();
+            }
+            SrsCardState first = index.byDue.first();
+            return first.nextReviewAt().isAfter(now) ? Optional.empty() : Optional.of(first);
+        }
+    }
+
+    /**
+     * Number of reviewed cards due at {@code now}.
+     */
+    public long dueCount(long userId, LocalDateTime now) {
+        UserIndex index = getOrLoad(userId);
+        synchronized (index) {
+            return index.dueCount(now);
+        }
+    }
+
+    /**
+     * Number of cards the user has reviewed at least once.
+     */
+    public long reviewedCount(long userId) {
+        UserIndex index = getOrLoad(userId);
+        synchronized (index) {
+            return index.byCard.size();
+        }
+    }
+
+    /**
+     * Drop a single card, e.g. when its SRS record turns out to be gone.
+     */
+    public void remove(long userId, long cardId) {
+        UserIndex index;
+        synchronized (indexes) {
+            index = indexes.get(userId);
+        }
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            if (index.loaded && index.remove(cardId)) {
+                totalEntries.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Forget a user's index; it is rebuilt on next access.
+     */
+    public void evict(long userId) {
+        UserIndex removed;
+        synchronized (indexes) {
+            removed = indexes.remove(userId);
+        }
+        if (removed != null) {
+            synchronized (removed) {
+                totalEntries.addAndGet(-removed.byCard.size());
+                removed.loaded = false;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsRemoved(SrsCardsRemovedEvent event) {
+        event.cardIds().forEach(cardId -> remove(event.userId(), cardId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStateChanged(SrsStateChangedEvent event) {
+        UserIndex index;
+        synchronized (indexes) {
+            index = indexes.get(event.userId());
+        }
+        if (index == null) {
+            // Not indexed yet; the state will be read from the database when the index is built.
+            return;
+        }
+        synchronized (index) {
+            if (index.loaded && index.put(event.state())) {
+                totalEntries.incrementAndGet();
+            }
+        }
+    }
+
+    private UserIndex getOrLoad(long userId) {
+        UserIndex index;
+        synchronized (indexes) {
+            index = indexes.computeIfAbsent(userId, id -> new UserIndex());
+        }
+
+        // Registered before loading, so updates committed while the query runs wait on the
+        // index monitor and are applied on top of the loaded state.
+        synchronized (index) {
+            if (!index.loaded) {
+                try {
+                    for (SrsCardState state : userCardSrsDAO.findStatesByUser(userId)) {
+                        index.put(state);
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (indexes) {
+                        indexes.remove(userId, index);
+                    }
+                    throw e;
+                }
+                index.loaded = true;
+                totalEntries.addAndGet(index.byCard.size());
+                log.debug("Built due index for user {} ({} cards)", userId, index.byCard.size());
+                evictOverflow(index);
+            }
+        }
+        return index;
+    }
+
+    private void evictOverflow(UserIndex keep) {
+        synchronized (indexes) {
+            Iterator<Map.Entry<Long, UserIndex>> eldest = indexes.entrySet().iterator();
+            while (eldest.hasNext() && (indexes.size() > maxUsers || totalEntries.get() > maxEntries)) {
+                UserIndex candidate = eldest.next().getValue();
+                if (candidate == keep) {
+                    continue;
+                }
+                eldest.remove();
+                // Sizes of other users' indexes are read without their monitor; the total is an
+                // eviction heuristic, not an exact figure.
+                totalEntries.addAndGet(-candidate.byCard.size());
+            }
+        }
+    }
+
+    private static final class UserIndex {
+        private final TreeSet<SrsCardState> byDue = new TreeSet<>(DUE_ORDER);
+        private final Map<Long, SrsCardState> byCard = new HashMap<>();
+        private boolean loaded;
+
+        // Every entry with nextReviewAt <= watermark is included in dueCount. Time only moves
+        // forward, so advancing the watermark visits each entry once: amortized O(log n) per query.
+        private LocalDateTime watermark;
+        private long dueCount;
+
+        /**
+         * @return true if the card was not indexed before
+         */
+        boolean put(SrsCardState state) {
+            SrsCardState previous = byCard.put(state.cardId(), state);
+            if (previous != null) {
+                byDue.remove(previous);
+                if (isCounted(previous)) {
+                    dueCount--;
+                }
+            }
+            byDue.add(state);
+            if (isCounted(state)) {
+                dueCount++;
+            }
+            return previous == null;
+        }
+
+        boolean remove(long cardId) {
+            SrsCardState previous = byCard.remove(cardId);
+            if (previous == null) {
+                return false;
+            }
+            byDue.remove(previous);
+            if (isCounted(previous)) {
+                dueCount--;
+            }
+            return true;
+        }
+
+        long dueCount(LocalDateTime now) {
+            if (watermark == null || now.isBefore(watermark)) {
+                // First query, or the clock went backwards: count from scratch.
+                dueCount = byDue.headSet(upperBound(now), true).size();
+            } else if (now.isAfter(watermark)) {
+                dueCount += byDue.subSet(upperBound(watermark), false, upperBound(now), true).size();
+            }
+            watermark = now;
+            return dueCount;
+        }
+
+        private boolean isCounted(SrsCardState state) {
+            return watermark != null && !state.nextReviewAt().isAfter(watermark);
+        }
+
+        private static SrsCardState upperBound(LocalDateTime at) {
+            return new SrsCardState(Long.MAX_VALUE, 0L, at, 0, 0f, 0, null);
+        }
+    }
+}
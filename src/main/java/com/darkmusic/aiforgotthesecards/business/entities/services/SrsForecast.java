@@ -0,0 +1,11 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cards coming due per day, starting at {@code startDate}. {@code dueByDay.get(i)} counts cards due on
+ * {@code startDate + i}; cards due before {@code startDate} are counted in {@code overdueCards} instead.
+ */
+public record SrsForecast(LocalDate startDate, long overdueCards, List<Long> dueByDay) {
+}
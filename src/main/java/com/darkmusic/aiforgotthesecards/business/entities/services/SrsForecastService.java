@@ -0,0 +1,135 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Due forecasts, counted in the database and cached per user for a short time.
+ *
+ * <p>A user's cached forecasts are dropped as soon as one of their reviews commits. Card creation and
+ * deletion do not invalidate them, so those show up once the entry expires after
+ * {@code aiforgot.srs.forecast.cache-ttl}. At most {@code aiforgot.srs.forecast.cache-max-users} users are
+ * cached, least-recently-used evicted first.</p>
+ */
+@Service
+public class SrsForecastService {
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final SrsColumnStore srsColumnStore;
+    private final long ttlNanos;
+    private final int maxUsers;
+
+    // Access-ordered, so iteration starts at the least recently used user. Guarded by itself.
+    private final LinkedHashMap<Long, UserForecasts> forecasts = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SrsForecastService(UserCardSrsDAO userCardSrsDAO, SrsColumnStore srsColumnStore,
+                              @Value("${aiforgot.srs.forecast.cache-ttl:PT30S}") Duration ttl,
+                              @Value("${aiforgot.srs.forecast.cache-max-users:1000}") int maxUsers) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.srsColumnStore = srsColumnStore;
+        this.ttlNanos = ttl.toNanos();
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Cards coming due on each of the {@code days} days starting today.
+     *
+     * @param deckId Deck to forecast, or null for all of the user's decks
+     */
+    public SrsForecast forecast(long userId, Long deckId, int days, LocalDateTime now) {
+        Key key = new Key(deckId, days, now.toLocalDate());
+        UserForecasts user = userForecasts(userId);
+        long generation;
+        synchronized (user) {
+            Cached cached = user.entries.get(key);
+            if (cached != null && System.nanoTime() - cached.computedAt < ttlNanos) {
+                return cached.forecast;
+            }
+            generation = user.generation;
+        }
+
+        long computedAt = System.nanoTime();
+        SrsForecast forecast = compute(userId, deckId, days, now.toLocalDate());
+
+        synchronized (user) {
+            // A review committed while counting; the result may already be stale, so don't keep it
+            if (user.generation == generation) {
+                user.entries.values().removeIf(c -> System.nanoTime() - c.computedAt >= ttlNanos);
+                user.entries.put(key, new Cached(forecast, computedAt));
+            }
+        }
+        return forecast;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStateChanged(SrsStateChangedEvent event) {
+        UserForecasts user;
+        synchronized (forecasts) {
+            user = forecasts.get(event.userId());
+        }
+        if (user != null) {
+            synchronized (user) {
+                user.generation++;
+                user.entries.clear();
+            }
+        }
+    }
+
+    private SrsForecast compute(long userId, Long deckId, int days, LocalDate startDate) {
+        if (srsColumnStore.isEnabled()) {
+            return srsColumnStore.forecast(userId, deckId, startDate, days);
+        }
+        Map<LocalDate, Long> byDay = userCardSrsDAO.countDueByDay(userId, deckId,
+                startDate.plusDays(days).atStartOfDay());
+
+        long overdue = 0;
+        List<Long> dueByDay = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            dueByDay.add(0L);
+        }
+        for (Map.Entry<LocalDate, Long> entry : byDay.entrySet()) {
+            if (entry.getKey().isBefore(startDate)) {
+                overdue += entry.getValue();
+            } else {
+                int day = (int) (entry.getKey().toEpochDay() - startDate.toEpochDay());
+                if (day < days) {
+                    dueByDay.set(day, dueByDay.get(day) + entry.getValue());
+                }
+            }
+        }
+        return new SrsForecast(startDate, overdue, List.copyOf(dueByDay));
+    }
+
+    private UserForecasts userForecasts(long userId) {
+        synchronized (forecasts) {
+            UserForecasts user = forecasts.computeIfAbsent(userId, id -> new UserForecasts());
+            while (forecasts.size() > maxUsers) {
+                var eldest = forecasts.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return user;
+        }
+    }
+
+    private record Key(Long deckId, int days, LocalDate startDate) {
+    }
+
+    private record Cached(SrsForecast forecast, long computedAt) {
+    }
+
+    private static final class UserForecasts {
+        private long generation;
+        private final Map<Key, Cached> entries = new HashMap<>();
+    }
+}
@@ -0,0 +1,56 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.Locale;
+
+/**
+ * How due cards are picked and ordered when today's allowance is smaller than the backlog. Every mode maps
+ * a due card to a sort key; the queue keeps the cards with the lowest keys (ties by card id), so selection
+ * is a bounded top-K pass rather than a sort of every due card.
+ */
+public enum SrsQueueOrder {
+    /** Longest past its due time first. */
+    OVERDUE,
+    /** Lowest estimated chance of recall first; see {@link SrsService#estimatedRetrievability}. */
+    RETRIEVABILITY,
+    /** A pseudo-random order fixed by a seed, so the same seed gives the same queue. */
+    RANDOM;
+
+    /**
+     * @throws IllegalArgumentException for an unknown mode
+     */
+    public static SrsQueueOrder parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown queue order: " + value
+                    + " (expected overdue, retrievability or random)");
+        }
+    }
+
+    /**
+     * Sort key of a due card; lower comes first.
+     *
+     * @param overdueSeconds How long ago the card came due (not negative)
+     * @param seed Only used by {@link #RANDOM}
+     */
+    public double sortKey(long cardId, long overdueSeconds, int intervalDays, float easeFactor, long seed) {
+        return switch (this) {
+            case OVERDUE -> -overdueSeconds;
+            case RETRIEVABILITY -> SrsService.estimatedRetrievability(
+                    Math.max(1, intervalDays) * 86_400L + overdueSeconds, intervalDays, easeFactor);
+            case RANDOM -> randomKey(cardId, seed);
+        };
+    }
+
+    /**
+     * Uniform in [0, 1), a fixed function of the card id and seed.
+     */
+    public static double randomKey(long cardId, long seed) {
+        // SplitMix64 finalizer: consecutive ids land far apart
+        long z = cardId * 0x9E3779B97F4A7C15L + seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+}
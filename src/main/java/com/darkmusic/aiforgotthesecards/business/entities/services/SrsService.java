@@ -1,25 +1,41 @@
 package com.darkmusic.aiforgotthesecards.business.entities.services;
 
 import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
 import com.darkmusic.aiforgotthesecards.business.entities.User;
 import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
-import jakarta.transaction.Transactional;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.VersionedSrsState;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class SrsService {
     private final UserCardSrsDAO userCardSrsDAO;
+    private final CardDAO cardDAO;
+    private final ReviewJournal reviewJournal;
+    private final UserReviewLocks reviewLocks;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Default ease factor for new cards
-    private static final float DEFAULT_EASE_FACTOR = 2.5f;
-    private static final float MIN_EASE_FACTOR = 1.3f;
+    public static final float DEFAULT_EASE_FACTOR = 2.5f;
+    static final float MIN_EASE_FACTOR = 1.3f;
+    // Recall probability SM-2 intervals are expected to end at
+    private static final double TARGET_RETRIEVABILITY = 0.9;
 
-    public SrsService(UserCardSrsDAO userCardSrsDAO) {
+    public SrsService(UserCardSrsDAO userCardSrsDAO, CardDAO cardDAO, ReviewJournal reviewJournal,
+                      UserReviewLocks reviewLocks, ApplicationEventPublisher eventPublisher) {
         this.userCardSrsDAO = userCardSrsDAO;
+        this.cardDAO = cardDAO;
+        this.reviewJournal = reviewJournal;
+        this.reviewLocks = reviewLocks;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -33,27 +49,146 @@ public class SrsService {
      * @param user The user reviewing the card
      * @param card The card being reviewed
      * @param quality The quality of recall (0-5)
-     * @return The updated UserCardSrs record
+     * @return The card's saved SRS record, with its id and version: the review is projected into
+     *         {@code user_card_srs} before this returns rather than left to the background writer
      */
-    @Transactional
     public UserCardSrs processReview(User user, Card card, int quality) {
-        Optional<UserCardSrs> existing = userCardSrsDAO.findByUserAndCard(user, card);
+        record(user, List.of(new ReviewSubmission(card.getId(), quality, null)), Map.of(card.getId(), card));
 
-        UserCardSrs srs;
-        if (existing.isPresent()) {
-            srs = existing.get();
-        } else {
-            // First time reviewing this card
-            srs = new UserCardSrs();
-            srs.setUser(user);
-            srs.setCard(card);
-            srs.setRepetitions(0);
-            srs.setEaseFactor(DEFAULT_EASE_FACTOR);
-            srs.setIntervalDays(0);
+        reviewJournal.awaitProjected(user.getId(), card.getId());
+        UserCardSrs srs = userCardSrsDAO.findByUserAndCard(user, card).orElseThrow();
+        // The given card and user have everything a response serializes loaded; the row's own may not
+        srs.setUser(user);
+        srs.setCard(card);
+        return srs;
+    }
+
+    /**
+     * Apply an ordered batch of reviews for one user.
+     * Cards and existing SRS records are loaded in bulk up front, and all of the batch's log entries
+     * are committed in one transaction before this returns.
+     * Items for missing cards, cards owned by someone else, or reviews no newer than the
+     * card's last recorded review (including a replay of one already applied) are reported and skipped
+     * rather than failing the batch.
+     *
+     * @param user The user who performed the reviews
+     * @param submissions Reviews in the order they happened on the client
+     * @return One outcome per submission, in the same order
+     */
+    public List<ReviewOutcome> processReviews(User user, List<ReviewSubmission> submissions) {
+        Set<Long> cardIds = new HashSet<>();
+        submissions.forEach(s -> cardIds.add(s.cardId()));
+
+        Map<Long, Card> cards = new HashMap<>();
+        cardDAO.findAllByIdWithDeck(cardIds).forEach(c -> cards.put(c.getId(), c));
+        return record(user, submissions, cards);
+    }
+
+    /**
+     * Compute the new SM-2 states from the latest known state of each card (pending reviews first,
+     * then {@code user_card_srs}), append them to the review log, and wait for the log commit.
+     * {@code user_card_srs} itself is updated by {@link ReviewJournal}.
+     */
+    private List<ReviewOutcome> record(User user, List<ReviewSubmission> submissions, Map<Long, Card> cards) {
+        List<ReviewOutcome> outcomes = new ArrayList<>(submissions.size());
+        List<ReviewLog> appended = new ArrayList<>();
+        Map<Long, SrsCardState> touched = new LinkedHashMap<>();
+        CompletableFuture<Void> durable;
+
+        try (UserReviewLocks.Held ignored = reviewLocks.acquire(user.getId())) {
+            List<Long> ownedIds = cards.values().stream()
+                    .filter(c -> c.getDeck().getUser().getId().equals(user.getId()))
+                    .map(Card::getId)
+                    .toList();
+            // Read as plain values rather than entities, so this always sees the row as last written
+            Map<Long, VersionedSrsState> records = userCardSrsDAO.findVersionedStates(user.getId(), ownedIds);
+            Map<Long, SrsCardState> states = new HashMap<>();
+
+            LocalDateTime now = LocalDateTime.now();
+            for (ReviewSubmission submission : submissions) {
+                Card card = cards.get(submission.cardId());
+                if (card == null) {
+                    outcomes.add(new ReviewOutcome(submission.cardId(), ReviewOutcome.Status.NOT_FOUND, null));
+                    continue;
+                }
+                if (!card.getDeck().getUser().getId().equals(user.getId())) {
+                    outcomes.add(new ReviewOutcome(submission.cardId(), ReviewOutcome.Status.FORBIDDEN, null));
+                    continue;
+                }
+
+                // Reviews stamped in the future (client clock skew) are treated as happening now
+                LocalDateTime reviewedAt = submission.reviewedAt() == null || submission.reviewedAt().isAfter(now)
+                        ? now
+                        : submission.reviewedAt();
+                SrsCardState before = states.computeIfAbsent(card.getId(), id -> reviewJournal.pendingState(user.getId(), id)
+                        .orElseGet(() -> records.containsKey(id) ? records.get(id).state() : null));
+                // Not newer than the last review: out of order, or the same review sent again (a client retrying
+                // a batch). The projector skips such states by the same rule.
+                if (before != null && before.lastReviewedAt() != null && !reviewedAt.isAfter(before.lastReviewedAt())) {
+                    outcomes.add(new ReviewOutcome(card.getId(), ReviewOutcome.Status.STALE, before));
+                    continue;
+                }
+
+                UserCardSrs srs = newRecord(user, card);
+                if (before != null) {
+                    srs.setIntervalDays(before.intervalDays());
+                    srs.setEaseFactor(before.easeFactor());
+                    srs.setRepetitions(before.repetitions());
+                }
+                applyReview(srs, submission.quality(), reviewedAt);
+                SrsCardState after = toState(srs);
+
+                appended.add(toLog(user, card, submission.quality(), before, after, now));
+                states.put(card.getId(), after);
+                touched.put(card.getId(), after);
+                outcomes.add(new ReviewOutcome(card.getId(), ReviewOutcome.Status.APPLIED, after));
+            }
+            durable = reviewJournal.append(appended);
+        }
+
+        reviewJournal.awaitDurable(user.getId(), durable);
+        touched.values().forEach(state -> eventPublisher.publishEvent(new SrsStateChangedEvent(user.getId(), state)));
+        return outcomes;
+    }
+
+    private static ReviewLog toLog(User user, Card card, int quality, SrsCardState before, SrsCardState after,
+                                   LocalDateTime recordedAt) {
+        ReviewLog review = new ReviewLog();
+        review.setUserId(user.getId());
+        review.setCardId(card.getId());
+        review.setDeckId(card.getDeck().getId());
+        review.setQuality(quality);
+        review.setReviewedAt(after.lastReviewedAt());
+        review.setRecordedAt(recordedAt);
+        if (before != null) {
+            review.setIntervalBefore(before.intervalDays());
+            review.setEaseBefore(before.easeFactor());
+            review.setRepetitionsBefore(before.repetitions());
         }
+        review.setIntervalAfter(after.intervalDays());
+        review.setEaseAfter(after.easeFactor());
+        review.setRepetitionsAfter(after.repetitions());
+        review.setNextReviewAt(after.nextReviewAt());
+        return review;
+    }
+
+    private static UserCardSrs newRecord(User user, Card card) {
+        // First time reviewing this card
+        UserCardSrs srs = new UserCardSrs();
+        srs.setUser(user);
+        srs.setCard(card);
+        srs.setRepetitions(0);
+        srs.setEaseFactor(DEFAULT_EASE_FACTOR);
+        srs.setIntervalDays(0);
+        return srs;
+    }
 
+    /**
+     * Apply one SM-2 step to {@code srs} as if the review happened at {@code reviewedAt}.
+     */
+    public static void applyReview(UserCardSrs srs, int quality, LocalDateTime reviewedAt) {
         // Update last reviewed timestamp
-        srs.setLastReviewedAt(LocalDateTime.now());
+        srs.setLastReviewedAt(reviewedAt);
 
         // Apply SM-2 algorithm
         if (quality < 3) {
@@ -65,35 +200,63 @@ public class SrsService {
             int repetitions = srs.getRepetitions() + 1;
             srs.setRepetitions(repetitions);
 
-            // Calculate new interval
-            int newInterval;
-            if (repetitions == 1) {
-                newInterval = 1;
-            } else if (repetitions == 2) {
-                newInterval = 6;
-            } else {
-                newInterval = Math.round(srs.getIntervalDays() * srs.getEaseFactor());
-            }
-            srs.setIntervalDays(newInterval);
-
-            // Update ease factor
-            float newEaseFactor = srs.getEaseFactor() + (0.1f - (5 - quality) * (0.08f + (5 - quality) * 0.02f));
-            if (newEaseFactor < MIN_EASE_FACTOR) {
-                newEaseFactor = MIN_EASE_FACTOR;
-            }
-            srs.setEaseFactor(newEaseFactor);
+            srs.setIntervalDays(successfulIntervalDays(repetitions, srs.getIntervalDays(), srs.getEaseFactor()));
+            srs.setEaseFactor(adjustedEaseFactor(srs.getEaseFactor(), quality));
         }
 
         // Set next review date
-        srs.setNextReviewAt(LocalDateTime.now().plusDays(srs.getIntervalDays()));
+        srs.setNextReviewAt(reviewedAt.plusDays(srs.getIntervalDays()));
+    }
+
+    /**
+     * SM-2 interval after a correct response that brought the card to {@code repetitions}.
+     */
+    static int successfulIntervalDays(int repetitions, int intervalDays, float easeFactor) {
+        if (repetitions == 1) {
+            return 1;
+        } else if (repetitions == 2) {
+            return 6;
+        }
+        return Math.round(intervalDays * easeFactor);
+    }
+
+    /**
+     * SM-2 ease factor after a correct response of the given quality (3-5).
+     */
+    static float adjustedEaseFactor(float easeFactor, int quality) {
+        float newEaseFactor = easeFactor + (0.1f - (5 - quality) * (0.08f + (5 - quality) * 0.02f));
+        return Math.max(MIN_EASE_FACTOR, newEaseFactor);
+    }
+
+    /**
+     * Estimated probability of recalling a card {@code elapsedSeconds} after its last review.
+     * SM-2 schedules a card for when recall is expected to drop to about 90%, so recall is modelled as
+     * {@code 0.9^(elapsed / interval)}, decaying faster for cards whose ease has fallen below the default
+     * (cards the user keeps finding hard).
+     */
+    public static double estimatedRetrievability(long elapsedSeconds, int intervalDays, float easeFactor) {
+        double intervals = elapsedSeconds / (Math.max(1, intervalDays) * 86_400.0);
+        double decay = DEFAULT_EASE_FACTOR / Math.max(MIN_EASE_FACTOR, easeFactor);
+        return Math.pow(TARGET_RETRIEVABILITY, intervals * decay);
+    }
 
-        return userCardSrsDAO.save(srs);
+    static SrsCardState toState(UserCardSrs srs) {
+        Card card = srs.getCard();
+        return new SrsCardState(
+                card.getId(),
+                card.getDeck().getId(),
+                srs.getNextReviewAt(),
+                srs.getIntervalDays(),
+                srs.getEaseFactor(),
+                srs.getRepetitions(),
+                srs.getLastReviewedAt());
     }
 
     /**
      * Get the SRS record for a user and card, if it exists.
      */
     public Optional<UserCardSrs> getSrsRecord(User user, Card card) {
+        reviewJournal.awaitProjected(user.getId());
         return userCardSrsDAO.findByUserAndCard(user, card);
     }
 }
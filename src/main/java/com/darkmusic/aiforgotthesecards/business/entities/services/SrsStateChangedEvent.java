@@ -0,0 +1,11 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+
+/**
+ * Published by {@link SrsService} whenever a user's SRS state for a card changes.
+ * Listeners that keep derived read models (indexes, caches) current subscribe to this instead of
+ * being called from the review path directly.
+ */
+public record SrsStateChangedEvent(long userId, SrsCardState state) {
+}
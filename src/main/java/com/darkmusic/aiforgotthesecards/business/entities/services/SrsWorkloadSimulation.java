@@ -0,0 +1,16 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Simulated review load from {@code startDate} on. {@code days.get(i)} spreads the number of reviews on
+ * {@code startDate + i} across the trials; {@code peak} does the same for each trial's busiest day.
+ */
+public record SrsWorkloadSimulation(LocalDate startDate, int trials, int reviewedCards, int newCards,
+                                    List<LoadBand> days, LoadBand peak) {
+
+    /** Percentiles of a load across trials. */
+    public record LoadBand(int p5, int p25, int p50, int p75, int p95) {
+    }
+}
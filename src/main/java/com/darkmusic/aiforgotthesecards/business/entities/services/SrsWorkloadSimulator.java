@@ -0,0 +1,282 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.ReviewLogDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQualityCounts;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo estimate of a user's future review load, for sizing study time ahead of busy periods.
+ *
+ * <p>Each trial replays the user's cards day by day under the SM-2 rules of {@link SrsService}: every card
+ * is reviewed on the day it comes due, with a quality drawn from the user's own review history, and new
+ * cards are taken on at the user's daily new-card limit. Reviews are not capped by the daily review limit,
+ * so the result is the load the schedule asks for, not what the queue would hand out. Qualities are drawn
+ * separately for cards still being learned (no successful repetition yet) and for cards in review. A weak
+ * prior worth {@value #PRIOR_REVIEWS} reviews keeps users with little history from being simulated as
+ * never or always forgetting.</p>
+ *
+ * <p>Trials run in parallel on a dedicated fork-join pool of {@code aiforgot.srs.simulation.parallelism}
+ * threads (all processors by default). A trial keeps its cards in flat arrays and files them in one
+ * bucket per day, so it costs one step per simulated review. Results depend only on the inputs and the seed.</p>
+ */
+@Service
+public class SrsWorkloadSimulator {
+    static final int PRIOR_REVIEWS = 20;
+    private static final double[] LEARNING_PRIOR = {0.05, 0.05, 0.10, 0.20, 0.35, 0.25};
+    private static final double[] REVIEW_PRIOR = {0.02, 0.02, 0.06, 0.20, 0.40, 0.30};
+
+    // Trials one fork-join task runs in sequence, reusing its arrays
+    private static final int TRIALS_PER_TASK = 8;
+
+    private final UserCardSrsDAO userCardSrsDAO;
+    private final ReviewLogDAO reviewLogDAO;
+    private final CardDAO cardDAO;
+    private final SrsDailyLimitService srsDailyLimitService;
+    private final ForkJoinPool pool;
+
+    public SrsWorkloadSimulator(UserCardSrsDAO userCardSrsDAO, ReviewLogDAO reviewLogDAO, CardDAO cardDAO,
+                                SrsDailyLimitService srsDailyLimitService,
+                                @Value("${aiforgot.srs.simulation.parallelism:0}") int parallelism) {
+        this.userCardSrsDAO = userCardSrsDAO;
+        this.reviewLogDAO = reviewLogDAO;
+        this.cardDAO = cardDAO;
+        this.srsDailyLimitService = srsDailyLimitService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Simulate the user's review load for {@code days} days starting {@code today}.
+     */
+    public SrsWorkloadSimulation simulate(User user, int days, int trials, long seed, LocalDate today) {
+        List<SrsCardState> states = userCardSrsDAO.findStatesByUser(user.getId());
+        long newCards = Math.max(0, cardDAO.countByDeckUser(user) - states.size());
+        List<SrsQualityCounts> history = reviewLogDAO.countQualities(user.getId());
+        Model model = new Model(states, newCards, srsDailyLimitService.newCardsPerDay(user), today, days,
+                qualityCdf(history, true), qualityCdf(history, false));
+        return simulate(model, today, days, trials, seed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    SrsWorkloadSimulation simulate(Model model, LocalDate today, int days, int trials, long seed) {
+        int[][] loads = new int[trials][days];
+        pool.invoke(new Trials(model, loads, seed, 0, trials));
+
+        List<SrsWorkloadSimulation.LoadBand> bands = new ArrayList<>(days);
+        int[] column = new int[trials];
+        int[] peaks = new int[trials];
+        for (int day = 0; day < days; day++) {
+            for (int trial = 0; trial < trials; trial++) {
+                column[trial] = loads[trial][day];
+                peaks[trial] = Math.max(peaks[trial], column[trial]);
+            }
+            bands.add(band(column));
+        }
+        return new SrsWorkloadSimulation(today, trials, model.reviewedCards, model.size - model.reviewedCards,
+                List.copyOf(bands), band(peaks));
+    }
+
+    /**
+     * Cumulative distribution of quality 0-5 for learning or review cards: the user's history plus the prior.
+     */
+    static double[] qualityCdf(List<SrsQualityCounts> history, boolean learning) {
+        double[] prior = learning ? LEARNING_PRIOR : REVIEW_PRIOR;
+        double[] weights = new double[6];
+        for (int q = 0; q < 6; q++) {
+            weights[q] = prior[q] * PRIOR_REVIEWS;
+        }
+        for (SrsQualityCounts counts : history) {
+            boolean learningReview = counts.repetitionsBefore() == null || counts.repetitionsBefore() == 0;
+            Integer quality = counts.quality();
+            if (learningReview == learning && quality != null && quality >= 0 && quality <= 5) {
+                weights[quality] += counts.reviews();
+            }
+        }
+        double total = Arrays.stream(weights).sum();
+        double[] cdf = new double[6];
+        double cumulative = 0;
+        for (int q = 0; q < 6; q++) {
+            cumulative += weights[q];
+            cdf[q] = cumulative / total;
+        }
+        cdf[5] = 1.0;
+        return cdf;
+    }
+
+    private static SrsWorkloadSimulation.LoadBand band(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new SrsWorkloadSimulation.LoadBand(percentile(sorted, 5), percentile(sorted, 25),
+                percentile(sorted, 50), percentile(sorted, 75), percentile(sorted, 95));
+    }
+
+    // Nearest rank
+    private static int percentile(int[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Starting point shared by every trial: reviewed cards as they are today, followed by the new cards
+     * that will be taken on within the horizon, each scheduled for the day it is first studied.
+     */
+    static final class Model {
+        final int size;
+        final int reviewedCards;
+        final int[] dueDay;
+        final int[] intervalDays;
+        final float[] easeFactor;
+        final int[] repetitions;
+        final double[] learningCdf;
+        final double[] reviewCdf;
+
+        Model(List<SrsCardState> states, long newCards, int newCardsPerDay, LocalDate today, int days,
+              double[] learningCdf, double[] reviewCdf) {
+            int introduced = (int) Math.min(newCards, (long) Math.max(0, newCardsPerDay) * days);
+            this.reviewedCards = states.size();
+            this.size = reviewedCards + introduced;
+            this.dueDay = new int[size];
+            this.intervalDays = new int[size];
+            this.easeFactor = new float[size];
+            this.repetitions = new int[size];
+            this.learningCdf = learningCdf;
+            this.reviewCdf = reviewCdf;
+
+            for (int i = 0; i < reviewedCards; i++) {
+                SrsCardState state = states.get(i);
+                long due = state.nextReviewAt() == null ? 0
+                        : ChronoUnit.DAYS.between(today, state.nextReviewAt().toLocalDate());
+                // Overdue cards are all reviewed on the first day; the horizon caps the rest
+                dueDay[i] = (int) Math.max(0, Math.min(days, due));
+                intervalDays[i] = state.intervalDays();
+                easeFactor[i] = state.easeFactor();
+                repetitions[i] = state.repetitions();
+            }
+            for (int k = 0; k < introduced; k++) {
+                int i = reviewedCards + k;
+                dueDay[i] = k / newCardsPerDay;
+                easeFactor[i] = SrsService.DEFAULT_EASE_FACTOR;
+            }
+        }
+    }
+
+    private static final class Trials extends RecursiveAction {
+        private final Model model;
+        private final int[][] loads;
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        Trials(Model model, int[][] loads, long seed, int from, int to) {
+            this.model = model;
+            this.loads = loads;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TRIALS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Trials(model, loads, seed, from, mid), new Trials(model, loads, seed, mid, to));
+                return;
+            }
+            Trial trial = new Trial(model, loads.length == 0 ? 0 : loads[0].length);
+            for (int i = from; i < to; i++) {
+                // Seeded per trial, so the result does not depend on how trials were split
+                trial.run(new SplittableRandom(seed + i * 0x9E3779B97F4A7C15L), loads[i]);
+            }
+        }
+    }
+
+    /** One simulated future; its arrays are reset and reused for every trial of a task. */
+    private static final class Trial {
+        private final Model model;
+        private final int[] intervalDays;
+        private final float[] easeFactor;
+        private final int[] repetitions;
+        // Cards due on each day, as singly linked lists threaded through next
+        private final int[] head;
+        private final int[] next;
+
+        Trial(Model model, int days) {
+            this.model = model;
+            this.intervalDays = new int[model.size];
+            this.easeFactor = new float[model.size];
+            this.repetitions = new int[model.size];
+            this.head = new int[days];
+            this.next = new int[model.size];
+        }
+
+        void run(SplittableRandom random, int[] load) {
+            int days = head.length;
+            System.arraycopy(model.intervalDays, 0, intervalDays, 0, model.size);
+            System.arraycopy(model.easeFactor, 0, easeFactor, 0, model.size);
+            System.arraycopy(model.repetitions, 0, repetitions, 0, model.size);
+            Arrays.fill(head, -1);
+            for (int card = 0; card < model.size; card++) {
+                if (model.dueDay[card] < days) {
+                    file(card, model.dueDay[card]);
+                }
+            }
+
+            for (int day = 0; day < days; day++) {
+                int card = head[day];
+                while (card >= 0) {
+                    int following = next[card];
+                    load[day]++;
+                    int quality = sample(repetitions[card] == 0 ? model.learningCdf : model.reviewCdf, random);
+                    if (quality < 3) {
+                        repetitions[card] = 0;
+                        intervalDays[card] = 1;
+                    } else {
+                        repetitions[card]++;
+                        intervalDays[card] = SrsService.successfulIntervalDays(
+                                repetitions[card], intervalDays[card], easeFactor[card]);
+                        easeFactor[card] = SrsService.adjustedEaseFactor(easeFactor[card], quality);
+                    }
+                    int due = day + Math.max(1, intervalDays[card]);
+                    if (due < days) {
+                        file(card, due);
+                    }
+                    card = following;
+                }
+            }
+        }
+
+        private void file(int card, int day) {
+            next[card] = head[day];
+            head[day] = card;
+        }
+
+        // Counts the thresholds passed instead of searching for the first one not passed: the outcome is
+        // random, so a search loop mispredicts its exit on most draws and dominates the cost of a review
+        private static int sample(double[] cdf, SplittableRandom random) {
+            double u = random.nextDouble();
+            return (u >= cdf[0] ? 1 : 0) + (u >= cdf[1] ? 1 : 0) + (u >= cdf[2] ? 1 : 0)
+                    + (u >= cdf[3] ? 1 : 0) + (u >= cdf[4] ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.TagDAO;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Turns tag names into tag ids, creating the tags that do not exist yet, so that saving cards or decks only
+ * touches the tags they reference instead of loading the tag table, which is shared by every user.
+ *
+ * <p>Names match ignoring case and runs of whitespace (see {@link #normalize}). Names missing from the cache
+ * are looked up, and the new ones inserted, with one statement each per {@value #CHUNK_SIZE} names. The insert
+ * skips names that conflict, so callers racing to create the same tag both end up with the one that won. Ids
+ * are cached by normalized name, at most {@code aiforgot.tags.cache-max} of them, least-recently-used evicted
+ * first, and only once the transaction that read or created them has committed.</p>
+ */
+@Service
+public class TagResolutionService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final TagDAO tagDAO;
+    private final int maxEntries;
+
+    // Normalized name to tag id, access-ordered so iteration starts at the least recently used. Guarded by itself.
+    private final LinkedHashMap<String, Long> ids = new LinkedHashMap<>(16, 0.75f, true);
+
+    public TagResolutionService(TagDAO tagDAO, @Value("${aiforgot.tags.cache-max:10000}") int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("aiforgot.tags.cache-max must not be negative");
+        }
+        this.tagDAO = tagDAO;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The key tag names are matched by: trimmed, inner whitespace collapsed to one space, lower case.
+     */
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The id of the tag for each of {@code names}, keyed by normalized name; blank names are skipped. A name
+     * with no tag yet gets one, named as first given here (trimmed, whitespace collapsed).
+     */
+    @Transactional
+    public Map<String, Long> resolve(Collection<String> names) {
+        Map<String, String> wanted = new LinkedHashMap<>();
+        for (String name : names) {
+            String key = normalize(name);
+            if (!key.isEmpty()) {
+                wanted.putIfAbsent(key, name.trim().replaceAll("\\s+", " "));
+            }
+        }
+
+        Map<String, Long> resolved = new HashMap<>();
+        synchronized (ids) {
+            for (String key : wanted.keySet()) {
+                Long id = ids.get(key);
+                if (id != null) {
+                    resolved.put(key, id);
+                }
+            }
+        }
+        if (resolved.size() == wanted.size()) {
+            return resolved;
+        }
+
+        List<String> missing = wanted.entrySet().stream()
+                .filter(entry -> !resolved.containsKey(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        Map<String, Long> found = new HashMap<>();
+        for (List<String> chunk : chunks(missing)) {
+            tagDAO.findOrCreateIds(chunk).forEach((name, id) -> found.put(normalize(name), id));
+        }
+
+        resolved.putAll(found);
+        cacheAfterCommit(found);
+        return resolved;
+    }
+
+    /**
+     * Like {@link #resolve}, as references to the tags that can be put straight into an association.
+     */
+    @Transactional
+    public Map<String, Tag> resolveReferences(Collection<String> names) {
+        Map<String, Tag> tags = new HashMap<>();
+        resolve(names).forEach((key, id) -> tags.put(key, tagDAO.getReference(id)));
+        return tags;
+    }
+
+    private void cacheAfterCommit(Map<String, Long> found) {
+        if (found.isEmpty() || maxEntries == 0) {
+            return;
+        }
+        // A tag created by a transaction that then rolls back must never be handed out
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                synchronized (ids) {
+                    ids.putAll(found);
+                    Iterator<Long> eldest = ids.values().iterator();
+                    while (ids.size() > maxEntries) {
+                        eldest.next();
+                        eldest.remove();
+                    }
+                }
+            }
+        });
+    }
+
+    private static List<List<String>> chunks(List<String> names) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < names.size(); i += CHUNK_SIZE) {
+            chunks.add(names.subList(i, Math.min(i + CHUNK_SIZE, names.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,55 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first {@code k} items of a stream under {@code order} while holding at most {@code k} of them.
+ * Items are kept in a heap whose root is the last item kept so far, so each offer is O(log k) and a
+ * stream of n items is selected in O(n log k) without sorting it.
+ *
+ * <p>Not thread-safe.</p>
+ */
+public class TopK<T> {
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), order.reversed());
+    }
+
+    /**
+     * Add an item; it is kept only if it comes before the last of the items kept so far.
+     */
+    public void offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (k > 0 && order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Remove and return the kept items, first item first.
+     */
+    public List<T> drain() {
+        List<T> items = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            items.add(heap.poll());
+        }
+        return items.reversed();
+    }
+}
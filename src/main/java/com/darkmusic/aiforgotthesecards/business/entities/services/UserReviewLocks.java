@@ -0,0 +1,63 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes review processing per user, so each review is computed from the state the previous one
+ * left behind and reviews reach the log in the order they were applied.
+ *
+ * <p>Users are hashed onto a fixed set of fair locks: reviews of one user queue up first come, first
+ * served, while users on different stripes never wait for each other. Locking is purely in-process, so
+ * it behaves the same on every database and never takes row or table locks. Time spent waiting is
+ * recorded per stripe as {@code srs.review.lock.wait}; a hot stripe shows up as a high wait there.</p>
+ */
+@Component
+public class UserReviewLocks {
+
+    /** Releases the lock; use with try-with-resources. */
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final ReentrantLock[] stripes;
+    private final Timer[] waits;
+
+    public UserReviewLocks(MeterRegistry meterRegistry,
+                           @Value("${aiforgot.srs.review-lock.stripes:64}") int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("aiforgot.srs.review-lock.stripes must be at least 1");
+        }
+        this.stripes = new ReentrantLock[stripeCount];
+        this.waits = new Timer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock(true);
+            waits[i] = Timer.builder("srs.review.lock.wait")
+                    .description("Time spent waiting for a user's review lock")
+                    .tag("stripe", Integer.toString(i))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Block until this thread holds the user's review lock.
+     */
+    public Held acquire(long userId) {
+        int stripe = stripeOf(userId);
+        ReentrantLock lock = stripes[stripe];
+        long start = System.nanoTime();
+        lock.lock();
+        waits[stripe].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return lock::unlock;
+    }
+
+    private int stripeOf(long userId) {
+        return Math.floorMod(Long.hashCode(userId), stripes.length);
+    }
+}
@@ -0,0 +1,113 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Interleaves several ordered sources, each read lazily in batches, so that over any stretch of the output
+ * each source contributes in proportion to its weight, up to its quota.
+ *
+ * <p>This is a k-way merge scheduled by stride: every source has a pass value that advances by
+ * {@code 1 / weight} each time it contributes, and the source with the lowest pass goes next (ties by the
+ * order sources were added). A source that runs dry or reaches its quota drops out and the others share
+ * its turns. Sources are asked for roughly their share of what is still wanted, so taking the first
+ * {@code n} items reads about {@code n} items in total rather than every source in full.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+public class WeightedMerge<T> {
+
+    /**
+     * An ordered source. Each call returns the next items, at most {@code max}; an empty list means the
+     * source is exhausted.
+     */
+    @FunctionalInterface
+    public interface Cursor<T> {
+        List<T> fetch(int max);
+    }
+
+    private final List<Lane<T>> lanes = new ArrayList<>();
+
+    /**
+     * @param weight Relative share of the output; must be positive
+     * @param quota Most items this source may contribute
+     */
+    public void add(Cursor<T> cursor, double weight, int quota) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        if (quota > 0) {
+            lanes.add(new Lane<>(cursor, weight, quota, lanes.size()));
+        }
+    }
+
+    /**
+     * The first {@code n} items of the merge, or fewer if every source runs out first. Call once per merge.
+     */
+    public List<T> take(int n) {
+        List<T> out = new ArrayList<>(Math.max(0, Math.min(n, 1024)));
+        double totalWeight = lanes.stream().mapToDouble(Lane::weight).sum();
+        PriorityQueue<Lane<T>> turns = new PriorityQueue<>(
+                Comparator.<Lane<T>>comparingDouble(lane -> lane.pass).thenComparingInt(Lane::index));
+        for (Lane<T> lane : lanes) {
+            lane.pass = 1 / lane.weight();
+            turns.add(lane);
+        }
+
+        while (out.size() < n && !turns.isEmpty()) {
+            Lane<T> lane = turns.poll();
+            if (lane.buffer.isEmpty()) {
+                int wanted = n - out.size();
+                int share = (int) Math.ceil(wanted * lane.weight() / totalWeight);
+                List<T> batch = lane.cursor().fetch(Math.max(1, Math.min(share, lane.quota() - lane.taken)));
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                lane.buffer.addAll(batch);
+            }
+            out.add(lane.buffer.poll());
+            lane.taken++;
+            lane.pass += 1 / lane.weight();
+            if (lane.taken < lane.quota()) {
+                turns.add(lane);
+            }
+        }
+        return out;
+    }
+
+    private static final class Lane<T> {
+        private final Cursor<T> cursor;
+        private final double weight;
+        private final int quota;
+        private final int index;
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private int taken;
+        private double pass;
+
+        Lane(Cursor<T> cursor, double weight, int quota, int index) {
+            this.cursor = cursor;
+            this.weight = weight;
+            this.quota = quota;
+            this.index = index;
+        }
+
+        Cursor<T> cursor() {
+            return cursor;
+        }
+
+        double weight() {
+            return weight;
+        }
+
+        int quota() {
+            return quota;
+        }
+
+        int index() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.darkmusic.aiforgotthesecards.config;
+
+import org.hibernate.boot.ResourceStreamLocator;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.boot.spi.AdditionalMappingContributions;
+import org.hibernate.boot.spi.AdditionalMappingContributor;
+import org.hibernate.boot.spi.InFlightMetadataCollector;
+import org.hibernate.boot.spi.MetadataBuildingContext;
+
+import java.util.Set;
+
+/**
+ * The SQLite dialect silently skips table-level unique constraints (SQLite cannot add them with ALTER TABLE),
+ * so this recreates the ones the app relies on as unique indexes. Only applies when running on SQLite.
+ * Registered through {@code META-INF/services}.
+ */
+public class SqliteUniqueIndexContributor implements AdditionalMappingContributor {
+
+    private static final Set<String> SQLITE = Set.of("org.hibernate.community.dialect.SQLiteDialect");
+
+    @Override
+    public String getContributorName() {
+        return "sqlite-unique-indexes";
+    }
+
+    @Override
+    public void contribute(AdditionalMappingContributions contributions,
+                           InFlightMetadataCollector metadata,
+                           ResourceStreamLocator resourceStreamLocator,
+                           MetadataBuildingContext buildingContext) {
+        Namespace namespace = metadata.getDatabase().getDefaultNamespace();
+        // Conflict target of the SRS upsert in UserCardSrsDAOImpl
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                namespace,
+                "create unique index if not exists uk_user_card_srs_user_card on user_card_srs (user_id, card_id)",
+                "drop index if exists uk_user_card_srs_user_card",
+                SQLITE));
+        // Conflict target of the tag upsert in TagDAOImpl
+        contributions.contributeAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                namespace,
+                "create unique index if not exists uk_tag_name on tag (name)",
+                "drop index if exists uk_tag_name",
+                SQLITE));
+    }
+}
@@ -60,11 +60,16 @@ public class PortableDumpService {
             TableSpec.of("card", List.of("id")),
             TableSpec.of("card_tag", List.of("card_id", "tag_id")),
             TableSpec.of("user_card_srs", List.of("id")),
+            // Added after format version 1 shipped; older dumps do not have it
+            TableSpec.optional("review_log", List.of("id")),
             TableSpec.of("ai_chat", List.of("id"))
     );
 
     private static final List<TableSpec> TABLES_IN_DELETE_ORDER;
 
+    // Derived from the tables above and rebuilt by the app on demand; never exported, cleared on import.
+    private static final List<String> DERIVED_TABLES = List.of("deck_srs_counters");
+
     static {
         List<TableSpec> reversed = new ArrayList<>(TABLES_IN_INSERT_ORDER);
         java.util.Collections.reverse(reversed);
@@ -133,9 +138,13 @@ public class PortableDumpService {
     ) {
     }
 
-    private record TableSpec(String table, List<String> orderBy) {
+    private record TableSpec(String table, List<String> orderBy, boolean optional) {
         static TableSpec of(String table, List<String> orderBy) {
-            return new TableSpec(table, orderBy);
+            return new TableSpec(table, orderBy, false);
+        }
+
+        static TableSpec optional(String table, List<String> orderBy) {
+            return new TableSpec(table, orderBy, true);
         }
     }
 
@@ -203,6 +212,8 @@ public class PortableDumpService {
                 truncateAll(connection, quote, isPostgres, isSqlite);
             }
 
+            clearDerivedTables(connection, quote);
+
             Manifest manifest = readManifest(zipPath);
             importAllTables(connection, zipPath, quote, manifest);
 
@@ -298,6 +309,21 @@ public class PortableDumpService {
         }
     }
 
+    private void clearDerivedTables(Connection connection, String quote) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (Statement st = connection.createStatement()) {
+            for (String table : DERIVED_TABLES) {
+                String name = meta.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+                try (ResultSet rs = meta.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                }
+                st.execute("DELETE FROM " + q(quote, table));
+            }
+        }
+    }
+
     private void applySqliteImportPragmas(Connection connection) throws SQLException {
         try (Statement st = connection.createStatement()) {
             st.execute("PRAGMA foreign_keys = OFF");
@@ -327,7 +353,14 @@ public class PortableDumpService {
                 TableManifest tm = manifest.tables().stream()
                         .filter(t -> t.table().equals(spec.table))
                         .findFirst()
-                        .orElseThrow(() -> new IllegalStateException("Manifest missing table: " + spec.table));
+                        .orElse(null);
+                if (tm == null) {
+                    if (spec.optional) {
+                        log.info("Dump has no {} table; leaving it empty", spec.table);
+                        continue;
+                    }
+                    throw new IllegalStateException("Manifest missing table: " + spec.table);
+                }
 
                 ZipEntry entry = zipFile.getEntry(tableEntryName(spec.table));
                 if (entry == null) {
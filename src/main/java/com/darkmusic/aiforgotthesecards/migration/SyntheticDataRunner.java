@@ -0,0 +1,85 @@
+package com.darkmusic.aiforgotthesecards.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+@Component
+public class SyntheticDataRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataRunner.class);
+
+    private final Environment environment;
+    private final DataSource dataSource;
+    private final ConfigurableApplicationContext applicationContext;
+
+    public SyntheticDataRunner(Environment environment,
+                               DataSource dataSource,
+                               ConfigurableApplicationContext applicationContext
+    ) {
+        this.environment = environment;
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String command = environment.getProperty("aiforgot.synthetic.command");
+        if (command == null || command.isBlank()) {
+            return;
+        }
+
+        int exitCode = 0;
+
+        try {
+            if (!"generate".equals(command.trim().toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Unknown command: " + command);
+            }
+            SyntheticDataService.Spec spec = readSpec();
+            log.info("Synthetic data generate: {} users x {} decks x {} cards (seed={}, asOf={}, prefix={})",
+                    spec.users(), spec.decksPerUser(), spec.cardsPerDeck(), spec.seed(), spec.asOf(), spec.prefix());
+            SyntheticDataService.Summary summary = new SyntheticDataService(dataSource).generate(spec);
+            log.info("Synthetic data written: {}", summary);
+
+        } catch (Exception e) {
+            log.error("Synthetic data command failed", e);
+            exitCode = 1;
+        }
+
+        final int finalExitCode = exitCode;
+
+        // Only exit when explicitly invoked.
+        SpringApplication.exit(applicationContext, () -> finalExitCode);
+        System.exit(finalExitCode);
+    }
+
+    private SyntheticDataService.Spec readSpec() {
+        String asOf = environment.getProperty("aiforgot.synthetic.asOf");
+        return new SyntheticDataService.Spec(
+                environment.getProperty("aiforgot.synthetic.users", Integer.class, 10),
+                environment.getProperty("aiforgot.synthetic.decksPerUser", Integer.class, 10),
+                environment.getProperty("aiforgot.synthetic.cardsPerDeck", Integer.class, 500),
+                environment.getProperty("aiforgot.synthetic.tags", Integer.class, 200),
+                environment.getProperty("aiforgot.synthetic.historyDays", Integer.class, 365),
+                environment.getProperty("aiforgot.synthetic.studiedFraction", Double.class, 0.7),
+                environment.getProperty("aiforgot.synthetic.seed", Long.class, 42L),
+                asOf == null || asOf.isBlank() ? LocalDate.now().atStartOfDay() : parseAsOf(asOf.trim()),
+                environment.getProperty("aiforgot.synthetic.prefix", "synthetic-"),
+                environment.getProperty("aiforgot.synthetic.password", "synthetic"),
+                environment.getProperty("aiforgot.synthetic.batchSize", Integer.class, 1000));
+    }
+
+    private static LocalDateTime parseAsOf(String raw) {
+        return raw.contains("T") ? LocalDateTime.parse(raw) : LocalDate.parse(raw).atStartOfDay();
+    }
+}
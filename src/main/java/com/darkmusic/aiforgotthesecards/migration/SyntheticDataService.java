@@ -0,0 +1,482 @@
+package com.darkmusic.aiforgotthesecards.migration;
+
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic users, decks, tags, cards and review histories straight through JDBC batches, for
+ * capacity planning, benchmarks and load tests.
+ *
+ * <p>Each studied card's history is simulated review by review with the SM-2 rules of
+ * {@link SrsService#applyReview}: a card is introduced at a random time in the history window and then
+ * reviewed whenever it falls due (often a few hours late, sometimes days late) until {@code asOf}. Every
+ * review is written to {@code review_log} and the final state to {@code user_card_srs}, so intervals,
+ * ease factors and due dates follow the same distribution real use would produce.</p>
+ *
+ * <p>The output depends only on the {@link Spec}: the same spec on an empty database produces the same rows.
+ * Ids are reserved from the same sequences Hibernate allocates from, so the application keeps working on
+ * the generated data. Derived tables such as {@code deck_srs_counters} are left alone; they are rebuilt
+ * on first read.</p>
+ */
+public class SyntheticDataService {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataService.class);
+
+    // Every entity uses @GeneratedValue with Hibernate's default allocation size
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final String[] WORDS = {
+            "memory", "recall", "interval", "review", "concept", "definition", "example", "theorem", "verb",
+            "noun", "capital", "river", "formula", "element", "protocol", "function", "pattern", "history",
+            "language", "grammar", "symbol", "equation", "principle", "method", "reaction", "structure"
+    };
+
+    public record Spec(
+            int users,
+            int decksPerUser,
+            int cardsPerDeck,
+            int tags,
+            int historyDays,
+            double studiedFraction,
+            long seed,
+            LocalDateTime asOf,
+            String prefix,
+            String password,
+            int batchSize
+    ) {
+    }
+
+    public record Summary(long users, long decks, long cards, long tags, long srsRecords, long reviews) {
+    }
+
+    private enum Vendor {
+        POSTGRES, H2, SQLITE
+    }
+
+    private final DataSource dataSource;
+
+    public SyntheticDataService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Summary generate(Spec spec) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData meta = connection.getMetaData();
+            String quote = safeQuote(meta);
+            Vendor vendor = vendorOf(meta.getDatabaseProductName());
+            connection.setAutoCommit(false);
+
+            ensureNoDataset(connection, quote, spec.prefix());
+            Long themeId = firstThemeId(connection);
+            // One hash for every user; hashing millions of passwords would dominate the run
+            String passwordHash = BCrypt.hashpw(spec.password(), BCrypt.gensalt());
+
+            try (Writer writer = new Writer(connection, quote, vendor, spec.batchSize())) {
+                long[] tagIds = new long[spec.tags()];
+                for (int i = 0; i < spec.tags(); i++) {
+                    tagIds[i] = writer.tagIds.next();
+                    writer.tag.statement.setLong(1, tagIds[i]);
+                    writer.tag.statement.setString(2, spec.prefix() + "tag-" + (i + 1));
+                    writer.add(writer.tag);
+                }
+                writer.flush();
+                connection.commit();
+
+                int logEvery = Math.max(1, spec.users() / 20);
+                for (int u = 0; u < spec.users(); u++) {
+                    generateUser(writer, spec, u, tagIds, themeId, passwordHash);
+                    writer.flush();
+                    connection.commit();
+                    if ((u + 1) % logEvery == 0 || u + 1 == spec.users()) {
+                        log.info("Synthetic data: {}/{} users, {} cards, {} reviews",
+                                u + 1, spec.users(), writer.card.written, writer.reviewLog.written);
+                    }
+                }
+                return new Summary(writer.user.written, writer.deck.written, writer.card.written,
+                        writer.tag.written, writer.srs.written, writer.reviewLog.written);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void generateUser(Writer w, Spec spec, int userIndex, long[] tagIds, Long themeId, String passwordHash)
+            throws SQLException {
+        SplittableRandom random = new SplittableRandom(spec.seed() * 1_000_003L + userIndex);
+        // How likely this user is to recall an average card
+        double skill = 0.78 + random.nextDouble() * 0.17;
+
+        long userId = w.userIds.next();
+        w.user.statement.setLong(1, userId);
+        w.user.statement.setString(2, spec.prefix() + "user-" + (userIndex + 1));
+        w.user.statement.setString(3, passwordHash);
+        w.user.statement.setString(4, "Synthetic User " + (userIndex + 1));
+        w.user.statement.setBoolean(5, false);
+        w.user.statement.setBoolean(6, true);
+        w.user.statement.setString(7, "/vite.svg");
+        if (themeId == null) {
+            w.user.statement.setNull(8, Types.BIGINT);
+        } else {
+            w.user.statement.setLong(8, themeId);
+        }
+        w.add(w.user);
+
+        for (int d = 0; d < spec.decksPerUser(); d++) {
+            long deckId = w.deckIds.next();
+            w.deck.statement.setLong(1, deckId);
+            w.deck.statement.setString(2, "Synthetic deck " + (userIndex + 1) + "." + (d + 1));
+            w.deck.statement.setString(3, sentence(random, 4, 12));
+            w.deck.statement.setLong(4, userId);
+            w.add(w.deck);
+            for (long tagId : pickTags(random, tagIds, 1 + random.nextInt(3))) {
+                w.deckTag.statement.setLong(1, deckId);
+                w.deckTag.statement.setLong(2, tagId);
+                w.add(w.deckTag);
+            }
+
+            for (int c = 0; c < spec.cardsPerDeck(); c++) {
+                long cardId = w.cardIds.next();
+                w.card.statement.setLong(1, cardId);
+                w.card.statement.setString(2, sentence(random, 2, 8) + "?");
+                w.card.statement.setString(3, sentence(random, 5, 40) + ".");
+                w.card.statement.setLong(4, deckId);
+                w.add(w.card);
+                for (long tagId : pickTags(random, tagIds, random.nextInt(4))) {
+                    w.cardTag.statement.setLong(1, cardId);
+                    w.cardTag.statement.setLong(2, tagId);
+                    w.add(w.cardTag);
+                }
+                if (random.nextDouble() < spec.studiedFraction()) {
+                    simulateHistory(w, spec, random, skill, userId, deckId, cardId);
+                }
+            }
+        }
+    }
+
+    private void simulateHistory(Writer w, Spec spec, SplittableRandom random, double skill,
+                                 long userId, long deckId, long cardId) throws SQLException {
+        LocalDateTime start = spec.asOf().minusDays(spec.historyDays());
+        LocalDateTime reviewedAt = start.plusMinutes(random.nextLong(Math.max(1, spec.historyDays() * 1440L)));
+        double recall = Math.clamp(skill - random.nextGaussian() * 0.08, 0.5, 0.99);
+
+        UserCardSrs srs = new UserCardSrs();
+        srs.setRepetitions(0);
+        srs.setEaseFactor(SrsService.DEFAULT_EASE_FACTOR);
+        srs.setIntervalDays(0);
+        boolean first = true;
+        while (!reviewedAt.isAfter(spec.asOf())) {
+            int quality = random.nextDouble() < recall ? correctQuality(random) : random.nextInt(3);
+            Integer intervalBefore = first ? null : srs.getIntervalDays();
+            Float easeBefore = first ? null : srs.getEaseFactor();
+            Integer repetitionsBefore = first ? null : srs.getRepetitions();
+            SrsService.applyReview(srs, quality, reviewedAt);
+
+            PreparedStatement ps = w.reviewLog.statement;
+            ps.setLong(1, w.reviewLogIds.next());
+            ps.setLong(2, userId);
+            ps.setLong(3, cardId);
+            ps.setLong(4, deckId);
+            ps.setInt(5, quality);
+            ps.setTimestamp(6, Timestamp.valueOf(reviewedAt));
+            ps.setTimestamp(7, Timestamp.valueOf(reviewedAt));
+            setNullable(ps, 8, intervalBefore, Types.INTEGER);
+            setNullable(ps, 9, easeBefore, Types.REAL);
+            setNullable(ps, 10, repetitionsBefore, Types.INTEGER);
+            ps.setInt(11, srs.getIntervalDays());
+            ps.setFloat(12, srs.getEaseFactor());
+            ps.setInt(13, srs.getRepetitions());
+            ps.setTimestamp(14, Timestamp.valueOf(srs.getNextReviewAt()));
+            w.add(w.reviewLog);
+            first = false;
+
+            // Cards get reviewed once due, usually within the day, now and then days late
+            reviewedAt = srs.getNextReviewAt().plusMinutes(random.nextInt(12 * 60));
+            if (random.nextDouble() < 0.15) {
+                reviewedAt = reviewedAt.plusDays(1 + random.nextInt(7));
+            }
+        }
+        if (first) {
+            return;
+        }
+
+        PreparedStatement ps = w.srs.statement;
+        ps.setLong(1, w.srsIds.next());
+        ps.setLong(2, userId);
+        ps.setLong(3, cardId);
+        ps.setTimestamp(4, Timestamp.valueOf(srs.getNextReviewAt()));
+        ps.setInt(5, srs.getIntervalDays());
+        ps.setFloat(6, srs.getEaseFactor());
+        ps.setInt(7, srs.getRepetitions());
+        ps.setTimestamp(8, Timestamp.valueOf(srs.getLastReviewedAt()));
+        w.add(w.srs);
+    }
+
+    private static int correctQuality(SplittableRandom random) {
+        double r = random.nextDouble();
+        return r < 0.25 ? 3 : r < 0.7 ? 4 : 5;
+    }
+
+    private static long[] pickTags(SplittableRandom random, long[] tagIds, int count) {
+        count = Math.min(count, tagIds.length);
+        long[] picked = new long[count];
+        int found = 0;
+        while (found < count) {
+            long candidate = tagIds[random.nextInt(tagIds.length)];
+            boolean duplicate = false;
+            for (int i = 0; i < found; i++) {
+                duplicate |= picked[i] == candidate;
+            }
+            if (!duplicate) {
+                picked[found++] = candidate;
+            }
+        }
+        return picked;
+    }
+
+    private static String sentence(SplittableRandom random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i == 0) {
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(' ').append(word);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Number value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else if (value instanceof Float f) {
+            ps.setFloat(index, f);
+        } else {
+            ps.setInt(index, value.intValue());
+        }
+    }
+
+    private static void ensureNoDataset(Connection connection, String quote, String prefix) throws SQLException {
+        String sql = "SELECT (SELECT COUNT(*) FROM " + quote + "user" + quote + " WHERE username LIKE ?)"
+                + " + (SELECT COUNT(*) FROM tag WHERE name LIKE ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, prefix + "user-%");
+            ps.setString(2, prefix + "tag-%");
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getLong(1) > 0) {
+                    throw new IllegalStateException("Database already contains synthetic data with prefix '" + prefix
+                            + "'; choose another aiforgot.synthetic.prefix");
+                }
+            }
+        }
+    }
+
+    private static Long firstThemeId(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MIN(id) FROM theme")) {
+            if (rs.next()) {
+                long id = rs.getLong(1);
+                return rs.wasNull() ? null : id;
+            }
+            return null;
+        }
+    }
+
+    private static Vendor vendorOf(String product) {
+        String p = product == null ? "" : product.toLowerCase(Locale.ROOT);
+        if (p.contains("postgres")) {
+            return Vendor.POSTGRES;
+        }
+        if (p.contains("sqlite")) {
+            return Vendor.SQLITE;
+        }
+        if (p.contains("h2")) {
+            return Vendor.H2;
+        }
+        throw new IllegalStateException("Synthetic data generation is not supported on " + product);
+    }
+
+    private static String safeQuote(DatabaseMetaData meta) throws SQLException {
+        String quote = meta.getIdentifierQuoteString();
+        if (quote == null || quote.isBlank()) return "\"";
+        return quote.trim();
+    }
+
+    /**
+     * Ids taken from one of Hibernate's {@code <table>_seq} sequences. Like Hibernate's pooled optimizer,
+     * each sequence value {@code h} reserves the ids {@code h - 49 .. h}, so ids handed out here and by the
+     * application never overlap.
+     */
+    private static final class IdSequence {
+        private final Connection connection;
+        private final Vendor vendor;
+        private final String sequence;
+        private final int valuesPerFetch;
+        private final ArrayDeque<Long> values = new ArrayDeque<>();
+        private long next = 1;
+        private long last = 0;
+
+        IdSequence(Connection connection, Vendor vendor, String table, int valuesPerFetch) {
+            this.connection = connection;
+            this.vendor = vendor;
+            this.sequence = table + "_seq";
+            this.valuesPerFetch = valuesPerFetch;
+        }
+
+        long next() throws SQLException {
+            if (next > last) {
+                if (values.isEmpty()) {
+                    fetch();
+                }
+                long hi = values.poll();
+                next = Math.max(1, hi - (ALLOCATION_SIZE - 1));
+                last = hi;
+            }
+            return next++;
+        }
+
+        private void fetch() throws SQLException {
+            if (vendor == Vendor.SQLITE) {
+                // Hibernate emulates sequences with a one-row table; the value it hands out is next_val before
+                // the increment. This connection holds SQLite's write lock until commit, so the read is safe.
+                try (PreparedStatement update = connection.prepareStatement(
+                        "UPDATE " + sequence + " SET next_val = next_val + ?")) {
+                    update.setLong(1, (long) ALLOCATION_SIZE * valuesPerFetch);
+                    update.executeUpdate();
+                }
+                try (Statement st = connection.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT next_val FROM " + sequence)) {
+                    rs.next();
+                    long first = rs.getLong(1) - (long) ALLOCATION_SIZE * valuesPerFetch;
+                    for (int i = 0; i < valuesPerFetch; i++) {
+                        values.add(first + (long) ALLOCATION_SIZE * i);
+                    }
+                }
+                return;
+            }
+            String sql = vendor == Vendor.POSTGRES
+                    ? "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)"
+                    : "SELECT NEXT VALUE FOR " + sequence + " FROM system_range(1, ?)";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, valuesPerFetch);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<Long> fetched = new ArrayList<>(valuesPerFetch);
+                    while (rs.next()) {
+                        fetched.add(rs.getLong(1));
+                    }
+                    fetched.sort(null);
+                    values.addAll(fetched);
+                }
+            }
+        }
+    }
+
+    private static final class Table {
+        private final PreparedStatement statement;
+        private int pending;
+        private long written;
+
+        Table(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * Prepared inserts for every table, flushed together in foreign key order whenever one of them
+     * has a full batch.
+     */
+    private static final class Writer implements AutoCloseable {
+        private final int batchSize;
+        private final List<Table> tables = new ArrayList<>();
+        private final Table user;
+        private final Table tag;
+        private final Table deck;
+        private final Table deckTag;
+        private final Table card;
+        private final Table cardTag;
+        private final Table srs;
+        private final Table reviewLog;
+        private final IdSequence userIds;
+        private final IdSequence tagIds;
+        private final IdSequence deckIds;
+        private final IdSequence cardIds;
+        private final IdSequence srsIds;
+        private final IdSequence reviewLogIds;
+
+        Writer(Connection connection, String quote, Vendor vendor, int batchSize) throws SQLException {
+            this.batchSize = batchSize;
+            user = prepare(connection, "INSERT INTO " + quote + "user" + quote
+                    + " (id, username, password_hash, name, is_admin, is_active, profile_pic_url, theme_id)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            tag = prepare(connection, "INSERT INTO tag (id, name) VALUES (?, ?)");
+            deck = prepare(connection, "INSERT INTO deck (id, name, description, user_id) VALUES (?, ?, ?, ?)");
+            deckTag = prepare(connection, "INSERT INTO deck_tag (deck_id, tag_id) VALUES (?, ?)");
+            card = prepare(connection, "INSERT INTO card (id, front, back, deck_id) VALUES (?, ?, ?, ?)");
+            cardTag = prepare(connection, "INSERT INTO card_tag (card_id, tag_id) VALUES (?, ?)");
+            srs = prepare(connection, "INSERT INTO user_card_srs"
+                    + " (id, user_id, card_id, next_review_at, interval_days, ease_factor, repetitions, last_reviewed_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            reviewLog = prepare(connection, "INSERT INTO review_log"
+                    + " (id, user_id, card_id, deck_id, quality, reviewed_at, recorded_at, interval_before, ease_before,"
+                    + " repetitions_before, interval_after, ease_after, repetitions_after, next_review_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            userIds = new IdSequence(connection, vendor, "user", 1);
+            tagIds = new IdSequence(connection, vendor, "tag", 1);
+            deckIds = new IdSequence(connection, vendor, "deck", 1);
+            cardIds = new IdSequence(connection, vendor, "card", 100);
+            srsIds = new IdSequence(connection, vendor, "user_card_srs", 100);
+            reviewLogIds = new IdSequence(connection, vendor, "review_log", 500);
+        }
+
+        private Table prepare(Connection connection, String sql) throws SQLException {
+            Table table = new Table(connection.prepareStatement(sql));
+            tables.add(table);
+            return table;
+        }
+
+        void add(Table table) throws SQLException {
+            table.statement.addBatch();
+            if (++table.pending >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            for (Table table : tables) {
+                if (table.pending > 0) {
+                    table.statement.executeBatch();
+                    table.written += table.pending;
+                    table.pending = 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            for (Table table : tables) {
+                table.statement.close();
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.darkmusic.aiforgotthesecards.web.config;
 
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -10,6 +13,32 @@ import com.darkmusic.aiforgotthesecards.web.controller.UserController;
 
 @Configuration
 public class SiteConfigurer implements WebMvcConfigurer {
+    // Endpoints that wait on the review log's group commit or run long computations outside a transaction; an
+    // open-in-view EntityManager would hold its connection for the whole request, so they manage their own
+    private static final String[] NO_OPEN_IN_VIEW_PATHS = {
+            "/api/srs/review",
+            "/api/srs/review/batch",
+            "/api/srs/session/*/answer",
+            "/api/srs/forecast/simulation"
+    };
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SiteConfigurer(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Open-in-view as {@code spring.jpa.open-in-view} would register it (that is off, so it is not registered
+     * twice), except on {@link #NO_OPEN_IN_VIEW_PATHS}.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openInView).excludePathPatterns(NO_OPEN_IN_VIEW_PATHS);
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         // registry.addViewController("/").setViewName("index.html");
@@ -0,0 +1,18 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class AnkiImportStatus {
+    private String id;
+    private String state; // QUEUED, RUNNING, DONE or FAILED
+    private List<Long> deckIds; // decks created so far
+    private long cards; // cards in the collection, once RUNNING
+    private long importedCards;
+    private long importedReviews; // imported cards that came with an SRS record
+    private String message; // set once FAILED
+}
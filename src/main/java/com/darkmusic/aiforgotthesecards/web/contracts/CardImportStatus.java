@@ -0,0 +1,12 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CardImportStatus {
+    private long offset; // rows of the input imported so far; resume from here
+    private long imported; // cards created by this request
+    private String message; // set on error events only
+}
@@ -0,0 +1,21 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A card in a paginated listing; fields left out by the request's {@code fields} selector are omitted.
+ */
+@Setter
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CardListItem {
+    private Long id;
+    private Long deckId;
+    private String front;
+    private String back;
+    private List<String> tags; // tag names
+}
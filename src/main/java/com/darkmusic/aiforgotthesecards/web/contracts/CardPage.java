@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of a card listing, in card id order.
+ * {@code nextCursor} is passed back as {@code after} to fetch the next page; null on the last page.
+ */
+@Setter
+@Getter
+public class CardPage {
+    private List<CardListItem> items;
+    private Long nextCursor;
+}
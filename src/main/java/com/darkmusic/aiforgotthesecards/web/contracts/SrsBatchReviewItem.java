@@ -0,0 +1,14 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+public class SrsBatchReviewItem {
+    private Long cardId;
+    private int quality; // 0-5 quality rating
+    private LocalDateTime reviewedAt; // optional, defaults to the time the batch is received
+}
@@ -0,0 +1,12 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class SrsBatchReviewRequest {
+    private List<SrsBatchReviewItem> reviews; // in the order they were performed
+}
@@ -0,0 +1,13 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class SrsBatchReviewResponse {
+    private int applied;
+    private List<SrsBatchReviewResult> results;
+}
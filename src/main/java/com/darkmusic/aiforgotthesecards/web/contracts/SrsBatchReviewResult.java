@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Setter
+@Getter
+public class SrsBatchReviewResult {
+    private Long cardId;
+    private String status; // APPLIED, NOT_FOUND, FORBIDDEN, STALE or INVALID
+    private LocalDateTime nextReviewAt;
+    private Integer intervalDays;
+    private Float easeFactor;
+    private Integer repetitions;
+}
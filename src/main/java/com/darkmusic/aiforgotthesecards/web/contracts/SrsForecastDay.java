@@ -0,0 +1,13 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Setter
+@Getter
+public class SrsForecastDay {
+    private LocalDate date;
+    private long dueCards;
+}
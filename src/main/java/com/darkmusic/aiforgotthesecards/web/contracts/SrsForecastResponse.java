@@ -0,0 +1,13 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class SrsForecastResponse {
+    private long overdueCards; // Due before the first day; not included in days
+    private List<SrsForecastDay> days;
+}
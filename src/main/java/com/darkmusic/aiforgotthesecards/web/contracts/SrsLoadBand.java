@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Percentiles of a simulated review count across trials.
+ */
+@Setter
+@Getter
+public class SrsLoadBand {
+    private int p5;
+    private int p25;
+    private int p50;
+    private int p75;
+    private int p95;
+}
@@ -0,0 +1,46 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in the paginated review queue.
+ * The queue lists due reviewed cards first (by nextReviewAt, then card id) and never-reviewed cards after them (by card id).
+ * Clients treat the encoded form as opaque.
+ *
+ * @param newCards True once the due cards are exhausted and paging continues through new cards
+ * @param nextReviewAt nextReviewAt of the last due card returned; null in the new-card phase
+ * @param cardId Id of the last card returned
+ */
+public record SrsQueueCursor(boolean newCards, LocalDateTime nextReviewAt, long cardId) {
+
+    public static SrsQueueCursor afterDue(LocalDateTime nextReviewAt, long cardId) {
+        return new SrsQueueCursor(false, nextReviewAt, cardId);
+    }
+
+    public static SrsQueueCursor afterNew(long cardId) {
+        return new SrsQueueCursor(true, null, cardId);
+    }
+
+    public String encode() {
+        String raw = newCards ? "n|" + cardId : "d|" + nextReviewAt + "|" + cardId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SrsQueueCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length == 2 && "n".equals(parts[0])) {
+                return afterNew(Long.parseLong(parts[1]));
+            }
+            if (parts.length == 3 && "d".equals(parts[0])) {
+                return afterDue(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (RuntimeException ignored) {
+            // Fall through to the error below.
+        }
+        throw new IllegalArgumentException("Invalid review queue cursor: " + encoded);
+    }
+}
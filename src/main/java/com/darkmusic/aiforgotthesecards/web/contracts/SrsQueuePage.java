@@ -0,0 +1,17 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of the review queue.
+ * {@code nextCursor} is passed back as {@code after} to fetch the next page; null on the last page.
+ */
+@Setter
+@Getter
+public class SrsQueuePage {
+    private List<SrsCardResponse> items;
+    private String nextCursor;
+}
@@ -0,0 +1,16 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Where a review session stands: the card to show next, or a null {@code card} once the session is finished.
+ */
+@Setter
+@Getter
+public class SrsSessionResponse {
+    private String sessionId;
+    private int size;
+    private int position;
+    private SrsCardResponse card;
+}
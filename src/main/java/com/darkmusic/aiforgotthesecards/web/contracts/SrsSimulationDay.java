@@ -0,0 +1,12 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Setter
+@Getter
+public class SrsSimulationDay extends SrsLoadBand {
+    private LocalDate date;
+}
@@ -0,0 +1,16 @@
+package com.darkmusic.aiforgotthesecards.web.contracts;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class SrsSimulationResponse {
+    private int trials;
+    private int reviewedCards;
+    private int newCards; // New cards taken on within the horizon at the daily new-card limit
+    private SrsLoadBand peak; // Each trial's busiest day
+    private List<SrsSimulationDay> days;
+}
@@ -4,28 +4,76 @@ import com.darkmusic.aiforgotthesecards.business.entities.Card;
 import com.darkmusic.aiforgotthesecards.business.entities.Deck;
 import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardRow;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.TagDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportFormat;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.DeckSrsCounterService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.TagResolutionService;
 import com.darkmusic.aiforgotthesecards.web.contracts.BulkCardItem;
 import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsRequest;
 import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsResponse;
+import com.darkmusic.aiforgotthesecards.web.contracts.CardImportStatus;
+import com.darkmusic.aiforgotthesecards.web.contracts.CardListItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.CardPage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.transaction.Transactional;
 import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Getter
 @RestController
 public class CardController {
+    // Progress events arrive after every committed chunk; this only ends an import whose upload has stalled
+    private static final long IMPORT_TIMEOUT_MS = 60 * 60 * 1000L; // 1 h
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // What the fields selector of the card listings may name; id is always included
+    private static final List<String> LIST_FIELDS = List.of("id", "deckId", "front", "back", "tags");
+
     private final CardDAO cardDAO;
     private final DeckDAO deckDAO;
     private final UserDAO userDAO;
     private final TagDAO tagDAO;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final TagResolutionService tagResolutionService;
+    private final CardImportService cardImportService;
 
-    public CardController(CardDAO cardDAO, DeckDAO deckDAO, UserDAO userDAO, TagDAO tagDAO) {
+    public CardController(CardDAO cardDAO, DeckDAO deckDAO, UserDAO userDAO, TagDAO tagDAO,
+                          DeckSrsCounterService deckSrsCounterService, TagResolutionService tagResolutionService,
+                          CardImportService cardImportService) {
         this.cardDAO = cardDAO;
         this.deckDAO = deckDAO;
         this.userDAO = userDAO;
         this.tagDAO = tagDAO;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.tagResolutionService = tagResolutionService;
+        this.cardImportService = cardImportService;
     }
 
     @GetMapping("/api/card/{id}")
@@ -51,21 +99,33 @@ public class CardController {
     }
 
     @PostMapping("/api/card")
+    @Transactional
     public Card addCard(@RequestBody Card card) {
-        return cardDAO.save(card);
+        var saved = cardDAO.save(card);
+        deckSrsCounterService.cardsAdded(saved.getDeck(), 1);
+        return saved;
     }
 
     @PutMapping("/api/card/{id}")
+    @Transactional
     public Card saveCard(@PathVariable long id, @RequestBody Card card) {
-        if (cardDAO.findById(id).isPresent()) {
-            return cardDAO.save(card);
+        var existing = cardDAO.findById(id);
+        if (existing.isPresent()) {
+            Deck from = existing.get().getDeck();
+            var saved = cardDAO.save(card);
+            deckSrsCounterService.cardMoved(saved, from);
+            return saved;
         }
         return null;
     }
 
     @DeleteMapping("/api/card/{id}")
+    @Transactional
     public void deleteCard(@PathVariable long id) {
-        cardDAO.deleteById(id);
+        cardDAO.findById(id).ifPresent(card -> {
+            deckSrsCounterService.removeCards(List.of(card));
+            cardDAO.delete(card);
+        });
     }
 
     @GetMapping("/api/card/username/{username}")
@@ -77,81 +137,133 @@ public class CardController {
         return null;
     }
 
+    // -------- PAGINATED LISTINGS --------
+    // Paginated variants of the listings above. Cards come in id order, read as DTOs of only the columns the
+    // fields selector names: fields=id,front skips both the backs and the tags, and omitting tags saves a query.
+    // Each page carries nextCursor; pass it back as after to get the next page (null on the last page).
+
+    @GetMapping("/api/card/deck/{deckId}/page")
+    public CardPage getCardPageByDeck(@PathVariable long deckId,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                      @RequestParam(required = false) List<String> fields) {
+        return cardPage(deckId, null, after, limit, fields);
+    }
+
+    @GetMapping("/api/card/user/{userId}/page")
+    public CardPage getCardPageByUser(@PathVariable long userId,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                      @RequestParam(required = false) List<String> fields) {
+        return cardPage(null, userId, after, limit, fields);
+    }
+
+    @GetMapping("/api/card/username/{username}/page")
+    public CardPage getCardPageByUsername(@PathVariable String username,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                          @RequestParam(required = false) List<String> fields) {
+        var user = userDAO.findByUsername(username)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return cardPage(null, user.getId(), after, limit, fields);
+    }
+
+    @GetMapping("/api/card/all/page")
+    public CardPage getAllCardsPage(@RequestParam(required = false) Long after,
+                                    @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                    @RequestParam(required = false) List<String> fields) {
+        return cardPage(null, null, after, limit, fields);
+    }
+
     // -------- BULK SAVE --------
+    /**
+     * Apply deletes, updates and creates in one transaction with a fixed number of queries per step rather than
+     * per card: the referenced cards and decks are each loaded with one query, deletes run as set-based
+     * statements, and new cards go out in JDBC batches with ids from the pooled {@code card_seq} generator.
+     * Only the tags the request names are looked up, through {@link TagResolutionService}.
+     *
+     * <p>New cards are persisted, and so take their ids, before anything else in the transaction touches the
+     * database: on SQLite the id generator writes on a connection of its own, which SQLite refuses once this
+     * transaction has read or written.</p>
+     */
     @PostMapping("/api/card/bulk-save")
+    @Transactional
     public BulkSaveCardsResponse bulkSave(@RequestBody BulkSaveCardsRequest req) {
         int created = 0, updated = 0, deleted = 0;
 
-        // Preload all tags into a map by normalized name
-        var allTags = tagDAO.findAll();
-        java.util.Map<String, Tag> tagByName = new java.util.HashMap<>();
-        for (Tag t : allTags) {
-            if (t.getName() != null) tagByName.put(normalize(t.getName()), t);
+        // Creates first, referencing their decks without loading them; tags are set once resolved below
+        List<Card> newCards = new ArrayList<>();
+        Map<Deck, Long> createdPerDeck = new HashMap<>();
+        if (req.getCreate() != null) {
+            for (BulkCardItem item : req.getCreate()) {
+                Card c = new Card();
+                c.setFront(item.getFront());
+                c.setBack(item.getBack());
+                Deck d = item.getDeckId() == null ? null : deckDAO.getReference(item.getDeckId());
+                c.setDeck(d);
+                cardDAO.save(c);
+                newCards.add(c);
+                createdPerDeck.merge(d, 1L, Long::sum);
+            }
+            created = newCards.size();
         }
 
-        java.util.function.Function<BulkCardItem, java.util.Set<Tag>> mapTags = (item) -> {
-            java.util.Set<Tag> set = new java.util.HashSet<>();
+        // Every tag the request names, resolved (and created where missing) up front
+        Map<String, Tag> tagByName = tagResolutionService.resolveReferences(tagNames(req));
+        Function<BulkCardItem, Set<Tag>> mapTags = (item) -> {
+            Set<Tag> set = new HashSet<>();
             if (item.getTags() != null) {
                 for (String name : item.getTags()) {
-                    String n = normalize(name);
-                    if (n.isEmpty()) continue;
-                    Tag t = tagByName.get(n);
-                    if (t == null) {
-                        t = new Tag();
-                        t.setName(name.trim());
-                        tagDAO.save(t);
-                        tagByName.put(n, t);
-                    }
-                    set.add(t);
+                    Tag t = tagByName.get(TagResolutionService.normalize(name));
+                    if (t != null) set.add(t);
                 }
             }
             return set;
         };
+        for (int i = 0; i < newCards.size(); i++) {
+            newCards.get(i).setTags(mapTags.apply(req.getCreate().get(i)));
+        }
 
-        // Deletes first
+        // Deletes
+        Set<Long> deleteIds = new HashSet<>();
         if (req.getDeleteIds() != null) {
-            for (Long id : req.getDeleteIds()) {
-                if (id != null) {
-                    cardDAO.deleteById(id);
-                    deleted++;
-                }
+            req.getDeleteIds().stream().filter(Objects::nonNull).forEach(deleteIds::add);
+            if (!deleteIds.isEmpty()) {
+                deckSrsCounterService.removeCards(cardDAO.findAllByIdWithDeck(deleteIds));
+                deleted = cardDAO.deleteByIds(deleteIds);
             }
         }
 
-        // Updates
+        Map<Long, Deck> decks = findDecks(req);
+
+        // Updates; cards are managed, so changes are written when the transaction flushes
         if (req.getUpdate() != null) {
-            for (BulkCardItem item : req.getUpdate()) {
-                if (item.getId() == null) continue;
-                var cardOpt = cardDAO.findById(item.getId());
-                if (cardOpt.isPresent()) {
-                    Card c = cardOpt.get();
-                    c.setFront(item.getFront());
-                    c.setBack(item.getBack());
-                    if (item.getDeckId() != null) {
-                        Deck d = deckDAO.findById(item.getDeckId()).orElse(null);
-                        if (d != null) c.setDeck(d);
-                    }
-                    c.setTags(mapTags.apply(item));
-                    cardDAO.save(c);
-                    updated++;
-                }
+            List<Long> ids = req.getUpdate().stream()
+                    .map(BulkCardItem::getId)
+                    .filter(id -> id != null && !deleteIds.contains(id))
+                    .toList();
+            Map<Long, Card> cards = new HashMap<>();
+            if (!ids.isEmpty()) {
+                cardDAO.findAllByIdWithDeck(ids).forEach(c -> cards.put(c.getId(), c));
             }
-        }
-
-        // Creates
-        if (req.getCreate() != null) {
-            for (BulkCardItem item : req.getCreate()) {
-                Card c = new Card();
+            for (BulkCardItem item : req.getUpdate()) {
+                Card c = item.getId() == null ? null : cards.get(item.getId());
+                if (c == null) continue;
+                Deck from = c.getDeck();
                 c.setFront(item.getFront());
                 c.setBack(item.getBack());
-                Deck d = deckDAO.findById(item.getDeckId()).orElse(null);
-                c.setDeck(d);
+                if (item.getDeckId() != null) {
+                    Deck d = decks.get(item.getDeckId());
+                    if (d != null) c.setDeck(d);
+                }
                 c.setTags(mapTags.apply(item));
-                cardDAO.save(c);
-                created++;
+                deckSrsCounterService.cardMoved(c, from);
+                updated++;
             }
         }
 
+        createdPerDeck.forEach(deckSrsCounterService::cardsAdded);
+
         BulkSaveCardsResponse res = new BulkSaveCardsResponse();
         res.setCreated(created);
         res.setUpdated(updated);
@@ -159,7 +271,136 @@ public class CardController {
         return res;
     }
 
-    private static String normalize(String s) {
-        return s == null ? "" : s.trim().replaceAll("\\s+", " ").toLowerCase();
+    // -------- STREAMING IMPORT --------
+    /**
+     * Import cards into one of the caller's decks from rows in the request body, NDJSON
+     * ({@code application/x-ndjson}, one {@code {front, back, tags}} object per line) or CSV ({@code text/csv},
+     * columns front, back and tags separated by semicolons; pass {@code header=true} to skip a header line).
+     * The body is parsed as it arrives and committed in chunks, so its size is not limited by memory.
+     *
+     * <p>The response is a Server-Sent Events stream: a {@code progress} event after each committed chunk, then
+     * {@code done}, or {@code error} if a row could not be read or a chunk failed. Every event carries
+     * {@code offset}, the number of rows of the body imported so far. Chunks before a failure stay committed;
+     * send the same body again with that {@code offset} to carry on where it stopped.</p>
+     */
+    @PostMapping(value = "/api/card/import", consumes = {"application/x-ndjson", "text/csv"},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter importCards(Authentication authentication,
+                                  HttpServletRequest request,
+                                  @RequestParam long deckId,
+                                  @RequestParam(defaultValue = "0") long offset,
+                                  @RequestParam(defaultValue = "false") boolean header) throws IOException {
+        var user = userDAO.findByUsername(authentication == null ? null : authentication.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN));
+        Deck deck = deckDAO.findById(deckId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (!deck.getUser().getId().equals(user.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not be negative");
+        }
+        CardImportFormat format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? CardImportFormat.CSV
+                : CardImportFormat.NDJSON;
+        InputStream body = request.getInputStream();
+
+        SseEmitter emitter = new SseEmitter(IMPORT_TIMEOUT_MS);
+        // The body is read and imported on a virtual thread, so no Tomcat worker thread waits on the upload
+        Thread.ofVirtual().name("card-import-", 0L).start(() -> {
+            AtomicReference<CardImportService.Progress> committed =
+                    new AtomicReference<>(new CardImportService.Progress(offset, 0));
+            try {
+                CardImportService.Progress done = cardImportService.importCards(deck, format, body, header, offset,
+                        progress -> {
+                            committed.set(progress);
+                            try {
+                                emitter.send(SseEmitter.event().name("progress").data(toImportStatus(progress, null)));
+                            } catch (IOException e) {
+                                // Client went away; stop after the chunk just committed
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                emitter.send(SseEmitter.event().name("done").data(toImportStatus(done, null)));
+                emitter.complete();
+            } catch (Exception e) {
+                String msg = e.getMessage() != null ? e.getMessage() : "Unknown error occurred";
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(toImportStatus(committed.get(), msg)));
+                } catch (IOException ignored) {
+                    // Client already disconnected; error event cannot be delivered.
+                }
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * @param fields Fields to return, or null for all of them
+     */
+    private CardPage cardPage(Long deckId, Long userId, Long after, int limit, List<String> fields) {
+        Set<String> selected = new HashSet<>(fields == null ? LIST_FIELDS : fields);
+        for (String field : selected) {
+            if (!LIST_FIELDS.contains(field)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field " + field + "; expected some of " + String.join(",", LIST_FIELDS));
+            }
+        }
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+
+        List<CardRow> rows = cardDAO.findPage(deckId, userId, after, pageSize,
+                selected.contains("front"), selected.contains("back"));
+        Map<Long, List<String>> tags = selected.contains("tags")
+                ? cardDAO.findTagNames(rows.stream().map(CardRow::id).toList())
+                : Map.of();
+
+        List<CardListItem> items = new ArrayList<>(rows.size());
+        for (CardRow row : rows) {
+            CardListItem item = new CardListItem();
+            item.setId(row.id());
+            item.setDeckId(selected.contains("deckId") ? row.deckId() : null);
+            item.setFront(row.front());
+            item.setBack(row.back());
+            item.setTags(selected.contains("tags") ? tags.getOrDefault(row.id(), List.of()) : null);
+            items.add(item);
+        }
+        CardPage page = new CardPage();
+        page.setItems(items);
+        page.setNextCursor(rows.size() == pageSize ? rows.get(rows.size() - 1).id() : null);
+        return page;
+    }
+
+    private static CardImportStatus toImportStatus(CardImportService.Progress progress, String message) {
+        CardImportStatus status = new CardImportStatus();
+        status.setOffset(progress.offset());
+        status.setImported(progress.imported());
+        status.setMessage(message);
+        return status;
+    }
+
+    /**
+     * Every deck the request moves cards to, loaded with one query.
+     */
+    private Map<Long, Deck> findDecks(BulkSaveCardsRequest req) {
+        Set<Long> ids = new HashSet<>();
+        if (req.getUpdate() != null) {
+            req.getUpdate().stream().map(BulkCardItem::getDeckId).filter(Objects::nonNull).forEach(ids::add);
+        }
+        Map<Long, Deck> decks = new HashMap<>();
+        if (!ids.isEmpty()) {
+            deckDAO.findAllById(ids).forEach(d -> decks.put(d.getId(), d));
+        }
+        return decks;
+    }
+
+    private static List<String> tagNames(BulkSaveCardsRequest req) {
+        List<String> names = new ArrayList<>();
+        for (List<BulkCardItem> items : Arrays.asList(req.getUpdate(), req.getCreate())) {
+            if (items != null) {
+                items.stream().map(BulkCardItem::getTags).filter(Objects::nonNull).forEach(names::addAll);
+            }
+        }
+        return names;
     }
 }
@@ -1,20 +1,44 @@
 package com.darkmusic.aiforgotthesecards.web.controller;
 
 import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.AnkiImportJob;
+import com.darkmusic.aiforgotthesecards.business.entities.services.AnkiImportService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.DeckSrsCounterService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.TagResolutionService;
+import com.darkmusic.aiforgotthesecards.web.contracts.AnkiImportStatus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.transaction.Transactional;
 import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Getter
 @RestController
 public class DeckController {
     private final DeckDAO deckDAO;
     private final UserDAO userDAO;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final TagResolutionService tagResolutionService;
+    private final AnkiImportService ankiImportService;
 
-    public DeckController(DeckDAO deckDAO, UserDAO userDAO) {
+    public DeckController(DeckDAO deckDAO, UserDAO userDAO, DeckSrsCounterService deckSrsCounterService,
+                          TagResolutionService tagResolutionService, AnkiImportService ankiImportService) {
         this.deckDAO = deckDAO;
         this.userDAO = userDAO;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.tagResolutionService = tagResolutionService;
+        this.ankiImportService = ankiImportService;
     }
 
     @GetMapping("/api/deck/{id}")
@@ -34,20 +58,26 @@ public class DeckController {
     }
 
     @PostMapping("/api/deck")
+    @Transactional
     public Deck addDeck(@RequestBody Deck deck) {
+        resolveTags(deck);
         return deckDAO.save(deck);
     }
 
     @PutMapping("/api/deck/{id}")
+    @Transactional
     public Deck saveDeck(@PathVariable long id, @RequestBody Deck deck) {
         if (deckDAO.findById(id).isPresent()) {
+            resolveTags(deck);
             return deckDAO.save(deck);
         }
         return null;
     }
 
     @DeleteMapping("/api/deck/{id}")
+    @Transactional
     public void deleteDeck(@PathVariable long id) {
+        deckSrsCounterService.deckDeleted(id);
         deckDAO.deleteById(id);
     }
 
@@ -59,4 +89,69 @@ public class DeckController {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    // -------- ANKI IMPORT --------
+    /**
+     * Import an Anki {@code .apkg} file, sent as the request body, into new decks of the caller: one per Anki
+     * deck, with its cards, their tags and their review state. The file is unpacked while it is received and
+     * imported in the background; the response is the queued job, whose progress is polled with
+     * {@code GET /api/deck/import/anki/{id}}.
+     */
+    @PostMapping(value = "/api/deck/import/anki", consumes = {"application/octet-stream", "application/zip"})
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public AnkiImportStatus importAnki(Authentication authentication, HttpServletRequest request) {
+        var user = userDAO.findByUsername(authentication == null ? null : authentication.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN));
+        try {
+            return toStatus(ankiImportService.submit(user, request.getInputStream()));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/api/deck/import/anki/{id}")
+    public AnkiImportStatus getAnkiImport(Authentication authentication, @PathVariable String id) {
+        var user = userDAO.findByUsername(authentication == null ? null : authentication.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN));
+        return ankiImportService.find(user, id)
+                .map(DeckController::toStatus)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    private static AnkiImportStatus toStatus(AnkiImportJob job) {
+        AnkiImportStatus status = new AnkiImportStatus();
+        status.setId(job.id());
+        status.setState(job.state().name());
+        status.setDeckIds(job.deckIds());
+        status.setCards(job.cards());
+        status.setImportedCards(job.importedCards());
+        status.setImportedReviews(job.importedReviews());
+        status.setMessage(job.message());
+        return status;
+    }
+
+    /**
+     * Swap the deck's tags for references to the stored tags of the same names, creating any that are new, so
+     * a tag sent by name alone never collides with an existing one. Tags sent with only an id are kept.
+     */
+    private void resolveTags(Deck deck) {
+        if (deck.getTags() == null || deck.getTags().isEmpty()) {
+            return;
+        }
+        Map<String, Tag> byName = tagResolutionService.resolveReferences(
+                deck.getTags().stream().map(Tag::getName).filter(Objects::nonNull).toList());
+        Set<Tag> tags = new HashSet<>();
+        for (Tag tag : deck.getTags()) {
+            Tag resolved = byName.get(TagResolutionService.normalize(tag.getName()));
+            if (resolved != null) {
+                tags.add(resolved);
+            }
+            else if (tag.getId() != null) {
+                tags.add(tag);
+            }
+        }
+        deck.setTags(tags);
+    }
+}
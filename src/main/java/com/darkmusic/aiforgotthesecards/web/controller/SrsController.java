@@ -6,42 +6,135 @@ import com.darkmusic.aiforgotthesecards.business.entities.User;
 import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsDeckCounts;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQueueEntry;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.DeckSrsCounterService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewJournal;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewOutcome;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSession;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSessionService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSubmission;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ShuffleBuffer;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsForecast;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsForecastService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsQueueOrder;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsDailyLimitService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsDueIndex;
 import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsWorkloadSimulation;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsWorkloadSimulator;
 import com.darkmusic.aiforgotthesecards.web.contracts.DeckInfo;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsBatchReviewItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsBatchReviewRequest;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsBatchReviewResponse;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsBatchReviewResult;
 import com.darkmusic.aiforgotthesecards.web.contracts.SrsCardResponse;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsForecastDay;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsForecastResponse;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsLoadBand;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsQueueCursor;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsQueuePage;
 import com.darkmusic.aiforgotthesecards.web.contracts.SrsReviewRequest;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsSessionResponse;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsSimulationDay;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsSimulationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.Getter;
+import org.hibernate.Hibernate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 @Getter
 @RestController
 @Transactional
 public class SrsController {
     private final SrsService srsService;
+    private final SrsDueIndex srsDueIndex;
+    private final ReviewJournal reviewJournal;
+    private final DeckSrsCounterService deckSrsCounterService;
+    private final SrsForecastService srsForecastService;
+    private final SrsDailyLimitService srsDailyLimitService;
+    private final ReviewSessionService reviewSessionService;
+    private final SrsWorkloadSimulator srsWorkloadSimulator;
     private final UserDAO userDAO;
     private final CardDAO cardDAO;
     private final DeckDAO deckDAO;
     private final UserCardSrsDAO userCardSrsDAO;
     private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
 
-    public SrsController(SrsService srsService, UserDAO userDAO, CardDAO cardDAO,
-                        DeckDAO deckDAO, UserCardSrsDAO userCardSrsDAO, EntityManager em) {
+    private static final int DEFAULT_QUEUE_PAGE_SIZE = 100;
+    private static final int MAX_QUEUE_PAGE_SIZE = 500;
+
+    /** Rows read from the database per round trip when streaming a queue. */
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    /** Cards held back for randomization when streaming a queue. */
+    private static final int STREAM_SHUFFLE_BUFFER_SIZE = 64;
+
+    /** Upper bound on reviews accepted by a single batch submission. */
+    private static final int MAX_REVIEW_BATCH_SIZE = 1000;
+
+    private static final int DEFAULT_FORECAST_DAYS = 30;
+    private static final int MAX_FORECAST_DAYS = 365;
+
+    private static final int DEFAULT_SIMULATION_DAYS = 365;
+    private static final int MAX_SIMULATION_DAYS = 730;
+    private static final int DEFAULT_SIMULATION_TRIALS = 1000;
+    private static final int MAX_SIMULATION_TRIALS = 10000;
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    public SrsController(SrsService srsService, SrsDueIndex srsDueIndex, ReviewJournal reviewJournal,
+                        DeckSrsCounterService deckSrsCounterService, SrsForecastService srsForecastService,
+                        SrsDailyLimitService srsDailyLimitService, ReviewSessionService reviewSessionService,
+                        SrsWorkloadSimulator srsWorkloadSimulator,
+                        UserDAO userDAO, CardDAO cardDAO, DeckDAO deckDAO,
+                        UserCardSrsDAO userCardSrsDAO, EntityManager em, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager) {
         this.srsService = srsService;
+        this.srsDueIndex = srsDueIndex;
+        this.reviewJournal = reviewJournal;
+        this.deckSrsCounterService = deckSrsCounterService;
+        this.srsForecastService = srsForecastService;
+        this.srsDailyLimitService = srsDailyLimitService;
+        this.reviewSessionService = reviewSessionService;
+        this.srsWorkloadSimulator = srsWorkloadSimulator;
         this.userDAO = userDAO;
         this.cardDAO = cardDAO;
         this.deckDAO = deckDAO;
         this.userCardSrsDAO = userCardSrsDAO;
         this.em = em;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
@@ -54,16 +147,25 @@ public class SrsController {
 
     /**
      * Get the review queue for the authenticated user.
-     * Returns cards that are due for review (nextReviewAt <= now) or cards that have never been reviewed.
+     * Returns cards that are due for review (nextReviewAt <= now) and cards that have never been reviewed,
+     * up to what the user's and decks' daily new-card and review limits still allow today.
+     * When more cards are due than the limits allow, {@code order} decides which are picked and in what order.
      *
      * @param authentication Spring Security authentication object
      * @param deckId Optional deck ID to filter by specific deck
+     * @param order {@code retrievability} (default: least likely to be recalled first), {@code overdue}
+     *              (longest overdue first) or {@code random}
+     * @param seed Seed for {@code random}; the same seed gives the same order. Random per request if omitted
      * @return List of cards due for review with SRS metadata
      */
     @GetMapping("/api/srs/review-queue")
     public List<SrsCardResponse> getReviewQueue(
             Authentication authentication,
-            @RequestParam(required = false) Long deckId) {
+            @RequestParam(required = false) Long deckId,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Long seed) {
+
+        SrsQueueOrder queueOrder = parseOrder(order);
 
         if (authentication == null || authentication.getName() == null) {
             return new ArrayList<>();
@@ -74,59 +176,128 @@ public class SrsController {
             return new ArrayList<>();
         }
 
+        // Read-your-writes: reviews this user just submitted may not be projected yet
+        reviewJournal.awaitProjected(user.getId());
+
         List<SrsCardResponse> reviewQueue = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
 
-        // Get all cards for the user (optionally filtered by deck)
-        Iterable<Card> allCards;
-        if (deckId != null) {
-            Deck deck = deckDAO.findById(deckId).orElse(null);
-            if (deck == null || !deck.getUser().getId().equals(user.getId())) {
-                return new ArrayList<>();
-            }
-            allCards = cardDAO.findByDeckWithTags(deck);
-        } else {
-            allCards = cardDAO.findByDeckUserWithTags(user);
+        for (SrsQueueEntry entry : srsDailyLimitService.queue(user, deckId, LocalDateTime.now(), queueOrder, seedOrRandom(seed))) {
+            reviewQueue.add(toResponse(entry));
         }
 
-        // Check each card's SRS status
-        for (Card card : allCards) {
-            Optional<UserCardSrs> srsRecord = userCardSrsDAO.findByUserAndCard(user, card);
+        return reviewQueue;
+    }
 
-            SrsCardResponse response = new SrsCardResponse();
-            response.setCard(card);
+    /**
+     * Get one page of the review queue for the authenticated user.
+     * Due cards come first, oldest due first, followed by never-reviewed cards.
+     * Unlike {@link #getReviewQueue}, the page order is deterministic so it can be resumed with a cursor.
+     *
+     * @param authentication Spring Security authentication object
+     * @param deckId Optional deck ID to filter by specific deck
+     * @param limit Maximum number of cards to return (1-{@value #MAX_QUEUE_PAGE_SIZE})
+     * @param after Cursor from the previous page's {@code nextCursor}; omit for the first page
+     * @return The page of cards and the cursor for the next page
+     */
+    @GetMapping("/api/srs/review-queue/page")
+    public SrsQueuePage getReviewQueuePage(
+            Authentication authentication,
+            @RequestParam(required = false) Long deckId,
+            @RequestParam(defaultValue = "" + DEFAULT_QUEUE_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String after) {
 
-            // Create DeckInfo to avoid circular reference issues
-            DeckInfo deckInfo = new DeckInfo();
-            deckInfo.setId(card.getDeck().getId());
-            deckInfo.setName(card.getDeck().getName());
-            deckInfo.setTemplateFront(card.getDeck().getTemplateFront());
-            deckInfo.setTemplateBack(card.getDeck().getTemplateBack());
-            response.setDeck(deckInfo);
+        SrsQueuePage page = new SrsQueuePage();
+        page.setItems(new ArrayList<>());
 
-            if (srsRecord.isEmpty()) {
-                // Never reviewed - add to queue
-                response.setNew(true);
-                response.setRepetitions(0);
-                reviewQueue.add(response);
-            } else {
-                UserCardSrs srs = srsRecord.get();
-                response.setNew(false);
-                response.setNextReviewAt(srs.getNextReviewAt());
-                response.setIntervalDays(srs.getIntervalDays());
-                response.setRepetitions(srs.getRepetitions());
-
-                // Add if due for review
-                if (srs.getNextReviewAt().isBefore(now) || srs.getNextReviewAt().isEqual(now)) {
-                    reviewQueue.add(response);
-                }
+        if (authentication == null || authentication.getName() == null) {
+            return page;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return page;
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        SrsQueueCursor cursor;
+        try {
+            cursor = after == null || after.isBlank() ? null : SrsQueueCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int pageSize = Math.max(1, Math.min(MAX_QUEUE_PAGE_SIZE, limit));
+
+        List<SrsQueueEntry> entries = new ArrayList<>();
+        SrsQueueCursor next = null;
+
+        if (cursor == null || !cursor.newCards()) {
+            entries.addAll(userCardSrsDAO.findDuePage(user, deckId, LocalDateTime.now(),
+                    cursor == null ? null : cursor.nextReviewAt(),
+                    cursor == null ? null : cursor.cardId(),
+                    pageSize));
+            if (entries.size() == pageSize) {
+                UserCardSrs last = entries.get(entries.size() - 1).srs();
+                next = SrsQueueCursor.afterDue(last.getNextReviewAt(), last.getCard().getId());
             }
         }
 
-        // Shuffle
-        java.util.Collections.shuffle(reviewQueue);
+        if (next == null) {
+            // Due cards are exhausted; fill the rest of the page with new cards
+            Long afterCardId = cursor != null && cursor.newCards() ? cursor.cardId() : null;
+            int remaining = pageSize - entries.size();
+            List<SrsQueueEntry> newEntries = userCardSrsDAO.findNewPage(user, deckId, afterCardId, remaining);
+            entries.addAll(newEntries);
+            if (newEntries.size() == remaining) {
+                next = SrsQueueCursor.afterNew(newEntries.get(newEntries.size() - 1).card().getId());
+            }
+        }
 
-        return reviewQueue;
+        for (SrsQueueEntry entry : entries) {
+            page.getItems().add(toResponse(entry));
+        }
+        page.setNextCursor(next == null ? null : next.encode());
+        return page;
+    }
+
+    /**
+     * Get today's review queue across several decks, interleaved: cards alternate between decks in
+     * proportion to their weights instead of coming one deck after another. Due cards come first, then new
+     * cards; each deck's own daily limits and the user's limits still apply. Only about {@code limit} cards
+     * are read, however many decks are included.
+     *
+     * @param authentication Spring Security authentication object
+     * @param deckIds Decks to study; omit for all of the user's decks
+     * @param weights Deck weights as {@code deckId:weight} pairs, e.g. {@code 12:3,15:1}; unlisted decks weigh 1
+     * @param limit Maximum number of cards to return (1-{@value #MAX_QUEUE_PAGE_SIZE})
+     * @return The first {@code limit} cards of the interleaved queue
+     */
+    @GetMapping("/api/srs/review-queue/interleaved")
+    public List<SrsCardResponse> getInterleavedReviewQueue(
+            Authentication authentication,
+            @RequestParam(required = false) List<Long> deckIds,
+            @RequestParam(required = false) String weights,
+            @RequestParam(defaultValue = "" + DEFAULT_QUEUE_PAGE_SIZE) int limit) {
+
+        Map<Long, Double> deckWeights = parseWeights(weights);
+
+        if (authentication == null || authentication.getName() == null) {
+            return new ArrayList<>();
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        int size = Math.max(1, Math.min(MAX_QUEUE_PAGE_SIZE, limit));
+        List<SrsCardResponse> queue = new ArrayList<>();
+        for (SrsQueueEntry entry : srsDailyLimitService.interleavedQueue(user, deckIds, deckWeights, size, LocalDateTime.now())) {
+            queue.add(toResponse(entry));
+        }
+        return queue;
     }
 
     /**
@@ -151,42 +322,13 @@ public class SrsController {
             return new ArrayList<>();
         }
 
-        // Get the deck and verify ownership
-        Deck deck = deckDAO.findById(deckId).orElse(null);
-        if (deck == null || !deck.getUser().getId().equals(user.getId())) {
-            return new ArrayList<>();
-        }
+        reviewJournal.awaitProjected(user.getId());
 
         List<SrsCardResponse> cramQueue = new ArrayList<>();
-        Iterable<Card> allCards = cardDAO.findByDeckWithTags(deck);
-
-        // Add all cards without any filtering
-        for (Card card : allCards) {
-            SrsCardResponse response = new SrsCardResponse();
-            response.setCard(card);
-
-            // Create DeckInfo to avoid circular reference issues
-            DeckInfo deckInfo = new DeckInfo();
-            deckInfo.setId(deck.getId());
-            deckInfo.setName(deck.getName());
-            deckInfo.setTemplateFront(deck.getTemplateFront());
-            deckInfo.setTemplateBack(deck.getTemplateBack());
-            response.setDeck(deckInfo);
-
-            // Set SRS metadata if available
-            Optional<UserCardSrs> srsRecord = userCardSrsDAO.findByUserAndCard(user, card);
-            if (srsRecord.isEmpty()) {
-                response.setNew(true);
-                response.setRepetitions(0);
-            } else {
-                UserCardSrs srs = srsRecord.get();
-                response.setNew(false);
-                response.setNextReviewAt(srs.getNextReviewAt());
-                response.setIntervalDays(srs.getIntervalDays());
-                response.setRepetitions(srs.getRepetitions());
-            }
 
-            cramQueue.add(response);
+        // All cards in the deck, no SRS filtering; decks not owned by the user match nothing
+        for (SrsQueueEntry entry : userCardSrsDAO.findQueueEntries(user, deckId, null)) {
+            cramQueue.add(toResponse(entry));
         }
 
         // Shuffle
@@ -195,14 +337,145 @@ public class SrsController {
         return cramQueue;
     }
 
+    /**
+     * Streaming variant of {@link #getReviewQueue}: the same cards in the same order, written as
+     * newline-delimited JSON (one {@link SrsCardResponse} per line). Unlike {@link #streamCramQueue} this is not
+     * a cursor through a shuffle buffer: {@code order} can only be applied once the whole allowance is selected,
+     * so the queue is built first and memory grows with the daily limits rather than staying at one chunk.
+     *
+     * @param authentication Spring Security authentication object
+     * @param deckId Optional deck ID to filter by specific deck
+     * @param order As for {@link #getReviewQueue}
+     * @param seed As for {@link #getReviewQueue}
+     * @return NDJSON stream of cards due for review
+     */
+    @GetMapping(value = "/api/srs/review-queue/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamReviewQueue(
+            Authentication authentication,
+            @RequestParam(required = false) Long deckId,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Long seed) {
+        return streamQueue(authentication, deckId, LocalDateTime.now(), parseOrder(order), seedOrRandom(seed));
+    }
+
+    /**
+     * Streaming variant of {@link #getCramQueue}: the cards are written as newline-delimited JSON while
+     * they are read from the database. Randomization uses a bounded shuffle buffer, so memory per request
+     * stays constant and the first cards arrive before the whole deck has been read.
+     *
+     * @param authentication Spring Security authentication object
+     * @param deckId Required deck ID to get cards from
+     * @return NDJSON stream of all cards in the deck
+     */
+    @GetMapping(value = "/api/srs/cram-queue/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamCramQueue(
+            Authentication authentication,
+            @RequestParam Long deckId) {
+        return streamQueue(authentication, deckId, null, null, 0L);
+    }
+
+    /**
+     * @param dueAt Stream today's review queue as of this time, in {@code order}; null streams the whole deck, shuffled
+     */
+    private ResponseEntity<StreamingResponseBody> streamQueue(Authentication authentication, Long deckId, LocalDateTime dueAt,
+                                                              SrsQueueOrder order, long seed) {
+        User user = authentication == null || authentication.getName() == null
+                ? null
+                : userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(out -> { });
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        StreamingResponseBody body = out -> {
+            ShuffleBuffer<SrsCardResponse> shuffle = new ShuffleBuffer<>(STREAM_SHUFFLE_BUFFER_SIZE, new Random());
+            Consumer<SrsCardResponse> writer = response -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(response));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            // Runs after the handler returns, so it needs its own transaction for the scrolled cursor.
+            readOnlyTransaction.executeWithoutResult(status -> {
+                if (dueAt != null) {
+                    for (SrsQueueEntry entry : srsDailyLimitService.queue(user, deckId, dueAt, order, seed)) {
+                        writer.accept(toResponse(entry));
+                    }
+                    return;
+                }
+                userCardSrsDAO.streamQueueEntries(user, deckId, null, STREAM_CHUNK_SIZE, chunk -> {
+                    for (SrsQueueEntry entry : chunk) {
+                        shuffle.offer(toResponse(entry), writer);
+                    }
+                    try {
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            });
+
+            shuffle.drain(writer);
+            out.flush();
+        };
+
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Get the single next card to study: the most overdue reviewed card if any is due, otherwise the
+     * first never-reviewed card. Served from {@link SrsDueIndex}, so it does not scan the user's cards.
+     *
+     * @param authentication Spring Security authentication object
+     * @return The next card, or null when nothing is due
+     */
+    @GetMapping("/api/srs/next")
+    public SrsCardResponse getNextCard(Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        LocalDateTime now = LocalDateTime.now();
+        Optional<SrsCardState> next;
+        while ((next = srsDueIndex.nextDue(user.getId(), now)).isPresent()) {
+            long cardId = next.get().cardId();
+            Optional<SrsQueueEntry> entry = cardDAO.findById(cardId)
+                    .flatMap(card -> userCardSrsDAO.findByUserAndCard(user, card)
+                            .map(srs -> new SrsQueueEntry(card, srs)));
+            if (entry.isPresent()) {
+                return toResponse(entry.get());
+            }
+            // Card or SRS record was deleted behind the index's back; drop it and look again
+            srsDueIndex.remove(user.getId(), cardId);
+        }
+
+        List<SrsQueueEntry> newCards = userCardSrsDAO.findNewPage(user, null, null, 1);
+        return newCards.isEmpty() ? null : toResponse(newCards.get(0));
+    }
+
     /**
      * Process a card review.
+     * Runs outside the controller transaction and without an open-in-view EntityManager (see
+     * {@code SiteConfigurer}): the review is committed to the review log by {@link ReviewJournal}, and
+     * holding a connection while waiting for that commit would pin a second connection per request.
      *
      * @param authentication Spring Security authentication object
      * @param request Review request containing cardId and quality rating (0-5)
      * @return Updated SRS record
      */
     @PostMapping("/api/srs/review")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public UserCardSrs processReview(
             Authentication authentication,
             @RequestBody SrsReviewRequest request) {
@@ -216,7 +489,13 @@ public class SrsController {
             return null;
         }
 
-        Card card = cardDAO.findById(request.getCardId()).orElse(null);
+        // No persistence context spans this method, so load everything the response serializes up front
+        Card card = readOnlyTransaction.execute(status -> cardDAO.findById(request.getCardId())
+                .map(c -> {
+                    Hibernate.initialize(c.getTags());
+                    return c;
+                })
+                .orElse(null));
         if (card == null) {
             return null;
         }
@@ -232,6 +511,201 @@ public class SrsController {
         return srsService.processReview(user, card, quality);
     }
 
+    /**
+     * Apply many reviews in one request, e.g. when a client replays a session it ran offline.
+     * Items are applied in order; each one gets its own result so a bad card id does not
+     * reject the rest of the batch. Like {@link #processReview}, runs outside the controller transaction
+     * and open-in-view.
+     */
+    @PostMapping("/api/srs/review/batch")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public SrsBatchReviewResponse processReviewBatch(
+            Authentication authentication,
+            @RequestBody SrsBatchReviewRequest request) {
+
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        List<SrsBatchReviewItem> items = request.getReviews() == null ? List.of() : request.getReviews();
+        if (items.size() > MAX_REVIEW_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_REVIEW_BATCH_SIZE + " reviews may be submitted per batch");
+        }
+
+        List<ReviewSubmission> submissions = new ArrayList<>(items.size());
+        for (SrsBatchReviewItem item : items) {
+            if (item != null && item.getCardId() != null) {
+                // Validate quality is in range 0-5
+                int quality = Math.max(0, Math.min(5, item.getQuality()));
+                submissions.add(new ReviewSubmission(item.getCardId(), quality, item.getReviewedAt()));
+            }
+        }
+        Iterator<ReviewOutcome> outcomes = srsService.processReviews(user, submissions).iterator();
+
+        List<SrsBatchReviewResult> results = new ArrayList<>(items.size());
+        int applied = 0;
+        for (SrsBatchReviewItem item : items) {
+            SrsBatchReviewResult result = new SrsBatchReviewResult();
+            if (item == null || item.getCardId() == null) {
+                result.setStatus("INVALID");
+            } else {
+                ReviewOutcome outcome = outcomes.next();
+                result.setCardId(outcome.cardId());
+                result.setStatus(outcome.status().name());
+                if (outcome.state() != null) {
+                    result.setNextReviewAt(outcome.state().nextReviewAt());
+                    result.setIntervalDays(outcome.state().intervalDays());
+                    result.setEaseFactor(outcome.state().easeFactor());
+                    result.setRepetitions(outcome.state().repetitions());
+                }
+                if (outcome.status() == ReviewOutcome.Status.APPLIED) {
+                    applied++;
+                }
+            }
+            results.add(result);
+        }
+
+        SrsBatchReviewResponse response = new SrsBatchReviewResponse();
+        response.setApplied(applied);
+        response.setResults(results);
+        return response;
+    }
+
+    /**
+     * Start a review session over today's queue, computed once with the same options as
+     * {@link #getReviewQueue}. The server keeps only the session's card ids and position; step through it
+     * with {@code GET /api/srs/session/{id}/next} and {@code POST /api/srs/session/{id}/answer}.
+     *
+     * @return The new session and its first card
+     */
+    @PostMapping("/api/srs/session")
+    public SrsSessionResponse startSession(
+            Authentication authentication,
+            @RequestParam(required = false) Long deckId,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Long seed) {
+
+        SrsQueueOrder queueOrder = parseOrder(order);
+
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        ReviewSession session = reviewSessionService.start(user,
+                srsDailyLimitService.queue(user, deckId, LocalDateTime.now(), queueOrder, seedOrRandom(seed)));
+        return toSessionResponse(session, reviewSessionService.current(user, session));
+    }
+
+    /**
+     * The session's current card, without moving the cursor; safe to repeat, e.g. after a reload.
+     */
+    @GetMapping("/api/srs/session/{id}/next")
+    public SrsSessionResponse getSessionCard(Authentication authentication, @PathVariable String id) {
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        ReviewSession session = findSession(user, id);
+        return toSessionResponse(session, reviewSessionService.current(user, session));
+    }
+
+    /**
+     * Review the session's current card and advance to the next one in a single call.
+     * Answering any other card is rejected with 409, so a retried request cannot review a card twice.
+     * Like {@link #processReview}, runs outside the controller transaction and open-in-view.
+     *
+     * @param request The current card's id and the quality rating (0-5)
+     * @return The session with its next card
+     */
+    @PostMapping("/api/srs/session/{id}/answer")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public SrsSessionResponse answerSessionCard(
+            Authentication authentication,
+            @PathVariable String id,
+            @RequestBody SrsReviewRequest request) {
+
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        ReviewSession session = findSession(user, id);
+
+        Card card = request.getCardId() == null ? null
+                : readOnlyTransaction.execute(status -> cardDAO.findById(request.getCardId()).orElse(null));
+        if (card == null || !card.getDeck().getUser().getId().equals(user.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Card not found");
+        }
+
+        int quality = Math.max(0, Math.min(5, request.getQuality()));
+        try {
+            reviewSessionService.answer(user, session, card, quality);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+
+        // No persistence context spans this method, so load everything the response serializes up front
+        return readOnlyTransaction.execute(status -> {
+            Optional<SrsQueueEntry> next = reviewSessionService.current(user, session);
+            next.ifPresent(entry -> Hibernate.initialize(entry.card().getTags()));
+            return toSessionResponse(session, next);
+        });
+    }
+
+    /**
+     * End a session early and free its slot in the session cache.
+     */
+    @DeleteMapping("/api/srs/session/{id}")
+    public void endSession(Authentication authentication, @PathVariable String id) {
+        if (authentication == null || authentication.getName() == null) {
+            return;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return;
+        }
+
+        reviewSessionService.end(findSession(user, id));
+    }
+
+    private ReviewSession findSession(User user, String id) {
+        return reviewSessionService.find(user, id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Review session not found or expired; start a new one"));
+    }
+
+    private static SrsSessionResponse toSessionResponse(ReviewSession session, Optional<SrsQueueEntry> current) {
+        SrsSessionResponse response = new SrsSessionResponse();
+        response.setSessionId(session.id());
+        response.setSize(session.size());
+        response.setPosition(session.position());
+        response.setCard(current.map(SrsController::toResponse).orElse(null));
+        return response;
+    }
+
     /**
      * Get SRS statistics for the authenticated user.
      *
@@ -249,46 +723,22 @@ public class SrsController {
             return new SrsStatsResponse();
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        List<UserCardSrs> allSrsRecords = userCardSrsDAO.findByUser(user);
+        reviewJournal.awaitProjected(user.getId());
 
+        LocalDateTime now = LocalDateTime.now();
         SrsStatsResponse stats = new SrsStatsResponse();
 
         if (deckId != null) {
-            Deck deck = deckDAO.findById(deckId).orElse(null);
-            if (deck == null || !deck.getUser().getId().equals(user.getId())) {
-                return new SrsStatsResponse();
-            }
-
-            // Collect card IDs for this deck
-            java.util.List<Card> deckCards = (java.util.List<Card>) cardDAO.findByDeck(deck);
-            java.util.Set<Long> deckCardIds = new java.util.HashSet<>();
-            for (Card c : deckCards) {
-                if (c.getId() != null) deckCardIds.add(c.getId());
-            }
-
-            long totalCards = deckCards.size();
-            long reviewedCards = allSrsRecords.stream()
-                    .filter(srs -> srs.getCard() != null && deckCardIds.contains(srs.getCard().getId()))
-                    .count();
-            long newCards = totalCards - reviewedCards;
-            long dueReviewed = allSrsRecords.stream()
-                    .filter(srs -> srs.getCard() != null && deckCardIds.contains(srs.getCard().getId()))
-                    .filter(srs -> srs.getNextReviewAt().isBefore(now) || srs.getNextReviewAt().isEqual(now))
-                    .count();
-
-            stats.setTotalCards(totalCards);
-            stats.setReviewedCards(reviewedCards);
-            stats.setNewCards(newCards);
-            stats.setDueCards(dueReviewed + newCards); // All new cards are also "due"
-            return stats;
+            // Decks the user does not own match nothing and come back as zeros
+            return userCardSrsDAO.countByDeck(user.getId(), List.of(deckId), now).stream()
+                    .findFirst()
+                    .map(counts -> toStats(counts, new SrsStatsResponse()))
+                    .orElseGet(SrsStatsResponse::new);
         } else {
             long totalCards = cardDAO.countByDeckUser(user);
-            long reviewedCards = allSrsRecords.size();
+            long reviewedCards = srsDueIndex.reviewedCount(user.getId());
             long newCards = totalCards - reviewedCards;
-            long dueCards = allSrsRecords.stream()
-                    .filter(srs -> srs.getNextReviewAt().isBefore(now) || srs.getNextReviewAt().isEqual(now))
-                    .count();
+            long dueCards = srsDueIndex.dueCount(user.getId(), now);
 
             stats.setTotalCards(totalCards);
             stats.setReviewedCards(reviewedCards);
@@ -299,6 +749,214 @@ public class SrsController {
         }
     }
 
+    private static SrsQueueOrder parseOrder(String order) {
+        if (order == null || order.isBlank()) {
+            return SrsQueueOrder.RETRIEVABILITY;
+        }
+        try {
+            return SrsQueueOrder.parse(order);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static Map<Long, Double> parseWeights(String weights) {
+        Map<Long, Double> parsed = new HashMap<>();
+        if (weights == null || weights.isBlank()) {
+            return parsed;
+        }
+        for (String pair : weights.split(",")) {
+            String[] parts = pair.trim().split(":");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                double weight = Double.parseDouble(parts[1].trim());
+                if (!(weight > 0) || Double.isInfinite(weight)) {
+                    throw new NumberFormatException();
+                }
+                parsed.put(Long.parseLong(parts[0].trim()), weight);
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Invalid deck weight '" + pair.trim() + "'; expected deckId:weight with a positive weight");
+            }
+        }
+        return parsed;
+    }
+
+    private static long seedOrRandom(Long seed) {
+        return seed != null ? seed : ThreadLocalRandom.current().nextLong();
+    }
+
+    private static SrsCardResponse toResponse(SrsQueueEntry entry) {
+        Card card = entry.card();
+        SrsCardResponse response = new SrsCardResponse();
+        response.setCard(card);
+
+        // Create DeckInfo to avoid circular reference issues
+        DeckInfo deckInfo = new DeckInfo();
+        deckInfo.setId(card.getDeck().getId());
+        deckInfo.setName(card.getDeck().getName());
+        deckInfo.setTemplateFront(card.getDeck().getTemplateFront());
+        deckInfo.setTemplateBack(card.getDeck().getTemplateBack());
+        response.setDeck(deckInfo);
+
+        if (entry.isNew()) {
+            response.setNew(true);
+            response.setRepetitions(0);
+        } else {
+            UserCardSrs srs = entry.srs();
+            response.setNew(false);
+            response.setNextReviewAt(srs.getNextReviewAt());
+            response.setIntervalDays(srs.getIntervalDays());
+            response.setRepetitions(srs.getRepetitions());
+        }
+        return response;
+    }
+
+    /**
+     * Get SRS statistics for several decks in one call, served from the maintained per-deck counters.
+     *
+     * @param authentication Spring Security authentication object
+     * @param deckIds Decks to report on; all of the user's decks when omitted
+     * @return One entry per requested deck owned by the user, in deck id order
+     */
+    @GetMapping("/api/srs/stats/decks")
+    public List<SrsDeckStatsResponse> getDeckStats(Authentication authentication,
+                                                   @RequestParam(required = false) List<Long> deckIds) {
+        if (authentication == null || authentication.getName() == null) {
+            return new ArrayList<>();
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return new ArrayList<>();
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        List<SrsDeckStatsResponse> stats = new ArrayList<>();
+        for (SrsDeckCounts counts : deckSrsCounterService.countsFor(user, deckIds, LocalDateTime.now())) {
+            SrsDeckStatsResponse response = new SrsDeckStatsResponse();
+            response.setDeckId(counts.deckId());
+            stats.add(toStats(counts, response));
+        }
+        stats.sort(Comparator.comparing(SrsDeckStatsResponse::getDeckId));
+        return stats;
+    }
+
+    /**
+     * Get the number of cards coming due on each of the next few days, for workload planning.
+     *
+     * @param authentication Spring Security authentication object
+     * @param days Number of days to forecast, starting today (1-{@value #MAX_FORECAST_DAYS})
+     * @param deckId Optional deck to forecast; all of the user's decks when omitted
+     * @return Due counts per day, plus the cards already overdue
+     */
+    @GetMapping("/api/srs/forecast")
+    public SrsForecastResponse getForecast(Authentication authentication,
+                                           @RequestParam(defaultValue = "" + DEFAULT_FORECAST_DAYS) int days,
+                                           @RequestParam(required = false) Long deckId) {
+        SrsForecastResponse response = new SrsForecastResponse();
+        response.setDays(new ArrayList<>());
+        if (authentication == null || authentication.getName() == null) {
+            return response;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return response;
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        // Decks the user does not own match nothing and come back as zeros
+        SrsForecast forecast = srsForecastService.forecast(user.getId(), deckId,
+                Math.max(1, Math.min(MAX_FORECAST_DAYS, days)), LocalDateTime.now());
+        response.setOverdueCards(forecast.overdueCards());
+        for (int i = 0; i < forecast.dueByDay().size(); i++) {
+            SrsForecastDay day = new SrsForecastDay();
+            day.setDate(forecast.startDate().plusDays(i));
+            day.setDueCards(forecast.dueByDay().get(i));
+            response.getDays().add(day);
+        }
+        return response;
+    }
+
+    /**
+     * Monte Carlo simulation of the review load over the coming days; see {@link SrsWorkloadSimulator}.
+     * Admins can pass {@code userId} to simulate another user. Runs outside the controller transaction and
+     * open-in-view, since simulating takes a while and needs no connection once the user's cards are loaded.
+     *
+     * @param seed Fixes the outcome; random if omitted
+     */
+    @GetMapping("/api/srs/forecast/simulation")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public SrsSimulationResponse getSimulatedForecast(
+            Authentication authentication,
+            @RequestParam(defaultValue = "" + DEFAULT_SIMULATION_DAYS) int days,
+            @RequestParam(defaultValue = "" + DEFAULT_SIMULATION_TRIALS) int trials,
+            @RequestParam(required = false) Long seed,
+            @RequestParam(required = false) Long userId) {
+
+        if (authentication == null || authentication.getName() == null) {
+            return null;
+        }
+
+        User user = userDAO.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        if (userId != null && !userId.equals(user.getId())) {
+            if (!isAdmin(authentication)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admins can simulate other users");
+            }
+            user = userDAO.findById(userId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        }
+
+        reviewJournal.awaitProjected(user.getId());
+
+        SrsWorkloadSimulation simulation = srsWorkloadSimulator.simulate(user,
+                Math.max(1, Math.min(MAX_SIMULATION_DAYS, days)),
+                Math.max(1, Math.min(MAX_SIMULATION_TRIALS, trials)),
+                seedOrRandom(seed), LocalDateTime.now().toLocalDate());
+
+        SrsSimulationResponse response = new SrsSimulationResponse();
+        response.setTrials(simulation.trials());
+        response.setReviewedCards(simulation.reviewedCards());
+        response.setNewCards(simulation.newCards());
+        response.setPeak(toBand(simulation.peak(), new SrsLoadBand()));
+        response.setDays(new ArrayList<>());
+        for (int i = 0; i < simulation.days().size(); i++) {
+            SrsSimulationDay day = toBand(simulation.days().get(i), new SrsSimulationDay());
+            day.setDate(simulation.startDate().plusDays(i));
+            response.getDays().add(day);
+        }
+        return response;
+    }
+
+    private static <T extends SrsLoadBand> T toBand(SrsWorkloadSimulation.LoadBand band, T target) {
+        target.setP5(band.p5());
+        target.setP25(band.p25());
+        target.setP50(band.p50());
+        target.setP75(band.p75());
+        target.setP95(band.p95());
+        return target;
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    }
+
+    private static <T extends SrsStatsResponse> T toStats(SrsDeckCounts counts, T stats) {
+        stats.setTotalCards(counts.totalCards());
+        stats.setReviewedCards(counts.reviewedCards());
+        stats.setNewCards(counts.newCards());
+        stats.setDueCards(counts.dueCards() + counts.newCards()); // All new cards are also "due"
+        return stats;
+    }
+
     // Inner class for stats response
     @Getter
     @lombok.Setter
@@ -308,4 +966,10 @@ public class SrsController {
         private long newCards;
         private long dueCards;
     }
+
+    @Getter
+    @lombok.Setter
+    public static class SrsDeckStatsResponse extends SrsStatsResponse {
+        private long deckId;
+    }
 }
@@ -0,0 +1,89 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkCardItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsRequest;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsResponse;
+import com.darkmusic.aiforgotthesecards.web.controller.CardController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code POST /api/card/bulk-save} creating new tagged cards, at several batch sizes, on top of a
+ * 10k-card collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkSaveBenchmarks {
+    private static final int CARDS = 10_000;
+
+    @Param({"h2", "sqlite"})
+    public String vendor;
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private PerfFixture fixture;
+    private CardController cardController;
+    private Deck deck;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = PerfFixture.start(vendor, CARDS);
+        cardController = fixture.bean(CardController.class);
+    }
+
+    /**
+     * Each iteration writes into a fresh deck, so the deck being filled stays small.
+     */
+    @Setup(Level.Iteration)
+    public void newDeck() {
+        deck = new Deck();
+        deck.setName("Bulk save " + System.nanoTime());
+        deck.setUser(fixture.user());
+        fixture.bean("deckDAO", DeckDAO.class).save(deck);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public BulkSaveCardsResponse createCards() {
+        List<BulkCardItem> items = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            int n = created++;
+            BulkCardItem item = new BulkCardItem();
+            item.setDeckId(deck.getId());
+            item.setFront("Bulk front " + n);
+            item.setBack("Bulk back " + n);
+            item.setTags(List.of("perf-tag-" + n % 50, "bulk-" + n % 7));
+            items.add(item);
+        }
+        BulkSaveCardsRequest request = new BulkSaveCardsRequest();
+        request.setCreate(items);
+        return cardController.bulkSave(request);
+    }
+}
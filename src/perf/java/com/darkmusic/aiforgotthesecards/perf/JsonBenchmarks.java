@@ -0,0 +1,83 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.web.contracts.DeckInfo;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsCardResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a review queue response. Uses the same Jackson defaults Spring Boot gives the app's
+ * message converters; no database is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmarks {
+    @Param({"100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<SrsCardResponse> queue;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+
+        DeckInfo deck = new DeckInfo();
+        deck.setId(1L);
+        deck.setName("Perf Deck");
+        deck.setTemplateFront("{{front}}");
+        deck.setTemplateBack("{{back}}");
+
+        queue = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Tag tag = new Tag();
+            tag.setId((long) i % 50);
+            tag.setName("perf-tag-" + i % 50);
+            Card card = new Card();
+            card.setId((long) i);
+            card.setFront("Front " + i);
+            card.setBack("Back of card " + i + " with a sentence or two of explanation.");
+            card.setTags(Set.of(tag));
+
+            SrsCardResponse response = new SrsCardResponse();
+            response.setCard(card);
+            response.setDeck(deck);
+            response.setNew(i % 10 == 0);
+            if (!response.isNew()) {
+                response.setNextReviewAt(now.minusHours(i));
+                response.setIntervalDays(1 + i % 60);
+                response.setRepetitions(1 + i % 8);
+            }
+            queue.add(response);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeReviewQueue() throws Exception {
+        return objectMapper.writeValueAsBytes(queue);
+    }
+}
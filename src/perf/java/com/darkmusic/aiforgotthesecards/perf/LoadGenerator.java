@@ -0,0 +1,361 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.migration.SyntheticDataService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates many users studying at once against a locally started application, one virtual thread per user.
+ *
+ * <p>For each vendor the application is started on an empty database ({@link PerfFixture#boot}) and filled by
+ * {@link SyntheticDataService}. Every simulated user then logs in through {@code /api/login}, fetches
+ * {@code /api/srs/review-queue}, grades the cards it got through {@code /api/srs/review} and polls
+ * {@code /api/srs/stats} every few reviews, until the run ends. A user whose queue is empty keeps polling the
+ * stats, so size the data for the run length. Users start evenly spread over the warm-up; only requests sent
+ * after it are counted, except logins, which all happen during the ramp-up.</p>
+ *
+ * <p>Arguments are {@code name=value} pairs, see {@link Settings}. For each vendor and endpoint the run
+ * reports request count, errors (non-2xx responses and failed connections), throughput and p50/p99/p999
+ * latencies, and writes the same figures to {@code target/load-result.json}.</p>
+ */
+public final class LoadGenerator {
+    private static final Path RESULT_FILE = Path.of("target", "load-result.json");
+    private static final String PREFIX = "load-";
+    private static final String PASSWORD = "load";
+    private static final String[] ENDPOINTS = {"login", "review-queue", "review", "stats"};
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LoadGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+        LoadGenerator generator = new LoadGenerator(settings);
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String vendor : settings.vendors()) {
+            results.addAll(generator.run(vendor));
+        }
+        Files.createDirectories(RESULT_FILE.toAbsolutePath().getParent());
+        generator.objectMapper.writerWithDefaultPrettyPrinter().writeValue(RESULT_FILE.toFile(), results);
+        System.out.println("Results written to " + RESULT_FILE);
+        // Stray Spring threads must not keep the JVM alive
+        System.exit(0);
+    }
+
+    private List<Map<String, Object>> run(String vendor) throws Exception {
+        System.out.printf("%n== %s: %d users, %s warm-up, %s measured ==%n",
+                vendor, settings.users(), settings.warmup(), settings.duration());
+        try (PerfFixture fixture = PerfFixture.boot(vendor,
+                // Simulated users study far more than a day's worth of cards
+                "aiforgot.srs.daily-limits.new-cards=1000000",
+                "aiforgot.srs.daily-limits.reviews=1000000")) {
+            SyntheticDataService.Summary data = new SyntheticDataService(fixture.bean(DataSource.class))
+                    .generate(new SyntheticDataService.Spec(settings.users(), settings.decksPerUser(),
+                            settings.cardsPerDeck(), 50, settings.historyDays(), 0.7, 42L,
+                            LocalDate.now().minusDays(settings.backlogDays()).atStartOfDay(), PREFIX, PASSWORD, 1000));
+            System.out.println("Generated " + data);
+
+            Map<String, EndpointStats> stats = new LinkedHashMap<>();
+            for (String endpoint : ENDPOINTS) {
+                stats.put(endpoint, new EndpointStats());
+            }
+            long start = System.nanoTime();
+            long measureFrom = start + settings.warmup().toNanos();
+            long deadline = measureFrom + settings.duration().toNanos();
+            URI base = URI.create("http://localhost:" + fixture.port());
+
+            try (HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build()) {
+                try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int i = 0; i < settings.users(); i++) {
+                        long startAt = start + settings.warmup().toNanos() * i / settings.users();
+                        users.submit(new SimulatedUser(client, base, PREFIX + "user-" + (i + 1), stats,
+                                startAt, measureFrom, deadline, new SplittableRandom(i)));
+                    }
+                }
+            }
+            return report(vendor, stats);
+        }
+    }
+
+    private List<Map<String, Object>> report(String vendor, Map<String, EndpointStats> stats) {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        System.out.printf("%-13s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        stats.forEach((endpoint, s) -> {
+            Histogram latencies = s.latencies;
+            long requests = latencies.getTotalCount();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("vendor", vendor);
+            row.put("endpoint", endpoint);
+            row.put("users", settings.users());
+            row.put("seconds", seconds);
+            row.put("requests", requests);
+            row.put("errors", s.errors.sum());
+            row.put("throughput", requests / seconds);
+            row.put("p50Ms", millis(latencies.getValueAtPercentile(50)));
+            row.put("p99Ms", millis(latencies.getValueAtPercentile(99)));
+            row.put("p999Ms", millis(latencies.getValueAtPercentile(99.9)));
+            row.put("maxMs", millis(latencies.getMaxValue()));
+            rows.add(row);
+            System.out.printf("%-13s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, requests, s.errors.sum(),
+                    row.get("throughput"), row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+        });
+        return rows;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Latencies in microseconds, and failures, of one endpoint.
+     */
+    private static final class EndpointStats {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * One user's session. Keeps its own cookies (session id) and CSRF token, so all users can share one client.
+     */
+    private final class SimulatedUser implements Runnable {
+        private final HttpClient client;
+        private final URI base;
+        private final String username;
+        private final Map<String, EndpointStats> stats;
+        private final long startAt;
+        private final long measureFrom;
+        private final long deadline;
+        private final SplittableRandom random;
+        private final Map<String, String> cookies = new HashMap<>();
+        private String csrfHeader;
+        private String csrfToken;
+
+        private SimulatedUser(HttpClient client, URI base, String username, Map<String, EndpointStats> stats,
+                              long startAt, long measureFrom, long deadline, SplittableRandom random) {
+            this.client = client;
+            this.base = base;
+            this.username = username;
+            this.stats = stats;
+            this.startAt = startAt;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            try {
+                TimeUnit.NANOSECONDS.sleep(startAt - System.nanoTime());
+                if (!login()) {
+                    return;
+                }
+                int reviews = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpResponse<String> queue = send("review-queue", get("/api/srs/review-queue"));
+                    List<Long> cardIds = queue == null ? List.of() : cardIds(queue.body());
+                    if (cardIds.isEmpty()) {
+                        send("stats", get("/api/srs/stats"));
+                        think();
+                        continue;
+                    }
+                    for (Long cardId : cardIds.subList(0, Math.min(cardIds.size(), settings.reviewsPerQueue()))) {
+                        if (System.nanoTime() >= deadline) {
+                            break;
+                        }
+                        send("review", post("/api/srs/review", "application/json",
+                                "{\"cardId\":" + cardId + ",\"quality\":" + (1 + random.nextInt(5)) + "}"));
+                        if (++reviews % settings.statsEvery() == 0) {
+                            send("stats", get("/api/srs/stats"));
+                        }
+                        think();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private boolean login() throws InterruptedException {
+            if (!fetchCsrf()) {
+                return false;
+            }
+            String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                    + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+            return send("login", post("/api/login", "application/x-www-form-urlencoded", form)) != null
+                    // Logging in replaces the session and its CSRF token
+                    && fetchCsrf();
+        }
+
+        private boolean fetchCsrf() throws InterruptedException {
+            HttpResponse<String> response = send(null, get("/api/csrf"));
+            if (response == null) {
+                return false;
+            }
+            try {
+                JsonNode token = objectMapper.readTree(response.body());
+                csrfHeader = token.path("headerName").asText();
+                csrfToken = token.path("token").asText();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private List<Long> cardIds(String body) {
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (JsonNode entry : objectMapper.readTree(body)) {
+                    ids.add(entry.path("card").path("id").asLong());
+                }
+                return ids;
+            } catch (IOException e) {
+                return List.of();
+            }
+        }
+
+        private void think() throws InterruptedException {
+            long millis = settings.thinkTime().toMillis();
+            if (millis > 0) {
+                Thread.sleep(random.nextLong(millis / 2, millis * 3 / 2 + 1));
+            }
+        }
+
+        private HttpRequest.Builder get(String path) {
+            return HttpRequest.newBuilder(base.resolve(path)).GET();
+        }
+
+        private HttpRequest.Builder post(String path, String contentType, String body) {
+            return HttpRequest.newBuilder(base.resolve(path))
+                    .header("Content-Type", contentType)
+                    .header(csrfHeader, csrfToken)
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+
+        /**
+         * Send a request with this user's cookies and record it against {@code endpoint} (unless {@code null}).
+         *
+         * @return the response, or {@code null} if it failed
+         */
+        private HttpResponse<String> send(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+            if (!cookies.isEmpty()) {
+                request.header("Cookie", String.join("; ", cookies.entrySet().stream()
+                        .map(c -> c.getKey() + "=" + c.getValue())
+                        .toList()));
+            }
+            long started = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request.timeout(Duration.ofMinutes(1)).build(),
+                        HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                response = null;
+            }
+            long finished = System.nanoTime();
+            boolean ok = response != null && response.statusCode() / 100 == 2;
+            // Logins all happen during the ramp-up, so they are always counted
+            boolean measured = started >= measureFrom || "login".equals(endpoint);
+            if (endpoint != null && measured && started < deadline) {
+                EndpointStats s = stats.get(endpoint);
+                if (response != null) {
+                    s.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(finished - started));
+                }
+                if (!ok) {
+                    s.errors.increment();
+                }
+            }
+            if (response == null) {
+                return null;
+            }
+            for (String setCookie : response.headers().allValues("set-cookie")) {
+                int eq = setCookie.indexOf('=');
+                int end = setCookie.indexOf(';');
+                cookies.put(setCookie.substring(0, eq), setCookie.substring(eq + 1, end < 0 ? setCookie.length() : end));
+            }
+            return ok ? response : null;
+        }
+    }
+
+    /**
+     * Run settings, from {@code name=value} arguments.
+     *
+     * @param vendors         comma-separated databases to run against ({@code vendors}, default {@code h2}); SQLite
+     *                        is only run when named, as it stalls at a handful of users (see Development.md)
+     * @param users           simulated users ({@code users}, default 1000)
+     * @param decksPerUser    generated decks per user ({@code decksPerUser}, default 2)
+     * @param cardsPerDeck    generated cards per deck ({@code cardsPerDeck}, default 250)
+     * @param historyDays     length of the generated review history ({@code historyDays}, default 90)
+     * @param backlogDays     days since the generated history ended, so that a backlog is due
+     *                        ({@code backlogDays}, default 7)
+     * @param warmup          ramp-up and warm-up time, not measured ({@code warmup}, default {@code PT30S})
+     * @param duration        measured time ({@code duration}, default {@code PT60S})
+     * @param thinkTime       average pause after each review ({@code thinkTime}, default {@code PT0.5S})
+     * @param reviewsPerQueue cards graded from each fetched queue before fetching it again
+     *                        ({@code reviewsPerQueue}, default 20)
+     * @param statsEvery      reviews between stats polls ({@code statsEvery}, default 10)
+     */
+    record Settings(List<String> vendors, int users, int decksPerUser, int cardsPerDeck, int historyDays,
+                    int backlogDays, Duration warmup, Duration duration, Duration thinkTime, int reviewsPerQueue, int statsEvery) {
+
+        static Settings parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq < 1) {
+                    throw new IllegalArgumentException("Expected name=value, got: " + arg);
+                }
+                values.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+            Settings settings = new Settings(
+                    List.of(values.getOrDefault("vendors", "h2").split(",")),
+                    Integer.parseInt(values.getOrDefault("users", "1000")),
+                    Integer.parseInt(values.getOrDefault("decksPerUser", "2")),
+                    Integer.parseInt(values.getOrDefault("cardsPerDeck", "250")),
+                    Integer.parseInt(values.getOrDefault("historyDays", "90")),
+                    Integer.parseInt(values.getOrDefault("backlogDays", "7")),
+                    Duration.parse(values.getOrDefault("warmup", "PT30S")),
+                    Duration.parse(values.getOrDefault("duration", "PT60S")),
+                    Duration.parse(values.getOrDefault("thinkTime", "PT0.5S")),
+                    Integer.parseInt(values.getOrDefault("reviewsPerQueue", "20")),
+                    Integer.parseInt(values.getOrDefault("statsEvery", "10")));
+            values.keySet().removeAll(List.of("vendors", "users", "decksPerUser", "cardsPerDeck", "historyDays",
+                    "backlogDays", "warmup", "duration", "thinkTime", "reviewsPerQueue", "statsEvery"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown settings: " + values.keySet());
+            }
+            return settings;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.AiForgotTheseCardsApplication;
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A running application on a fresh database, seeded with one user owning {@code cards} cards.
+ *
+ * <p>The {@code postgres} vendor needs a scratch database named by the {@code perf.postgres.url} system property
+ * (with {@code perf.postgres.username} and {@code perf.postgres.password}, both defaulting to {@code cards}).
+ * Its tables are dropped and recreated, so never point it at a database holding real data.</p>
+ *
+ * <p>Cards are spread over {@value #DECKS} decks and {@value #TAGS} tags. About 60% of them have been
+ * reviewed, with next reviews spread from 30 days ago to 60 days ahead, so roughly a fifth of the
+ * collection is due. The data is generated from a fixed seed, so every run benchmarks the same rows.</p>
+ */
+public final class PerfFixture implements AutoCloseable {
+    public static final String USERNAME = "perf";
+
+    private static final int DECKS = 10;
+    private static final int TAGS = 50;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final Path sqliteFile;
+    private final Authentication authentication;
+    private User user;
+    private final List<Deck> decks = new ArrayList<>();
+    private final List<Long> cardIds = new ArrayList<>();
+
+    private PerfFixture(ConfigurableApplicationContext context, Path sqliteFile) {
+        this.context = context;
+        this.sqliteFile = sqliteFile;
+        this.authentication = new UsernamePasswordAuthenticationToken(USERNAME, null, List.of());
+    }
+
+    /**
+     * Start the application on an empty database and seed it.
+     *
+     * @param vendor {@code h2}, {@code sqlite} or {@code postgres}
+     */
+    public static PerfFixture start(String vendor, int cards) throws Exception {
+        PerfFixture fixture = boot(vendor);
+        try {
+            fixture.seed(cards);
+        } catch (RuntimeException e) {
+            fixture.close();
+            throw e;
+        }
+        return fixture;
+    }
+
+    /**
+     * Start the application on an empty database without seeding it.
+     *
+     * @param vendor {@code h2}, {@code sqlite} or {@code postgres}
+     * @param extraProperties further Spring properties ({@code name=value}) for this run
+     */
+    public static PerfFixture boot(String vendor, String... extraProperties) throws Exception {
+        String name = "perf-" + UUID.randomUUID();
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "logging.level.root=warn",
+                "logging.level.org.hibernate.SQL=warn",
+                "spring.docker.compose.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false"));
+        Path sqliteFile = null;
+        switch (vendor) {
+            case "h2" -> properties.addAll(List.of(
+                    "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                    "spring.datasource.driverClassName=org.h2.Driver",
+                    "spring.datasource.username=sa",
+                    "spring.datasource.password="));
+            case "sqlite" -> {
+                sqliteFile = Path.of("target", "perf", name + ".db").toAbsolutePath();
+                Files.createDirectories(sqliteFile.getParent());
+                properties.addAll(List.of("DB_VENDOR=sqlite", "SQLITE_DB_PATH=" + sqliteFile));
+            }
+            case "postgres" -> {
+                String url = System.getProperty("perf.postgres.url", "");
+                if (url.isBlank()) {
+                    throw new IllegalStateException("Set -Dperf.postgres.url to a scratch database to run against Postgres");
+                }
+                properties.addAll(List.of(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + System.getProperty("perf.postgres.username", "cards"),
+                        "spring.datasource.password=" + System.getProperty("perf.postgres.password", "cards")));
+            }
+            default -> throw new IllegalArgumentException("Unknown vendor: " + vendor);
+        }
+        properties.addAll(List.of(extraProperties));
+        // DevTools would otherwise restart the application by re-running the caller's main method
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // As command line arguments, so they take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AiForgotTheseCardsApplication.class)
+                .run(properties.stream().map(p -> "--" + p).toArray(String[]::new));
+        return new PerfFixture(context, sqliteFile);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * For types registered more than once, such as the DAOs ({@code cardDAO} and {@code cardDAOImpl}).
+     */
+    public <T> T bean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    /**
+     * The HTTP port the embedded server listens on.
+     */
+    public int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    public TransactionTemplate transaction() {
+        return new TransactionTemplate(bean(PlatformTransactionManager.class));
+    }
+
+    public Authentication authentication() {
+        return authentication;
+    }
+
+    public User user() {
+        return user;
+    }
+
+    public List<Deck> decks() {
+        return decks;
+    }
+
+    public List<Long> cardIds() {
+        return cardIds;
+    }
+
+    private void seed(int cards) {
+        EntityManager em = bean(EntityManager.class);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Tag> tags = new ArrayList<>();
+
+        transaction().executeWithoutResult(status -> {
+            user = new User();
+            user.setUsername(USERNAME);
+            user.setName("Perf User");
+            user.setPassword_hash("not-used");
+            em.persist(user);
+            for (int i = 0; i < TAGS; i++) {
+                Tag tag = new Tag();
+                tag.setName("perf-tag-" + i);
+                em.persist(tag);
+                tags.add(tag);
+            }
+            for (int i = 0; i < DECKS; i++) {
+                Deck deck = new Deck();
+                deck.setName("Perf Deck " + i);
+                deck.setDescription("Benchmark deck " + i);
+                deck.setUser(user);
+                em.persist(deck);
+                decks.add(deck);
+            }
+        });
+
+        for (int start = 0; start < cards; start += CHUNK_SIZE) {
+            int end = Math.min(cards, start + CHUNK_SIZE);
+            int first = start;
+            transaction().executeWithoutResult(status -> {
+                User owner = em.getReference(User.class, user.getId());
+                for (int i = first; i < end; i++) {
+                    Card card = new Card();
+                    card.setFront("Front " + i);
+                    card.setBack("Back of card " + i + " with a sentence or two of explanation.");
+                    card.setDeck(em.getReference(Deck.class, decks.get(i % DECKS).getId()));
+                    Set<Tag> cardTags = new HashSet<>();
+                    for (int t = 0; t < 2; t++) {
+                        cardTags.add(em.getReference(Tag.class, tags.get(random.nextInt(TAGS)).getId()));
+                    }
+                    card.setTags(cardTags);
+                    em.persist(card);
+                    cardIds.add(card.getId());
+
+                    if (random.nextInt(10) < 6) {
+                        int interval = 1 + random.nextInt(60);
+                        UserCardSrs srs = new UserCardSrs();
+                        srs.setUser(owner);
+                        srs.setCard(card);
+                        srs.setIntervalDays(interval);
+                        srs.setEaseFactor(1.3f + random.nextFloat() * 1.5f);
+                        srs.setRepetitions(1 + random.nextInt(8));
+                        srs.setNextReviewAt(now.plusMinutes(random.nextInt(90 * 24 * 60) - 30 * 24 * 60L));
+                        srs.setLastReviewedAt(srs.getNextReviewAt().minusDays(interval));
+                        em.persist(srs);
+                    }
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        context.close();
+        if (sqliteFile != null) {
+            Files.deleteIfExists(sqliteFile);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the benchmarks and, given a baseline, fails when any of them got slower.
+ *
+ * <p>Arguments are regular JMH command line options (benchmark name patterns, {@code -p vendor=h2}, ...).
+ * Results are written to {@code target/jmh-result.json}. When the {@code perf.baseline} system property
+ * names an earlier result file, each benchmark present in both is compared and the process exits with
+ * status 1 if any score is worse by more than {@code perf.tolerance} (a fraction, default 0.15).</p>
+ */
+public final class PerfRunner {
+    private static final Path RESULT_FILE = Path.of("target", "jmh-result.json");
+
+    private PerfRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Files.createDirectories(RESULT_FILE.toAbsolutePath().getParent());
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        String baseline = System.getProperty("perf.baseline", "");
+        if (baseline.isBlank()) {
+            return;
+        }
+        double tolerance = Double.parseDouble(System.getProperty("perf.tolerance", "0.15"));
+        List<String> regressions = compare(Path.of(baseline), results, tolerance);
+        if (!regressions.isEmpty()) {
+            System.err.println("Benchmarks slower than baseline by more than " + Math.round(tolerance * 100) + "%:");
+            regressions.forEach(r -> System.err.println("  " + r));
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baseline);
+    }
+
+    static List<String> compare(Path baselineFile, Collection<RunResult> results, double tolerance) throws Exception {
+        Map<String, JsonNode> baseline = new HashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(baselineFile.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            node.path("params").properties().forEach(e -> params.put(e.getKey(), e.getValue().asText()));
+            baseline.put(key(node.path("benchmark").asText(), node.path("mode").asText(), params),
+                    node.path("primaryMetric"));
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            var params = result.getParams();
+            Map<String, String> values = new TreeMap<>();
+            for (String name : params.getParamsKeys()) {
+                values.put(name, params.getParam(name));
+            }
+            String key = key(params.getBenchmark(), params.getMode().shortLabel(), values);
+            JsonNode before = baseline.get(key);
+            if (before == null) {
+                continue;
+            }
+            double was = before.path("score").asDouble();
+            double now = result.getPrimaryResult().getScore();
+            // Throughput: higher is better. Every other mode measures time: lower is better.
+            double change = params.getMode().shortLabel().equals("thrpt") ? (was - now) / was : (now - was) / was;
+            if (change > tolerance) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s (%+.0f%%)", key, was, now,
+                        result.getPrimaryResult().getScoreUnit(), change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static String key(String benchmark, String mode, Map<String, String> params) {
+        return benchmark + " [" + mode + "] " + params;
+    }
+}
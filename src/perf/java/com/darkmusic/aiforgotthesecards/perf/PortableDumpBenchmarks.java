@@ -0,0 +1,78 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.migration.PortableDumpService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full portable dump export and import (truncate mode) of a whole database. Each operation takes
+ * seconds, so these are measured as single shots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PortableDumpBenchmarks {
+    @Param({"h2", "sqlite"})
+    public String vendor;
+
+    @Param({"10000", "100000"})
+    public int cards;
+
+    private PerfFixture fixture;
+    private PortableDumpService portableDumpService;
+    private Path dumpFile;
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = PerfFixture.start(vendor, cards);
+        portableDumpService = new PortableDumpService(fixture.bean(DataSource.class));
+        dumpFile = Files.createTempFile("perf-dump-", ".zip");
+        exportFile = Files.createTempFile("perf-export-", ".zip");
+        Files.delete(dumpFile);
+        portableDumpService.exportTo(dumpFile);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearExport() throws Exception {
+        Files.deleteIfExists(exportFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+        Files.deleteIfExists(dumpFile);
+        Files.deleteIfExists(exportFile);
+    }
+
+    @Benchmark
+    public Path exportTo() throws Exception {
+        portableDumpService.exportTo(exportFile);
+        return exportFile;
+    }
+
+    @Benchmark
+    public Path importFrom() throws Exception {
+        portableDumpService.importFrom(dumpFile, PortableDumpService.ImportMode.TRUNCATE);
+        return dumpFile;
+    }
+}
@@ -0,0 +1,86 @@
+package com.darkmusic.aiforgotthesecards.perf;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import com.darkmusic.aiforgotthesecards.web.contracts.SrsCardResponse;
+import com.darkmusic.aiforgotthesecards.web.controller.SrsController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The review hot paths: grading one card, loading the review queue and loading the stats, against
+ * collections of 1k, 10k and 100k cards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SrsBenchmarks {
+    @Param({"h2", "sqlite"})
+    public String vendor;
+
+    @Param({"1000", "10000", "100000"})
+    public int cards;
+
+    private PerfFixture fixture;
+    private SrsService srsService;
+    private SrsController srsController;
+    private List<Card> reviewCards;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = PerfFixture.start(vendor, cards);
+        srsService = fixture.bean(SrsService.class);
+        srsController = fixture.bean(SrsController.class);
+        CardDAO cardDAO = fixture.bean("cardDAO", CardDAO.class);
+        reviewCards = fixture.transaction().execute(status -> fixture.cardIds().stream()
+                .limit(1000)
+                .map(id -> cardDAO.findById(id).orElseThrow())
+                .toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public UserCardSrs processReview() {
+        Card card = reviewCards.get(next++ % reviewCards.size());
+        return srsService.processReview(fixture.user(), card, 1 + next % 5);
+    }
+
+    @Benchmark
+    public List<SrsCardResponse> getReviewQueue() {
+        return srsController.getReviewQueue(fixture.authentication(), null, null, null);
+    }
+
+    @Benchmark
+    public Object getStats() {
+        return srsController.getStats(fixture.authentication(), null);
+    }
+
+    @Benchmark
+    public Object getDeckStats() {
+        return srsController.getStats(fixture.authentication(), fixture.decks().get(0).getId());
+    }
+}
@@ -1,13 +1,38 @@
 package com.darkmusic.aiforgotthesecards;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.WebRequestHandlerInterceptorAdapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @TestPropertySource("/application-test.properties")
 class AiForgotTheseCardsApplicationTests {
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private HandlerMapping handlerMapping;
+
     @Test
     void contextLoads() {
     }
+
+    @Test
+    void openInViewIsLeftOffForReviewWrites() throws Exception {
+        assertEquals(1, openInViewInterceptors("GET", "/api/srs/stats"));
+        assertEquals(0, openInViewInterceptors("POST", "/api/srs/review"));
+        assertEquals(0, openInViewInterceptors("POST", "/api/srs/review/batch"));
+        assertEquals(0, openInViewInterceptors("POST", "/api/srs/session/abc/answer"));
+    }
+
+    private long openInViewInterceptors(String method, String path) throws Exception {
+        return handlerMapping.getHandler(new MockHttpServletRequest(method, path)).getInterceptorList().stream()
+                .filter(WebRequestHandlerInterceptorAdapter.class::isInstance)
+                .count();
+    }
 }
@@ -1,13 +1,33 @@
 package com.darkmusic.aiforgotthesecards;
 
 import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.*;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportFormat;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportService;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkCardItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsRequest;
+import com.darkmusic.aiforgotthesecards.web.contracts.CardListItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.CardPage;
+import com.darkmusic.aiforgotthesecards.web.controller.CardController;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @TestPropertySource("/application-test.properties")
@@ -27,6 +47,15 @@ public class CardDAOTests {
     @Autowired
     private ThemeDAO themeDAO;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CardController cardController;
+
+    @Autowired
+    private CardImportService cardImportService;
+
     static Card createCard(CardDAO cardDAO, DeckDAO deckDAO, UserDAO userDAO, TagDAO tagDAO, ThemeDAO themeDAO) {
         var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
         var tag = TagDAOTests.createTag(tagDAO);
@@ -44,4 +73,147 @@ public class CardDAOTests {
         System.out.println("Testing card creation");
         createCard(cardDAO, deckDAO, userDAO, tagDAO, themeDAO);
     }
+
+    @Test
+    void persistsAndDeletesCardsInBulk() {
+        var first = createCard(cardDAO, deckDAO, userDAO, tagDAO, themeDAO);
+        var deck = first.getDeck();
+        var tags = first.getTags();
+        var transaction = new TransactionTemplate(transactionManager);
+
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            var card = new Card();
+            card.setFront("Bulk " + i);
+            card.setDeck(deck);
+            card.setTags(new HashSet<>(tags));
+            cards.add(card);
+        }
+        transaction.executeWithoutResult(status -> cardDAO.persistAll(cards, 50));
+        assertTrue(cards.stream().allMatch(c -> c.getId() != null));
+        assertEquals(121, ((List<Card>) cardDAO.findByDeck(deck)).size());
+
+        List<Long> ids = new ArrayList<>(cards.stream().map(Card::getId).toList());
+        ids.add(first.getId());
+        ids.add(Long.MAX_VALUE);
+        assertEquals(Integer.valueOf(121), transaction.execute(status -> cardDAO.deleteByIds(ids)));
+        assertEquals(0, ((List<Card>) cardDAO.findByDeck(deck)).size());
+        assertTrue(tagDAO.findById(tags.iterator().next().getId()).isPresent());
+    }
+
+    @Test
+    void bulkSaveDeletesUpdatesAndCreatesInOneRequest() {
+        var kept = createCard(cardDAO, deckDAO, userDAO, tagDAO, themeDAO);
+        var deck = kept.getDeck();
+        var doomed = createCard(cardDAO, deckDAO, userDAO, tagDAO, themeDAO);
+        var target = doomed.getDeck();
+
+        var update = new BulkCardItem();
+        update.setId(kept.getId());
+        update.setDeckId(target.getId());
+        update.setFront("Moved");
+        update.setTags(List.of("bulk-moved"));
+        List<BulkCardItem> creates = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            var item = new BulkCardItem();
+            item.setDeckId(deck.getId());
+            item.setFront("Generated " + i);
+            item.setTags(List.of("bulk-generated"));
+            creates.add(item);
+        }
+        var request = new BulkSaveCardsRequest();
+        request.setDeleteIds(List.of(doomed.getId()));
+        request.setUpdate(List.of(update));
+        request.setCreate(creates);
+
+        // More than one flush chunk of new cards
+        var response = cardController.bulkSave(request);
+
+        assertEquals(1200, response.getCreated());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getDeleted());
+        assertTrue(cardDAO.findById(doomed.getId()).isEmpty());
+        assertEquals(1200, ((List<Card>) cardDAO.findByDeck(deck)).size());
+        var moved = (List<Card>) cardDAO.findByDeckWithTags(target);
+        assertEquals(1, moved.size());
+        assertEquals("Moved", moved.get(0).getFront());
+        assertEquals("bulk-moved", moved.get(0).getTags().iterator().next().getName());
+    }
+
+    @Test
+    void importCommitsInChunksAndResumesFromTheLastCommittedOffset() throws Exception {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            // A broken row in the third chunk
+            rows.append(i == 1100 ? "{\"front\": " : "{\"front\": \"Word " + i + "\", \"back\": \"Mot " + i
+                    + "\", \"tags\": [\"import-vocab\"]}").append('\n');
+        }
+        List<Long> offsets = new ArrayList<>();
+
+        assertThrows(IOException.class, () -> cardImportService.importCards(deck, CardImportFormat.NDJSON,
+                new ByteArrayInputStream(rows.toString().getBytes(StandardCharsets.UTF_8)), false, 0,
+                progress -> offsets.add(progress.offset())));
+
+        // The chunks before the broken row stay committed
+        assertEquals(List.of(500L, 1000L), offsets);
+        assertEquals(1000, ((List<Card>) cardDAO.findByDeck(deck)).size());
+
+        String fixed = rows.toString().replace("{\"front\": \n", "{\"front\": \"Word 1100\", \"tags\": [\"import-vocab\"]}\n");
+        var done = cardImportService.importCards(deck, CardImportFormat.NDJSON,
+                new ByteArrayInputStream(fixed.getBytes(StandardCharsets.UTF_8)), false, 1000, progress -> { });
+
+        assertEquals(new CardImportService.Progress(1200, 200), done);
+        var cards = (List<Card>) cardDAO.findByDeckWithTags(deck);
+        assertEquals(1200, cards.size());
+        assertEquals(1200, cards.stream().map(Card::getFront).distinct().count());
+        assertTrue(cards.stream().allMatch(c -> c.getTags().size() == 1
+                && "import-vocab".equals(c.getTags().iterator().next().getName())));
+    }
+
+    @Test
+    void importReadsCsvRows() throws Exception {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        String csv = "front,back,tags\r\n" +
+                "chat,cat,animals;import-csv\r\n" +
+                "\"\"\"oui\"\", dit-il\",\"yes,\nhe said\"\r\n";
+
+        var done = cardImportService.importCards(deck, CardImportFormat.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), true, 0, progress -> { });
+
+        assertEquals(new CardImportService.Progress(2, 2), done);
+        var cards = (List<Card>) cardDAO.findByDeckWithTags(deck);
+        var chat = cards.stream().filter(c -> c.getFront().equals("chat")).findFirst().orElseThrow();
+        assertEquals(Set.of("animals", "import-csv"),
+                chat.getTags().stream().map(Tag::getName).collect(Collectors.toSet()));
+        var quoted = cards.stream().filter(c -> c.getBack().equals("yes,\nhe said")).findFirst().orElseThrow();
+        assertEquals("\"oui\", dit-il", quoted.getFront());
+    }
+
+    @Test
+    void listsCardPagesInIdOrderWithOnlyTheSelectedFields() throws Exception {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            rows.append("{\"front\": \"Page " + i + "\", \"back\": \"Back " + i + "\", \"tags\": [\"page-b\", \"page-a\"]}\n");
+        }
+        cardImportService.importCards(deck, CardImportFormat.NDJSON,
+                new ByteArrayInputStream(rows.toString().getBytes(StandardCharsets.UTF_8)), false, 0, progress -> { });
+
+        CardPage first = cardController.getCardPageByDeck(deck.getId(), null, 3, List.of("id", "front"));
+        assertEquals(List.of("Page 0", "Page 1", "Page 2"), first.getItems().stream().map(CardListItem::getFront).toList());
+        assertTrue(first.getItems().stream().allMatch(item -> item.getId() != null && item.getBack() == null
+                && item.getDeckId() == null && item.getTags() == null));
+        assertEquals(first.getItems().get(2).getId(), first.getNextCursor());
+
+        CardPage second = cardController.getCardPageByUser(deck.getUser().getId(), first.getNextCursor(), 3, null);
+        assertEquals(List.of("Page 3", "Page 4"), second.getItems().stream().map(CardListItem::getFront).toList());
+        assertEquals("Back 3", second.getItems().get(0).getBack());
+        assertEquals(deck.getId(), second.getItems().get(0).getDeckId());
+        assertEquals(List.of("page-a", "page-b"), second.getItems().get(0).getTags());
+        assertNull(second.getNextCursor());
+
+        assertThrows(ResponseStatusException.class,
+                () -> cardController.getCardPageByDeck(deck.getId(), null, 3, List.of("id", "answer")));
+    }
 }
@@ -1,13 +1,37 @@
 package com.darkmusic.aiforgotthesecards;
 
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
 import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.*;
+import com.darkmusic.aiforgotthesecards.business.entities.services.AnkiImportJob;
+import com.darkmusic.aiforgotthesecards.business.entities.services.AnkiImportService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @TestPropertySource("/application-test.properties")
@@ -24,6 +48,15 @@ public class DeckDAOTests {
     @Autowired
     private ThemeDAO themeDAO;
 
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private UserCardSrsDAO userCardSrsDAO;
+
+    @Autowired
+    private AnkiImportService ankiImportService;
+
     static Deck createDeck(DeckDAO deckDAO, UserDAO userDAO, TagDAO tagDAO, ThemeDAO themeDAO) {
         var user = UserDAOTests.createUser(userDAO, themeDAO);
         var tag = TagDAOTests.createTag(tagDAO);
@@ -41,4 +74,103 @@ public class DeckDAOTests {
         System.out.println("Testing deck creation");
         createDeck(deckDAO, userDAO, tagDAO, themeDAO);
     }
+
+    @Test
+    void importsAnkiPackageIntoDecksCardsTagsAndSrsRecords(@TempDir Path dir) throws Exception {
+        var user = UserDAOTests.createUser(userDAO, themeDAO);
+        LocalDate today = LocalDate.now();
+        long created = today.minusDays(100).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        byte[] apkg = ankiPackage(dir.resolve("collection.anki21"), created);
+
+        AnkiImportJob job = ankiImportService.submit(user, new ByteArrayInputStream(apkg));
+        for (int i = 0; i < 300 && job.state() != AnkiImportJob.State.DONE; i++) {
+            assertNotEquals(AnkiImportJob.State.FAILED, job.state(), job.message());
+            Thread.sleep(100);
+        }
+
+        assertEquals(AnkiImportJob.State.DONE, job.state());
+        assertEquals(1203, job.cards());
+        assertEquals(1203, job.importedCards());
+        assertEquals(2, job.importedReviews());
+        Map<String, Deck> decks = ((List<Deck>) deckDAO.findByUser(user)).stream()
+                .collect(Collectors.toMap(Deck::getName, Function.identity()));
+        assertEquals(Set.of("French::Vocab", "Geography"), decks.keySet());
+        assertEquals(Set.copyOf(job.deckIds()), decks.values().stream().map(Deck::getId).collect(Collectors.toSet()));
+        assertEquals("{{Front}}", decks.get("French::Vocab").getTemplateFront());
+
+        var vocab = (List<Card>) cardDAO.findByDeckWithTags(decks.get("French::Vocab"));
+        assertEquals(1201, vocab.size());
+        Card chat = vocab.stream().filter(c -> c.getFront().equals("chat")).findFirst().orElseThrow();
+        assertEquals("cat", chat.getBack());
+        assertEquals(Set.of("animals", "anki-fr"), chat.getTags().stream().map(Tag::getName).collect(Collectors.toSet()));
+        UserCardSrs srs = userCardSrsDAO.findByUserAndCard(user, chat).orElseThrow();
+        assertEquals(today.plusDays(5), srs.getNextReviewAt().toLocalDate());
+        assertEquals(30, srs.getIntervalDays());
+        assertEquals(2.3f, srs.getEaseFactor(), 0.001f);
+        assertEquals(3, srs.getRepetitions());
+
+        var geography = (List<Card>) cardDAO.findByDeckWithTags(decks.get("Geography"));
+        assertEquals(Set.of("<span class=\"cloze\">[...]</span> is the capital of France",
+                        "Paris is the capital of <span class=\"cloze\">[...]</span>"),
+                geography.stream().map(Card::getFront).collect(Collectors.toSet()));
+        assertEquals(1, geography.stream().filter(c -> userCardSrsDAO.findByUserAndCard(user, c).isPresent()).count());
+    }
+
+    /**
+     * A minimal .apkg: a basic and a cloze note type, a deck without cards, one reviewed vocabulary card plus
+     * 1200 new ones, and a cloze note with one new card and one in learning.
+     */
+    private static byte[] ankiPackage(Path collection, long created) throws Exception {
+        try (Connection anki = DriverManager.getConnection("jdbc:sqlite:" + collection);
+             Statement statement = anki.createStatement()) {
+            statement.executeUpdate("create table col (id integer primary key, crt integer, models text, decks text)");
+            statement.executeUpdate("create table notes (id integer primary key, mid integer, tags text, flds text)");
+            statement.executeUpdate("create table cards (id integer primary key, nid integer, did integer, "
+                    + "odid integer, ord integer, type integer, due integer, odue integer, ivl integer, factor integer)");
+            statement.executeUpdate("create table revlog (id integer primary key, cid integer, ease integer, type integer)");
+            String models = """
+                    {"1": {"name": "Basic", "type": 0, "flds": [{"name": "Back", "ord": 1}, {"name": "Front", "ord": 0}],
+                           "tmpls": [{"ord": 0, "qfmt": "{{Front}}", "afmt": "{{FrontSide}}<hr id=answer>{{Back}}"}]},
+                     "2": {"name": "Cloze", "type": 1, "flds": [{"name": "Text", "ord": 0}, {"name": "Extra", "ord": 1}],
+                           "tmpls": [{"ord": 0, "qfmt": "{{cloze:Text}}", "afmt": "{{cloze:Text}}<br>{{Extra}}"}]}}""";
+            String decks = """
+                    {"10": {"name": "Default"}, "20": {"name": "French::Vocab"}, "30": {"name": "Geography"}}""";
+            try (PreparedStatement col = anki.prepareStatement("insert into col values (1, ?, ?, ?)")) {
+                col.setLong(1, created);
+                col.setString(2, models);
+                col.setString(3, decks);
+                col.executeUpdate();
+            }
+            statement.executeUpdate("insert into notes values (1, 1, ' animals anki-fr ', 'chat' || char(31) || 'cat')");
+            statement.executeUpdate("insert into cards values (1001, 1, 20, 0, 0, 2, 105, 0, 30, 2300)");
+            statement.executeUpdate("insert into revlog values (1, 1001, 3, 0), (2, 1001, 1, 1), (3, 1001, 3, 1), "
+                    + "(4, 1001, 3, 1), (5, 1001, 4, 1)");
+            statement.executeUpdate("insert into notes values (2, 2, '', "
+                    + "'{{c1::Paris}} is the capital of {{c2::France}}' || char(31) || '')");
+            statement.executeUpdate("insert into cards values (2001, 2, 30, 0, 0, 0, 1, 0, 0, 0), "
+                    + "(2002, 2, 30, 0, 1, 1, " + (created + 100 * 86400L + 600) + ", 0, 0, 2500)");
+            try (PreparedStatement note = anki.prepareStatement("insert into notes values (?, 1, '', ?)");
+                 PreparedStatement card = anki.prepareStatement(
+                         "insert into cards values (?, ?, 20, 0, 0, 0, ?, 0, 0, 0)")) {
+                for (int i = 0; i < 1200; i++) {
+                    note.setLong(1, 10 + i);
+                    note.setString(2, "mot " + i + "\u001fword " + i);
+                    note.executeUpdate();
+                    card.setLong(1, 3000 + i);
+                    card.setLong(2, 10 + i);
+                    card.setLong(3, i);
+                    card.executeUpdate();
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("collection.anki21"));
+            Files.copy(collection, zip);
+            zip.putNextEntry(new ZipEntry("media"));
+            zip.write("{}".getBytes());
+        }
+        return bytes.toByteArray();
+    }
 }
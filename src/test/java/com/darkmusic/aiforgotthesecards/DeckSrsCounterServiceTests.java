@@ -0,0 +1,133 @@
+package com.darkmusic.aiforgotthesecards;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.*;
+import com.darkmusic.aiforgotthesecards.business.entities.services.DeckSrsCounterService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewJournal;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSubmission;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsDueIndex;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource("/application-test.properties")
+public class DeckSrsCounterServiceTests {
+    @Autowired
+    private DeckSrsCounterService deckSrsCounterService;
+
+    @Autowired
+    private DeckSrsCounterDAO deckSrsCounterDAO;
+
+    @Autowired
+    private SrsService srsService;
+
+    @Autowired
+    private ReviewJournal reviewJournal;
+
+    @Autowired
+    private SrsDueIndex srsDueIndex;
+
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private DeckDAO deckDAO;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private TagDAO tagDAO;
+
+    @Autowired
+    private ThemeDAO themeDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void countersFollowReviewsAndCardChanges() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var reviewed = UserCardSrsDAOTests.createCard(cardDAO, deck, "reviewed");
+        UserCardSrsDAOTests.createCard(cardDAO, deck, "fresh");
+
+        var counts = deckSrsCounterService.countsFor(user, null, LocalDateTime.now()).get(0);
+        assertEquals(2, counts.totalCards());
+        assertEquals(0, counts.reviewedCards());
+        assertEquals(0, counts.dueCards());
+
+        // Failed ten days ago, so due again nine days ago
+        srsService.processReviews(user, List.of(new ReviewSubmission(reviewed.getId(), 1, LocalDateTime.now().minusDays(10))));
+        reviewJournal.awaitProjected(user.getId());
+        UserCardSrsDAOTests.createCard(cardDAO, deck, "added");
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> deckSrsCounterService.cardsAdded(deck, 1));
+
+        counts = deckSrsCounterService.countsFor(user, List.of(deck.getId()), LocalDateTime.now()).get(0);
+        assertEquals(3, counts.totalCards());
+        assertEquals(1, counts.reviewedCards());
+        assertEquals(1, counts.dueCards());
+
+        transaction.executeWithoutResult(status -> {
+            var card = cardDAO.findById(reviewed.getId()).orElseThrow();
+            deckSrsCounterService.removeCards(List.of(card));
+            cardDAO.delete(card);
+        });
+
+        counts = deckSrsCounterService.countsFor(user, null, LocalDateTime.now()).get(0);
+        assertEquals(2, counts.totalCards());
+        assertEquals(0, counts.reviewedCards());
+        assertEquals(0, counts.dueCards());
+    }
+
+    @Test
+    void dueIndexKeepsCardsWhoseRemovalRollsBack() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var reviewed = UserCardSrsDAOTests.createCard(cardDAO, deck, "kept");
+        srsService.processReview(user, reviewed, 4);
+        assertEquals(1, srsDueIndex.reviewedCount(user.getId()));
+
+        var transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            deckSrsCounterService.removeCards(List.of(cardDAO.findById(reviewed.getId()).orElseThrow()));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, srsDueIndex.reviewedCount(user.getId()));
+
+        transaction.executeWithoutResult(status -> {
+            var card = cardDAO.findById(reviewed.getId()).orElseThrow();
+            deckSrsCounterService.removeCards(List.of(card));
+            cardDAO.delete(card);
+        });
+        assertEquals(0, srsDueIndex.reviewedCount(user.getId()));
+    }
+
+    @Test
+    void reconcileRepairsDrift() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        UserCardSrsDAOTests.createCard(cardDAO, deck, "counted");
+        deckSrsCounterService.countsFor(user, null, LocalDateTime.now());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                deckSrsCounterDAO.applyDelta(user.getId(), deck.getId(), LocalDate.now(), 5, 2, 0, 0));
+        assertEquals(6, deckSrsCounterService.countsFor(user, null, LocalDateTime.now()).get(0).totalCards());
+
+        deckSrsCounterService.reconcile();
+        var counts = deckSrsCounterService.countsFor(user, null, LocalDateTime.now()).get(0);
+        assertEquals(1, counts.totalCards());
+        assertEquals(0, counts.reviewedCards());
+    }
+}
@@ -0,0 +1,424 @@
+package com.darkmusic.aiforgotthesecards;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.*;
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewJournal;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewOutcome;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSessionService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSubmission;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsDailyLimitService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsForecastService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsQueueOrder;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsWorkloadSimulator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource("/application-test.properties")
+public class SrsServiceTests {
+    @Autowired
+    private SrsService srsService;
+
+    @Autowired
+    private ReviewJournal reviewJournal;
+
+    @Autowired
+    private SrsForecastService srsForecastService;
+
+    @Autowired
+    private SrsDailyLimitService srsDailyLimitService;
+
+    @Autowired
+    private ReviewSessionService reviewSessionService;
+
+    @Autowired
+    private SrsWorkloadSimulator srsWorkloadSimulator;
+
+    @Autowired
+    private UserCardSrsDAO userCardSrsDAO;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReviewLogDAO reviewLogDAO;
+
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private DeckDAO deckDAO;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private TagDAO tagDAO;
+
+    @Autowired
+    private ThemeDAO themeDAO;
+
+    @Test
+    void batchAppliesReviewsInOrderWithPerItemResults() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "batch");
+        var other = UserCardSrsDAOTests.createCard(cardDAO, DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO), "foreign");
+        var start = LocalDateTime.now().minusDays(10);
+
+        List<ReviewOutcome> outcomes = srsService.processReviews(user, List.of(
+                new ReviewSubmission(card.getId(), 4, start),
+                new ReviewSubmission(card.getId(), 4, start.plusDays(1)),
+                new ReviewSubmission(other.getId(), 5, start),
+                new ReviewSubmission(Long.MAX_VALUE, 5, start),
+                new ReviewSubmission(card.getId(), 1, start.minusDays(1))));
+
+        assertEquals(List.of(ReviewOutcome.Status.APPLIED, ReviewOutcome.Status.APPLIED, ReviewOutcome.Status.FORBIDDEN,
+                        ReviewOutcome.Status.NOT_FOUND, ReviewOutcome.Status.STALE),
+                outcomes.stream().map(ReviewOutcome::status).toList());
+
+        reviewJournal.awaitProjected(user.getId());
+        var srs = userCardSrsDAO.findByUserAndCard(user, card).orElseThrow();
+        assertEquals(2, srs.getRepetitions());
+        assertEquals(6, srs.getIntervalDays());
+        assertEquals(start.plusDays(7).withNano(0), srs.getNextReviewAt().withNano(0));
+        assertTrue(userCardSrsDAO.findByUserAndCard(user, other).isEmpty());
+    }
+
+    @Test
+    void replayedBatchIsNotAppliedTwice() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "replayed");
+        var reviewedAt = LocalDateTime.now().minusHours(1);
+        List<ReviewSubmission> batch = List.of(new ReviewSubmission(card.getId(), 4, reviewedAt));
+
+        var first = srsService.processReviews(user, batch).get(0);
+        // A client that timed out sends the same batch again
+        var replayed = srsService.processReviews(user, batch).get(0);
+
+        assertEquals(ReviewOutcome.Status.APPLIED, first.status());
+        assertEquals(ReviewOutcome.Status.STALE, replayed.status());
+        assertEquals(first.state(), replayed.state());
+        assertEquals(1, reviewLogDAO.findByUserId(user.getId()).size());
+        reviewJournal.awaitProjected(user.getId());
+        assertEquals(1, userCardSrsDAO.findByUserAndCard(user, card).orElseThrow().getRepetitions());
+    }
+
+    @Test
+    void reviewsAreLoggedWithBeforeAndAfterState() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "logged");
+
+        srsService.processReview(user, card, 5);
+        srsService.processReview(user, card, 1);
+
+        List<ReviewLog> history = reviewLogDAO.findByUserId(user.getId());
+        assertEquals(2, history.size());
+        var first = history.get(0);
+        assertEquals(card.getId(), first.getCardId());
+        assertNull(first.getIntervalBefore());
+        assertEquals(1, first.getIntervalAfter());
+        var second = history.get(1);
+        assertEquals(5, first.getQuality());
+        assertEquals(1, second.getQuality());
+        assertEquals(first.getEaseAfter(), second.getEaseBefore());
+        assertEquals(1, second.getRepetitionsBefore());
+        assertEquals(0, second.getRepetitionsAfter());
+
+        // The second review was computed from the first one's state even if it was not projected yet
+        reviewJournal.awaitProjected(user.getId());
+        var srs = userCardSrsDAO.findByUserAndCard(user, card).orElseThrow();
+        assertEquals(0, srs.getRepetitions());
+        assertEquals(second.getEaseAfter(), srs.getEaseFactor());
+        assertTrue(reviewJournal.pendingState(user.getId(), card.getId()).isEmpty());
+    }
+
+    @Test
+    void singleReviewReturnsTheSavedRecord() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "saved");
+
+        var first = srsService.processReview(user, card, 5);
+        assertNotNull(first.getId());
+        assertEquals(0, first.getVersion());
+        assertEquals(1, first.getRepetitions());
+
+        var second = srsService.processReview(user, card, 4);
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, second.getVersion());
+        assertEquals(2, second.getRepetitions());
+        assertEquals(card.getId(), second.getCard().getId());
+    }
+
+    @Test
+    void concurrentReviewsOfOneUserApplyOneAtATime() throws Exception {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "concurrent");
+        var waitsBefore = meterRegistry.find("srs.review.lock.wait").timers().stream().mapToLong(Timer::count).sum();
+
+        int reviews = 12;
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < reviews; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return srsService.processReview(user, card, 4);
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        // Every review saw the state the previous one left behind, so none were lost
+        List<ReviewLog> history = reviewLogDAO.findByUserId(user.getId());
+        assertEquals(reviews, history.size());
+        for (int i = 0; i < reviews; i++) {
+            assertEquals(i == 0 ? null : i, history.get(i).getRepetitionsBefore());
+            assertEquals(i + 1, history.get(i).getRepetitionsAfter());
+        }
+        reviewJournal.awaitProjected(user.getId());
+        assertEquals(reviews, userCardSrsDAO.findByUserAndCard(user, card).orElseThrow().getRepetitions());
+        assertEquals(waitsBefore + reviews,
+                meterRegistry.find("srs.review.lock.wait").timers().stream().mapToLong(Timer::count).sum());
+    }
+
+    @Test
+    void forecastIsRefreshedAfterReview() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var card = UserCardSrsDAOTests.createCard(cardDAO, deck, "forecast");
+        var now = LocalDateTime.now();
+
+        var before = srsForecastService.forecast(user.getId(), deck.getId(), 3, now);
+        assertEquals(List.of(0L, 0L, 0L), before.dueByDay());
+
+        srsService.processReview(user, card, 4);
+        reviewJournal.awaitProjected(user.getId());
+
+        var after = srsForecastService.forecast(user.getId(), deck.getId(), 3, now);
+        assertEquals(now.toLocalDate(), after.startDate());
+        assertEquals(0, after.overdueCards());
+        assertEquals(1, after.dueByDay().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void queueStopsAtDailyLimits() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        user.setNewCardsPerDay(2);
+        user.setReviewsPerDay(1);
+        userDAO.save(user);
+        var now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            UserCardSrsDAOTests.createCard(cardDAO, deck, "new" + i);
+        }
+        var mostOverdue = UserCardSrsDAOTests.createCard(cardDAO, deck, "overdue");
+        UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, mostOverdue, now.minusDays(2));
+        UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, UserCardSrsDAOTests.createCard(cardDAO, deck, "due"), now.minusHours(1));
+
+        var queue = srsDailyLimitService.queue(user, null, now);
+        assertEquals(3, queue.size());
+        assertEquals(mostOverdue.getId(), queue.get(0).card().getId());
+        assertEquals(2, queue.stream().filter(SrsQueueEntry::isNew).count());
+        // The same cards are picked for the rest of the day
+        assertEquals(queue.stream().map(e -> e.card().getId()).toList(),
+                srsDailyLimitService.queue(user, deck.getId(), now).stream().map(e -> e.card().getId()).toList());
+
+        // Today's reviews count against the limits
+        srsService.processReview(user, queue.get(1).card(), 4);
+        srsService.processReview(user, queue.get(0).card(), 4);
+        var rest = srsDailyLimitService.queue(user, null, LocalDateTime.now());
+        assertEquals(1, rest.size());
+        assertTrue(rest.get(0).isNew());
+
+        // A deck limit applies on top of the user's
+        deck.setNewCardsPerDay(1);
+        deckDAO.save(deck);
+        assertTrue(srsDailyLimitService.queue(user, deck.getId(), LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    void queueOrderDecidesWhichDueCardsArePicked() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        user.setNewCardsPerDay(0);
+        user.setReviewsPerDay(2);
+        userDAO.save(user);
+        var now = LocalDateTime.now();
+        // Long interval, most overdue, but still likely remembered
+        var mature = createSrs(user, UserCardSrsDAOTests.createCard(cardDAO, deck, "mature"), now.minusDays(2), 30, 2.5f);
+        // Short interval, a day late
+        var young = createSrs(user, UserCardSrsDAOTests.createCard(cardDAO, deck, "young"), now.minusDays(1), 1, 2.5f);
+        // Only just due, but a card the user keeps finding hard
+        var hard = createSrs(user, UserCardSrsDAOTests.createCard(cardDAO, deck, "hard"), now.minusHours(1), 10, 1.3f);
+
+        assertEquals(List.of(mature, young), cardIds(srsDailyLimitService.queue(user, null, now, SrsQueueOrder.OVERDUE, 0L)));
+        assertEquals(List.of(young, hard),
+                cardIds(srsDailyLimitService.queue(user, null, now, SrsQueueOrder.RETRIEVABILITY, 0L)));
+
+        var random = cardIds(srsDailyLimitService.queue(user, null, now, SrsQueueOrder.RANDOM, 42L));
+        assertEquals(2, random.size());
+        assertEquals(random, cardIds(srsDailyLimitService.queue(user, null, now, SrsQueueOrder.RANDOM, 42L)));
+    }
+
+    @Test
+    void decksWithTheirOwnLimitsCompeteForTheUsersAllowance() {
+        var unlimited = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = unlimited.getUser();
+        user.setNewCardsPerDay(0);
+        user.setReviewsPerDay(2);
+        userDAO.save(user);
+        var limited = new Deck();
+        limited.setName("Limited deck");
+        limited.setUser(user);
+        limited.setReviewsPerDay(5);
+        deckDAO.save(limited);
+
+        var now = LocalDateTime.now();
+        for (int i = 0; i < 3; i++) {
+            UserCardSrsDAOTests.createSrs(userCardSrsDAO, user,
+                    UserCardSrsDAOTests.createCard(cardDAO, unlimited, "recent" + i), now.minusHours(1 + i));
+        }
+        var mostOverdue = UserCardSrsDAOTests.createCard(cardDAO, limited, "most overdue");
+        UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, mostOverdue, now.minusDays(5));
+
+        // The decks without limits have more due cards than the user's allowance, yet do not crowd it out
+        var queue = cardIds(srsDailyLimitService.queue(user, null, now, SrsQueueOrder.OVERDUE, 0L));
+        assertEquals(2, queue.size());
+        assertEquals(mostOverdue.getId(), queue.get(0));
+    }
+
+    @Test
+    void interleavedQueueMixesDecksByWeightWithinTheirLimits() {
+        var first = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = first.getUser();
+        user.setNewCardsPerDay(0);
+        userDAO.save(user);
+        var second = new Deck();
+        second.setName("Second deck");
+        second.setUser(user);
+        deckDAO.save(second);
+        var capped = new Deck();
+        capped.setName("Capped deck");
+        capped.setUser(user);
+        capped.setReviewsPerDay(1);
+        deckDAO.save(capped);
+
+        var now = LocalDateTime.now();
+        List<Long> firstDeckOrder = new ArrayList<>();
+        for (var deck : List.of(first, second, capped)) {
+            for (int i = 0; i < 3; i++) {
+                var card = UserCardSrsDAOTests.createCard(cardDAO, deck, deck.getName() + i);
+                UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, card, now.minusDays(10 - i));
+                if (deck == first) {
+                    firstDeckOrder.add(card.getId());
+                }
+            }
+        }
+
+        var queue = srsDailyLimitService.interleavedQueue(user, null, Map.of(first.getId(), 2.0), 5, now);
+        Map<Long, List<Long>> byDeck = new HashMap<>();
+        queue.forEach(e -> byDeck.computeIfAbsent(e.card().getDeck().getId(), id -> new ArrayList<>()).add(e.card().getId()));
+        // Twice the share for the first deck, most overdue first; the capped deck stops at its daily limit
+        assertEquals(firstDeckOrder, byDeck.get(first.getId()));
+        assertEquals(1, byDeck.get(second.getId()).size());
+        assertEquals(1, byDeck.get(capped.getId()).size());
+
+        var onlyTwo = srsDailyLimitService.interleavedQueue(user, List.of(second.getId(), capped.getId()), Map.of(), 10, now);
+        assertEquals(4, onlyTwo.size());
+    }
+
+    @Test
+    void reviewSessionAnswersTheCurrentCardAndAdvances() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var now = LocalDateTime.now();
+        var first = UserCardSrsDAOTests.createCard(cardDAO, deck, "first");
+        var second = UserCardSrsDAOTests.createCard(cardDAO, deck, "second");
+        UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, first, now.minusDays(2));
+        UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, second, now.minusDays(1));
+
+        var session = reviewSessionService.start(user,
+                srsDailyLimitService.queue(user, deck.getId(), now, SrsQueueOrder.OVERDUE, 0L));
+        assertEquals(2, session.size());
+        assertEquals(first.getId(), reviewSessionService.current(user, session).orElseThrow().card().getId());
+
+        // Only the card under the cursor can be answered
+        assertThrows(IllegalStateException.class, () -> reviewSessionService.answer(user, session, second, 4));
+        reviewSessionService.answer(user, session, first, 4);
+        assertThrows(IllegalStateException.class, () -> reviewSessionService.answer(user, session, first, 4));
+        assertEquals(1, session.position());
+        assertEquals(second.getId(), reviewSessionService.current(user, session).orElseThrow().card().getId());
+
+        reviewSessionService.answer(user, session, second, 3);
+        assertTrue(session.isFinished());
+        assertTrue(reviewSessionService.current(user, session).isEmpty());
+
+        reviewJournal.awaitProjected(user.getId());
+        assertEquals(2, userCardSrsDAO.findByUserAndCard(user, first).orElseThrow().getRepetitions());
+        assertEquals(2, reviewLogDAO.findByUserId(user.getId()).size());
+    }
+
+    @Test
+    void simulationCoversReviewedAndNewCards() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        user.setNewCardsPerDay(1);
+        userDAO.save(user);
+        var reviewed = UserCardSrsDAOTests.createCard(cardDAO, deck, "reviewed");
+        UserCardSrsDAOTests.createCard(cardDAO, deck, "new");
+        srsService.processReview(user, reviewed, 4);
+        srsService.processReview(user, reviewed, 2);
+        reviewJournal.awaitProjected(user.getId());
+
+        var today = LocalDateTime.now().toLocalDate();
+        var simulation = srsWorkloadSimulator.simulate(user, 30, 50, 1L, today);
+        assertEquals(1, simulation.reviewedCards());
+        assertEquals(1, simulation.newCards());
+        assertEquals(30, simulation.days().size());
+        // The new card is taken on today; the reviewed card failed its last review and is due tomorrow
+        assertEquals(1, simulation.days().get(0).p50());
+        assertTrue(simulation.days().get(1).p5() >= 1);
+        assertEquals(simulation, srsWorkloadSimulator.simulate(user, 30, 50, 1L, today));
+    }
+
+    private Long createSrs(User user, Card card, LocalDateTime nextReviewAt, int intervalDays, float easeFactor) {
+        var srs = UserCardSrsDAOTests.createSrs(userCardSrsDAO, user, card, nextReviewAt);
+        srs.setIntervalDays(intervalDays);
+        srs.setEaseFactor(easeFactor);
+        srs.setLastReviewedAt(nextReviewAt.minusDays(intervalDays));
+        userCardSrsDAO.save(srs);
+        return card.getId();
+    }
+
+    private static List<Long> cardIds(List<SrsQueueEntry> queue) {
+        return queue.stream().map(e -> e.card().getId()).toList();
+    }
+}
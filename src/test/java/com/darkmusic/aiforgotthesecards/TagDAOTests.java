@@ -2,10 +2,19 @@ package com.darkmusic.aiforgotthesecards;
 
 import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.TagDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.TagResolutionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 @SpringBootTest
 @TestPropertySource("/application-test.properties")
@@ -13,6 +22,12 @@ public class TagDAOTests {
     @Autowired
     private TagDAO tagDAO;
 
+    @Autowired
+    private TagResolutionService tagResolutionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     static Tag createTag(TagDAO tagDAO) {
         var tag = new Tag();
         tag.setName("Test Tag " + System.currentTimeMillis());
@@ -25,4 +40,55 @@ public class TagDAOTests {
         System.out.println("Testing tag creation");
         createTag(tagDAO);
     }
+
+    @Test
+    void resolvesExistingTagsIgnoringCaseAndCreatesMissingOnes() {
+        String suffix = String.valueOf(System.nanoTime());
+        var existing = new Tag();
+        existing.setName("Resolve Existing " + suffix);
+        tagDAO.save(existing);
+        long before = tagDAO.count();
+
+        Map<String, Long> ids = tagResolutionService.resolve(List.of(
+                "  resolve   EXISTING " + suffix, "Resolve New " + suffix, "resolve new " + suffix, " "));
+
+        assertEquals(2, ids.size());
+        assertEquals(existing.getId(), ids.get("resolve existing " + suffix));
+        Long created = ids.get("resolve new " + suffix);
+        assertNotEquals(null, created);
+        assertEquals("Resolve New " + suffix, tagDAO.findById(created).orElseThrow().getName());
+        assertEquals(before + 1, tagDAO.count());
+
+        // Resolving again, from the cache or not, neither creates nor changes anything
+        assertEquals(ids, tagResolutionService.resolve(List.of("Resolve Existing " + suffix, "RESOLVE NEW " + suffix)));
+        assertEquals(before + 1, tagDAO.count());
+    }
+
+    @Test
+    void findOrCreateIdsCreatesOnlyTheNamesThatDoNotExist() {
+        String suffix = String.valueOf(System.nanoTime());
+        var existing = new Tag();
+        existing.setName("Insert Existing " + suffix);
+        tagDAO.save(existing);
+
+        Map<String, Long> ids = new TransactionTemplate(transactionManager).execute(status ->
+                tagDAO.findOrCreateIds(List.of("insert EXISTING " + suffix, "Insert New " + suffix)));
+
+        assertEquals(existing.getId(), ids.get("insert EXISTING " + suffix));
+        assertEquals("Insert New " + suffix, tagDAO.findById(ids.get("Insert New " + suffix)).orElseThrow().getName());
+    }
+
+    @Test
+    void findOrCreateIdsTakesIdsOnlyForTheNamesThatDoNotExist() {
+        String suffix = String.valueOf(System.nanoTime());
+        var existing = new Tag();
+        existing.setName("Id Existing " + suffix);
+        tagDAO.save(existing);
+
+        Map<String, Long> ids = new TransactionTemplate(transactionManager).execute(status ->
+                tagDAO.findOrCreateIds(List.of("Id First " + suffix, "Id Existing " + suffix, "Id Second " + suffix)));
+
+        // The existing name sits between the new ones, yet no id was spent on it
+        assertEquals(ids.get("Id First " + suffix) + 1, ids.get("Id Second " + suffix));
+    }
 }
@@ -0,0 +1,233 @@
+package com.darkmusic.aiforgotthesecards;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource("/application-test.properties")
+public class UserCardSrsDAOTests {
+    @Autowired
+    private UserCardSrsDAO userCardSrsDAO;
+
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private DeckDAO deckDAO;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private TagDAO tagDAO;
+
+    @Autowired
+    private ThemeDAO themeDAO;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    static Card createCard(CardDAO cardDAO, Deck deck, String front) {
+        var card = new Card();
+        card.setFront(front);
+        card.setBack("Back of " + front);
+        card.setDeck(deck);
+        cardDAO.save(card);
+        return card;
+    }
+
+    static Tag createTag(TagDAO tagDAO, String prefix) {
+        var tag = new Tag();
+        tag.setName(prefix + " " + System.nanoTime());
+        tagDAO.save(tag);
+        return tag;
+    }
+
+    static UserCardSrs createSrs(UserCardSrsDAO userCardSrsDAO, User user, Card card, LocalDateTime nextReviewAt) {
+        var srs = new UserCardSrs();
+        srs.setUser(user);
+        srs.setCard(card);
+        srs.setNextReviewAt(nextReviewAt);
+        srs.setIntervalDays(1);
+        srs.setEaseFactor(2.5f);
+        srs.setRepetitions(1);
+        srs.setLastReviewedAt(nextReviewAt.minusDays(1));
+        userCardSrsDAO.save(srs);
+        return srs;
+    }
+
+    @Test
+    void queueEntriesIncludeDueAndNewCardsOnly() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var now = LocalDateTime.now();
+
+        var newCard = createCard(cardDAO, deck, "new");
+        newCard.setTags(Set.of(createTag(tagDAO, "queue-a"), createTag(tagDAO, "queue-b")));
+        cardDAO.save(newCard);
+        var dueCard = createCard(cardDAO, deck, "due");
+        var laterCard = createCard(cardDAO, deck, "later");
+        createSrs(userCardSrsDAO, user, dueCard, now.minusHours(1));
+        createSrs(userCardSrsDAO, user, laterCard, now.plusDays(3));
+
+        List<SrsQueueEntry> due = userCardSrsDAO.findQueueEntries(user, deck.getId(), now);
+        assertEquals(2, due.size());
+        assertTrue(due.stream().anyMatch(e -> e.isNew() && e.card().getId().equals(newCard.getId())));
+        assertTrue(due.stream().anyMatch(e -> !e.isNew() && e.card().getId().equals(dueCard.getId())));
+
+        List<SrsQueueEntry> cram = userCardSrsDAO.findQueueEntries(user, deck.getId(), null);
+        assertEquals(3, cram.size());
+
+        // Another user's deck never leaks into the queue
+        var otherDeck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        createCard(cardDAO, otherDeck, "foreign");
+        assertTrue(userCardSrsDAO.findQueueEntries(user, otherDeck.getId(), null).isEmpty());
+    }
+
+    @Test
+    void duePagesFollowKeysetOrder() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var now = LocalDateTime.now();
+
+        var oldest = createCard(cardDAO, deck, "oldest");
+        var middle = createCard(cardDAO, deck, "middle");
+        var newest = createCard(cardDAO, deck, "newest");
+        createSrs(userCardSrsDAO, user, middle, now.minusDays(2));
+        createSrs(userCardSrsDAO, user, oldest, now.minusDays(3));
+        createSrs(userCardSrsDAO, user, newest, now.minusDays(1));
+        var fresh1 = createCard(cardDAO, deck, "fresh1");
+        var fresh2 = createCard(cardDAO, deck, "fresh2");
+
+        var first = userCardSrsDAO.findDuePage(user, deck.getId(), now, null, null, 2);
+        assertEquals(List.of(oldest.getId(), middle.getId()), first.stream().map(e -> e.card().getId()).toList());
+
+        var last = first.get(1).srs();
+        var second = userCardSrsDAO.findDuePage(user, deck.getId(), now, last.getNextReviewAt(), middle.getId(), 2);
+        assertEquals(List.of(newest.getId()), second.stream().map(e -> e.card().getId()).toList());
+
+        var fresh = userCardSrsDAO.findNewPage(user, deck.getId(), null, 10);
+        assertEquals(List.of(fresh1.getId(), fresh2.getId()), fresh.stream().map(e -> e.card().getId()).toList());
+        assertTrue(userCardSrsDAO.findNewPage(user, deck.getId(), fresh2.getId(), 10).isEmpty());
+    }
+
+    @Test
+    void streamedQueueArrivesInChunksWithTags() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var tag = createTag(tagDAO, "stream");
+        for (int i = 0; i < 5; i++) {
+            var card = createCard(cardDAO, deck, "stream" + i);
+            card.setTags(Set.of(tag));
+            cardDAO.save(card);
+        }
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Integer> tagCounts = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                userCardSrsDAO.streamQueueEntries(user, deck.getId(), LocalDateTime.now(), 2, chunk -> {
+                    chunkSizes.add(chunk.size());
+                    chunk.forEach(e -> tagCounts.add(e.card().getTags().size()));
+                }));
+
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        assertTrue(tagCounts.stream().allMatch(n -> n == 1));
+    }
+
+    @Test
+    void deckCountsAreAggregatedPerDeck() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var otherDeck = new Deck();
+        otherDeck.setName("Second deck");
+        otherDeck.setUser(user);
+        deckDAO.save(otherDeck);
+        var now = LocalDateTime.now();
+
+        createCard(cardDAO, deck, "fresh");
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "due"), now.minusHours(1));
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "later"), now.plusDays(2));
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, otherDeck, "other-due"), now.minusDays(1));
+
+        var counts = userCardSrsDAO.countByDeck(user.getId(), null, now);
+        assertEquals(2, counts.size());
+        var first = counts.stream().filter(c -> c.deckId() == deck.getId()).findFirst().orElseThrow();
+        assertEquals(3, first.totalCards());
+        assertEquals(2, first.reviewedCards());
+        assertEquals(1, first.newCards());
+        assertEquals(1, first.dueCards());
+
+        var second = userCardSrsDAO.countByDeck(user.getId(), List.of(otherDeck.getId()), now);
+        assertEquals(1, second.size());
+        assertEquals(1, second.get(0).dueCards());
+
+        // Another user's id matches none of these decks
+        var stranger = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO).getUser();
+        assertTrue(userCardSrsDAO.countByDeck(stranger.getId(), List.of(deck.getId()), now).isEmpty());
+    }
+
+    @Test
+    void dueCountsAreBucketedByDay() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        var user = deck.getUser();
+        var today = LocalDate.now();
+
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "overdue"), today.minusDays(3).atTime(9, 0));
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "morning"), today.plusDays(1).atTime(8, 0));
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "evening"), today.plusDays(1).atTime(21, 30));
+        createSrs(userCardSrsDAO, user, createCard(cardDAO, deck, "beyond"), today.plusDays(2).atTime(0, 0));
+
+        var byDay = userCardSrsDAO.countDueByDay(user.getId(), deck.getId(), today.plusDays(2).atStartOfDay());
+        assertEquals(Map.of(today.minusDays(3), 1L, today.plusDays(1), 2L), byDay);
+
+        var otherDeck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        assertTrue(userCardSrsDAO.countDueByDay(user.getId(), otherDeck.getId(), today.plusDays(2).atStartOfDay()).isEmpty());
+    }
+
+    @Test
+    void conditionalWritesDetectConcurrentWriters() {
+        var deck = DeckDAOTests.createDeck(deckDAO, userDAO, tagDAO, themeDAO);
+        long userId = deck.getUser().getId();
+        var card = createCard(cardDAO, deck, "versioned");
+        var now = LocalDateTime.now().withNano(0);
+        var first = new SrsCardState(card.getId(), deck.getId(), now.plusDays(1), 1, 2.5f, 1, now);
+        var second = new SrsCardState(card.getId(), deck.getId(), now.plusDays(6), 6, 2.6f, 2, now.plusMinutes(5));
+        var transaction = new TransactionTemplate(transactionManager);
+
+        assertEquals(Boolean.TRUE, transaction.execute(status -> userCardSrsDAO.upsertState(userId, first, null, null)));
+        // A second writer that also saw no row loses instead of hitting the unique constraint
+        assertEquals(Boolean.FALSE, transaction.execute(status -> userCardSrsDAO.upsertState(userId, second, null, null)));
+
+        var stored = userCardSrsDAO.findVersionedStates(userId, List.of(card.getId())).get(card.getId());
+        assertEquals(first, stored.state());
+        assertEquals(Boolean.TRUE, transaction.execute(status ->
+                userCardSrsDAO.upsertState(userId, second, stored.version(), null)));
+        // The version moved on, so a write computed from the old row is rejected
+        assertEquals(Boolean.FALSE, transaction.execute(status ->
+                userCardSrsDAO.upsertState(userId, first, stored.version(), null)));
+
+        var updated = userCardSrsDAO.findVersionedStates(userId, List.of(card.getId())).get(card.getId());
+        assertEquals(second, updated.state());
+        assertEquals(stored.version() + 1, updated.version());
+        assertEquals(1, userCardSrsDAO.findStatesByUser(userId).size());
+    }
+}
@@ -0,0 +1,33 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnkiTemplatesTest {
+
+    @Test
+    void rendersFieldsSectionsAndFilters() {
+        Map<String, String> fields = Map.of("Front", "<b>chat</b>", "Back", "cat", "Note", "");
+
+        assertEquals("<b>chat</b>", AnkiTemplates.render("{{Front}}{{type:Back}}", fields, 1, false));
+        assertEquals("chat / cat", AnkiTemplates.render("{{text:Front}} / {{back}}", fields, 1, false));
+        assertEquals("cat no note", AnkiTemplates.render(
+                "{{FrontSide}}\n\n<hr id=answer>\n\n{{Back}}{{#Note}} ({{Note}}){{/Note}}{{^Note}} no note{{/Note}}",
+                fields, 1, true));
+    }
+
+    @Test
+    void hidesOnlyTheCardsClozeOnTheFrontAndRevealsItOnTheBack() {
+        Map<String, String> fields = Map.of("Text", "{{c1::Paris}} is the capital of {{c2::France::country}}");
+
+        assertEquals("Paris is the capital of <span class=\"cloze\">[country]</span>",
+                AnkiTemplates.render("{{cloze:Text}}", fields, 2, false));
+        assertEquals("<span class=\"cloze\">[...]</span> is the capital of France",
+                AnkiTemplates.render("{{cloze:Text}}", fields, 1, false));
+        assertEquals("<span class=\"cloze\">Paris</span> is the capital of France",
+                AnkiTemplates.render("{{cloze:Text}}", fields, 1, true));
+    }
+}
@@ -0,0 +1,32 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRowReaderTest {
+
+    @Test
+    void readsQuotedFieldsLineEndingsAndEmptyLines() throws IOException {
+        CsvRowReader csv = new CsvRowReader(new StringReader(
+                "﻿a,b\r\n\r\n\"x, \"\"y\"\"\",\"two\nlines\",\n,\nlast"), 1000);
+
+        assertEquals(List.of("a", "b"), csv.next());
+        assertEquals(List.of("x, \"y\"", "two\nlines", ""), csv.next());
+        assertEquals(List.of("", ""), csv.next());
+        assertEquals(List.of("last"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void rejectsUnclosedQuotesAndOverlongRows() {
+        assertThrows(IOException.class, () -> new CsvRowReader(new StringReader("\"open,field\n"), 1000).next());
+        assertThrows(IOException.class, () -> new CsvRowReader(new StringReader("a".repeat(11)), 10).next());
+    }
+}
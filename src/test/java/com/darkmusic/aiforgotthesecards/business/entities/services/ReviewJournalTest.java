@@ -0,0 +1,190 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.ReviewLog;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.ReviewLogDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.VersionedSrsState;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewJournalTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 10, 12, 0);
+
+    /**
+     * Transactions without a database: enough for the synchronization callbacks the journal relies on.
+     */
+    private static final class CallbackTransactionManager extends AbstractPlatformTransactionManager {
+        private int begun;
+
+        @Override
+        protected Object doGetTransaction() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return (Boolean) transaction;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begun++;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        }
+    }
+
+    @Test
+    void failedProjectionInsideAnOuterTransactionIsRetriedAfterItRollsBack() {
+        UserCardSrsDAO userCardSrsDAO = mock(UserCardSrsDAO.class);
+        CardDAO cardDAO = mock(CardDAO.class);
+        Deck deck = new Deck();
+        deck.setId(3L);
+        Card card = new Card();
+        card.setId(5L);
+        card.setDeck(deck);
+        when(userCardSrsDAO.findVersionedStates(anyLong(), anyCollection())).thenReturn(Map.of());
+        when(cardDAO.findAllByIdWithDeck(anyCollection())).thenReturn(List.of(card));
+        when(userCardSrsDAO.upsertState(eq(7L), any(), any(), any()))
+                .thenThrow(new IllegalStateException("upsert failed"))
+                .thenReturn(true);
+        CallbackTransactionManager transactionManager = new CallbackTransactionManager();
+        ReviewJournal journal = new ReviewJournal(userCardSrsDAO, cardDAO, mock(ReviewLogDAO.class),
+                mock(DeckSrsCounterService.class), mock(EntityManager.class), transactionManager,
+                true, 16, 16, Duration.ZERO, Duration.ofSeconds(1), Duration.ofDays(1));
+        // Stop the projector so only awaitProjected writes
+        journal.shutdown();
+
+        ReviewLog review = new ReviewLog();
+        review.setUserId(7L);
+        review.setCardId(5L);
+        review.setQuality(4);
+        logState(review, new SrsCardState(5L, 3L, NOW.plusDays(1), 1, 2.5f, 1, NOW));
+        SrsCardState state = ReviewJournal.toState(review);
+        journal.awaitDurable(7L, journal.append(List.of(review)));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThrows(IllegalStateException.class, () -> journal.awaitProjected(7L));
+            status.setRollbackOnly();
+        });
+
+        // The card went back to waiting when the outer transaction rolled back, so it is projected now
+        journal.awaitProjected(7L);
+        verify(userCardSrsDAO, times(2)).upsertState(eq(7L), eq(state), any(), any());
+        assertTrue(journal.pendingState(7L, 5L).isEmpty());
+    }
+
+    @Test
+    void reviewIsAppliedAgainOnTopOfARowThatChangedWhileProjecting() {
+        UserCardSrsDAO userCardSrsDAO = mock(UserCardSrsDAO.class);
+        // Read when the review was made: one successful review behind it
+        SrsCardState first = new SrsCardState(5L, 3L, NOW.minusDays(1), 1, 2.5f, 1, NOW.minusDays(2));
+        // Written by someone else before the projection got there: two more successful reviews
+        SrsCardState concurrent = new SrsCardState(5L, 3L, NOW.minusHours(1), 6, 2.6f, 2, NOW.minusDays(1));
+        when(userCardSrsDAO.findVersionedStates(anyLong(), anyCollection()))
+                .thenReturn(Map.of(5L, new VersionedSrsState(first, 0)))
+                .thenReturn(Map.of(5L, new VersionedSrsState(concurrent, 1)));
+        when(userCardSrsDAO.upsertState(eq(7L), any(), any(), any())).thenReturn(false).thenReturn(true);
+        CallbackTransactionManager transactionManager = new CallbackTransactionManager();
+        ReviewJournal journal = new ReviewJournal(userCardSrsDAO, mock(CardDAO.class), mock(ReviewLogDAO.class),
+                mock(DeckSrsCounterService.class), mock(EntityManager.class), transactionManager,
+                true, 16, 16, Duration.ZERO, Duration.ofSeconds(1), Duration.ofDays(1));
+        journal.shutdown();
+
+        ReviewLog review = new ReviewLog();
+        review.setUserId(7L);
+        review.setCardId(5L);
+        review.setQuality(5);
+        review.setIntervalBefore(1);
+        logState(review, new SrsCardState(5L, 3L, NOW.plusDays(6), 6, 2.6f, 2, NOW));
+        SrsCardState computed = ReviewJournal.toState(review);
+        journal.awaitDurable(7L, journal.append(List.of(review)));
+        journal.awaitProjected(7L);
+
+        // Third successful review: 6 days times the concurrent row's ease, not the stale 6-day interval again
+        ArgumentCaptor<SrsCardState> written = ArgumentCaptor.forClass(SrsCardState.class);
+        verify(userCardSrsDAO, times(2)).upsertState(eq(7L), written.capture(), any(), any());
+        assertEquals(computed, written.getAllValues().get(0));
+        SrsCardState retried = written.getAllValues().get(1);
+        assertEquals(3, retried.repetitions());
+        assertEquals(16, retried.intervalDays());
+        assertEquals(NOW.plusDays(16), retried.nextReviewAt());
+        assertEquals(NOW, retried.lastReviewedAt());
+        verify(userCardSrsDAO).upsertState(eq(7L), eq(retried), eq(1L), any());
+    }
+
+    @Test
+    void oneCallersReviewsAreCommittedInOneTransactionEvenAboveTheBatchSize() {
+        ReviewLogDAO reviewLogDAO = mock(ReviewLogDAO.class);
+        CallbackTransactionManager transactionManager = new CallbackTransactionManager();
+        ReviewJournal journal = new ReviewJournal(mock(UserCardSrsDAO.class), mock(CardDAO.class), reviewLogDAO,
+                mock(DeckSrsCounterService.class), mock(EntityManager.class), transactionManager,
+                true, 16, 16, Duration.ZERO, Duration.ofSeconds(1), Duration.ofDays(1));
+        journal.shutdown();
+
+        List<ReviewLog> reviews = new ArrayList<>();
+        for (long cardId = 1; cardId <= 40; cardId++) {
+            ReviewLog review = new ReviewLog();
+            review.setUserId(7L);
+            review.setCardId(cardId);
+            review.setQuality(4);
+            review.setIntervalBefore(1);
+            logState(review, new SrsCardState(cardId, 3L, NOW.plusDays(6), 6, 2.5f, 2, NOW));
+            reviews.add(review);
+        }
+        int begun = transactionManager.begun;
+        journal.awaitDurable(7L, journal.append(reviews));
+
+        // More reviews than both the batch size and the buffer, yet not split between transactions
+        assertEquals(begun + 1, transactionManager.begun);
+        verify(reviewLogDAO, times(40)).save(any());
+    }
+
+    private static void logState(ReviewLog review, SrsCardState after) {
+        review.setDeckId(after.deckId());
+        review.setNextReviewAt(after.nextReviewAt());
+        review.setIntervalAfter(after.intervalDays());
+        review.setEaseAfter(after.easeFactor());
+        review.setRepetitionsAfter(after.repetitions());
+        review.setReviewedAt(after.lastReviewedAt());
+    }
+}
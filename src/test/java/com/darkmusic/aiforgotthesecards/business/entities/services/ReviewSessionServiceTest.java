@@ -0,0 +1,65 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQueueEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewSessionServiceTest {
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static List<SrsQueueEntry> queue(long... cardIds) {
+        return Arrays.stream(cardIds).mapToObj(id -> {
+            Card card = new Card();
+            card.setId(id);
+            return new SrsQueueEntry(card, null);
+        }).toList();
+    }
+
+    private static ReviewSessionService service(int maxSessions, Duration idleTimeout) {
+        return new ReviewSessionService(null, null, null, new SimpleMeterRegistry(), maxSessions, idleTimeout);
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedSessionsForTheirOwners() {
+        ReviewSessionService sessions = service(2, Duration.ofHours(1));
+        User alice = user(1);
+        ReviewSession first = sessions.start(alice, queue(10, 11, 12));
+        ReviewSession second = sessions.start(alice, queue(20));
+
+        assertEquals(3, first.size());
+        assertEquals(0, first.position());
+        assertTrue(sessions.find(user(2), first.id()).isEmpty());
+        // Using the first session makes the second the least recently used
+        assertSame(first, sessions.find(alice, first.id()).orElseThrow());
+
+        sessions.start(alice, queue(30));
+        assertTrue(sessions.find(alice, second.id()).isEmpty());
+        assertTrue(sessions.find(alice, first.id()).isPresent());
+
+        sessions.end(first);
+        assertTrue(sessions.find(alice, first.id()).isEmpty());
+    }
+
+    @Test
+    void idleSessionsExpire() throws InterruptedException {
+        ReviewSessionService sessions = service(10, Duration.ofMillis(50));
+        User alice = user(1);
+        ReviewSession session = sessions.start(alice, queue(10));
+
+        Thread.sleep(100);
+        assertTrue(sessions.find(alice, session.id()).isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SrsColumnStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 10, 12, 0);
+
+    private static SrsCardState state(long cardId, long deckId, LocalDateTime nextReviewAt) {
+        return new SrsCardState(cardId, deckId, nextReviewAt, 1, 2.5f, 1, nextReviewAt.minusDays(1));
+    }
+
+    @Test
+    void countsAndSelectsDueCardsAcrossUpdates() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        when(dao.findStatesByUser(7L)).thenReturn(List.of(
+                state(1L, 1L, NOW.minusDays(2)),
+                state(2L, 2L, NOW.minusHours(1)),
+                state(3L, 1L, NOW.plusDays(1)),
+                state(4L, 1L, NOW.minusDays(2))));
+        SrsColumnStore store = new SrsColumnStore(dao, true, 10);
+
+        assertEquals(3, store.dueCount(7L, null, NOW));
+        assertEquals(2, store.dueCount(7L, 1L, NOW));
+        assertEquals(3, store.reviewedCount(7L, 1L));
+        // Most overdue first, ties broken by card id
+        assertArrayEquals(new long[]{1L, 4L, 2L}, store.dueCardIds(7L, null, NOW, 10));
+        assertArrayEquals(new long[]{1L, 4L}, store.dueCardIds(7L, null, NOW, 2));
+        assertArrayEquals(new long[]{2L}, store.dueCardIds(7L, List.of(2L), NOW, 10));
+
+        // Reviewing card 1 pushes it into the future; removing card 4 swaps the last row into its place
+        store.onStateChanged(new SrsStateChangedEvent(7L, state(1L, 1L, NOW.plusDays(6))));
+        store.remove(7L, 4L);
+        assertArrayEquals(new long[]{2L}, store.dueCardIds(7L, null, NOW, 10));
+        assertEquals(3, store.reviewedCount(7L, null));
+
+        store.moveCard(7L, 3L, 2L);
+        assertArrayEquals(new long[]{2L, 3L}, store.dueCardIds(7L, List.of(2L), NOW.plusDays(2), 10));
+
+        verify(dao, times(1)).findStatesByUser(7L);
+    }
+
+    @Test
+    void selectsDueCardsInTheRequestedOrder() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        when(dao.findStatesByUser(7L)).thenReturn(List.of(
+                new SrsCardState(1L, 1L, NOW.minusDays(2), 30, 2.5f, 5, NOW.minusDays(32)),
+                new SrsCardState(2L, 1L, NOW.minusDays(1), 1, 2.5f, 1, NOW.minusDays(2)),
+                new SrsCardState(3L, 1L, NOW.minusHours(1), 10, 1.3f, 3, NOW.minusDays(10)),
+                new SrsCardState(4L, 1L, NOW.plusDays(1), 1, 1.3f, 1, NOW)));
+        SrsColumnStore store = new SrsColumnStore(dao, true, 10);
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, store.dueCardIds(7L, null, NOW, 10, SrsQueueOrder.OVERDUE, 0L));
+        // Least likely to be recalled first: one day late on a one-day interval, then the low-ease card
+        assertArrayEquals(new long[]{2L, 3L}, store.dueCardIds(7L, null, NOW, 2, SrsQueueOrder.RETRIEVABILITY, 0L));
+        long[] random = store.dueCardIds(7L, null, NOW, 10, SrsQueueOrder.RANDOM, 42L);
+        assertEquals(3, random.length);
+        assertArrayEquals(random, store.dueCardIds(7L, null, NOW, 10, SrsQueueOrder.RANDOM, 42L));
+    }
+
+    @Test
+    void forecastsByLocalDay() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        when(dao.findStatesByUser(7L)).thenReturn(List.of(
+                state(1L, 1L, NOW.minusDays(1)),
+                state(2L, 1L, NOW.withHour(0)),
+                state(3L, 1L, NOW.plusDays(1).withHour(23).withMinute(59)),
+                state(4L, 2L, NOW.plusDays(1)),
+                state(5L, 1L, NOW.plusDays(5))));
+        SrsColumnStore store = new SrsColumnStore(dao, true, 10);
+
+        SrsForecast forecast = store.forecast(7L, null, NOW.toLocalDate(), 3);
+        assertEquals(1, forecast.overdueCards());
+        assertEquals(List.of(1L, 2L, 0L), forecast.dueByDay());
+        assertEquals(List.of(1L, 1L, 0L), store.forecast(7L, 1L, NOW.toLocalDate(), 3).dueByDay());
+    }
+
+    @Test
+    void growsPastInitialCapacity() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        List<SrsCardState> states = new ArrayList<>();
+        for (long cardId = 1; cardId <= 1000; cardId++) {
+            states.add(state(cardId, 1L, NOW.minusMinutes(cardId)));
+        }
+        when(dao.findStatesByUser(7L)).thenReturn(states);
+        SrsColumnStore store = new SrsColumnStore(dao, true, 10);
+
+        assertEquals(1000, store.dueCount(7L, null, NOW));
+        for (long cardId = 1; cardId <= 1000; cardId += 2) {
+            store.remove(7L, cardId);
+        }
+        assertEquals(500, store.reviewedCount(7L, null));
+        assertArrayEquals(new long[]{1000L, 998L, 996L}, store.dueCardIds(7L, null, NOW, 3));
+    }
+}
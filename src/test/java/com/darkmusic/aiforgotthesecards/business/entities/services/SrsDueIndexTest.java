@@ -0,0 +1,69 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SrsDueIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 10, 12, 0);
+
+    private static SrsCardState state(long cardId, LocalDateTime nextReviewAt) {
+        return new SrsCardState(cardId, 1L, nextReviewAt, 1, 2.5f, 1, nextReviewAt.minusDays(1));
+    }
+
+    @Test
+    void tracksDueCountAndNextDueAcrossWriteThroughs() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        when(dao.findStatesByUser(7L)).thenReturn(List.of(
+                state(1L, NOW.minusDays(2)),
+                state(2L, NOW.minusHours(1)),
+                state(3L, NOW.plusDays(1))));
+        SrsDueIndex index = new SrsDueIndex(dao, 10, 1000);
+
+        assertEquals(2, index.dueCount(7L, NOW));
+        assertEquals(1L, index.nextDue(7L, NOW).orElseThrow().cardId());
+
+        // Reviewing the most overdue card pushes it into the future
+        index.onStateChanged(new SrsStateChangedEvent(7L, state(1L, NOW.plusDays(6))));
+        assertEquals(1, index.dueCount(7L, NOW));
+        assertEquals(2L, index.nextDue(7L, NOW).orElseThrow().cardId());
+
+        // Time passing makes card 3 due without any write
+        assertEquals(2, index.dueCount(7L, NOW.plusDays(2)));
+        assertEquals(3, index.reviewedCount(7L));
+
+        // A card reviewed for the first time is added
+        index.onStateChanged(new SrsStateChangedEvent(7L, state(4L, NOW.plusDays(1))));
+        assertEquals(4, index.reviewedCount(7L));
+        assertEquals(3, index.dueCount(7L, NOW.plusDays(2)));
+
+        verify(dao, times(1)).findStatesByUser(7L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUser() {
+        UserCardSrsDAO dao = mock(UserCardSrsDAO.class);
+        when(dao.findStatesByUser(1L)).thenReturn(List.of(state(10L, NOW)));
+        when(dao.findStatesByUser(2L)).thenReturn(List.of(state(20L, NOW)));
+        SrsDueIndex index = new SrsDueIndex(dao, 1, 1000);
+
+        index.dueCount(1L, NOW);
+        index.dueCount(2L, NOW);
+        // User 1 was evicted when user 2 was loaded, so it is built again
+        index.dueCount(1L, NOW);
+
+        verify(dao, times(2)).findStatesByUser(1L);
+        assertTrue(index.nextDue(1L, NOW.minusDays(1)).isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsQualityCounts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SrsWorkloadSimulatorTest {
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+    private static final double[] ALWAYS_FIVE = {0, 0, 0, 0, 0, 1};
+
+    private final SrsWorkloadSimulator simulator = new SrsWorkloadSimulator(null, null, null, null, 2);
+
+    @AfterEach
+    void shutdown() {
+        simulator.shutdown();
+    }
+
+    private static SrsCardState state(long cardId, int dueInDays, int intervalDays, int repetitions) {
+        return new SrsCardState(cardId, 1L, TODAY.plusDays(dueInDays).atTime(9, 0), intervalDays,
+                SrsService.DEFAULT_EASE_FACTOR, repetitions, TODAY.plusDays(dueInDays - intervalDays).atTime(9, 0));
+    }
+
+    private static List<Integer> medians(SrsWorkloadSimulation simulation) {
+        return simulation.days().stream().map(SrsWorkloadSimulation.LoadBand::p50).toList();
+    }
+
+    @Test
+    void followsTheSm2ScheduleWhenEveryAnswerIsPerfect() {
+        // One card in review due in two days, and three new cards taken on one a day
+        var model = new SrsWorkloadSimulator.Model(List.of(state(1, 2, 10, 3)), 3, 1, TODAY, 10, ALWAYS_FIVE, ALWAYS_FIVE);
+
+        var simulation = simulator.simulate(model, TODAY, 10, 20, 7L);
+
+        // New cards come back after 1 and then 6 days; the review card's next interval is past the horizon
+        assertEquals(List.of(1, 2, 3, 1, 0, 0, 0, 1, 1, 1), medians(simulation));
+        assertEquals(simulation.days().get(2), simulation.peak());
+        assertEquals(3, simulation.peak().p5());
+        assertEquals(1, simulation.reviewedCards());
+        assertEquals(3, simulation.newCards());
+    }
+
+    @Test
+    void forgettingRaisesTheLoadAndTheSeedFixesTheOutcome() {
+        List<SrsCardState> states = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            states.add(state(i, i % 30, 30, 4));
+        }
+        var forgetful = SrsWorkloadSimulator.qualityCdf(List.of(
+                new SrsQualityCounts(1, 4, 400), new SrsQualityCounts(4, 4, 600)), false);
+        var model = new SrsWorkloadSimulator.Model(states, 0, 0, TODAY, 60, ALWAYS_FIVE, forgetful);
+        var perfect = new SrsWorkloadSimulator.Model(states, 0, 0, TODAY, 60, ALWAYS_FIVE, ALWAYS_FIVE);
+
+        var first = simulator.simulate(model, TODAY, 60, 200, 42L);
+        assertEquals(first, simulator.simulate(model, TODAY, 60, 200, 42L));
+
+        int forgetfulTotal = medians(first).stream().mapToInt(Integer::intValue).sum();
+        int perfectTotal = medians(simulator.simulate(perfect, TODAY, 60, 200, 42L)).stream().mapToInt(Integer::intValue).sum();
+        assertTrue(forgetfulTotal > perfectTotal, forgetfulTotal + " <= " + perfectTotal);
+        for (var band : first.days()) {
+            assertTrue(band.p5() <= band.p25() && band.p25() <= band.p50()
+                    && band.p50() <= band.p75() && band.p75() <= band.p95());
+        }
+    }
+
+    @Test
+    void qualityDistributionBlendsHistoryWithThePrior() {
+        double[] empty = SrsWorkloadSimulator.qualityCdf(List.of(), true);
+        assertEquals(0.05, empty[0], 1e-9);
+        assertEquals(1.0, empty[5]);
+
+        var history = List.of(
+                new SrsQualityCounts(0, null, 980),
+                new SrsQualityCounts(5, 3, 980));
+        double[] learning = SrsWorkloadSimulator.qualityCdf(history, true);
+        double[] review = SrsWorkloadSimulator.qualityCdf(history, false);
+        // 980 of 1000 learning reviews failed outright, plus the prior's single review at quality 0
+        assertEquals(981 / 1000.0, learning[0], 1e-9);
+        assertEquals((1000 - 980 - 6) / 1000.0, review[4], 1e-9);
+    }
+}
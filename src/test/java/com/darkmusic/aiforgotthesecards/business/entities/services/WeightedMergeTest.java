@@ -0,0 +1,49 @@
+package com.darkmusic.aiforgotthesecards.business.entities.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WeightedMergeTest {
+
+    /** Items "name0", "name1", ... up to {@code size}, counting how many were handed out. */
+    private static WeightedMerge.Cursor<String> source(String name, int size, AtomicInteger read) {
+        int[] next = {0};
+        return max -> {
+            List<String> batch = new ArrayList<>();
+            while (batch.size() < max && next[0] < size) {
+                batch.add(name + next[0]++);
+            }
+            read.addAndGet(batch.size());
+            return batch;
+        };
+    }
+
+    @Test
+    void interleavesByWeightAndReadsOnlyWhatItReturns() {
+        AtomicInteger read = new AtomicInteger();
+        WeightedMerge<String> merge = new WeightedMerge<>();
+        merge.add(source("a", 1000, read), 2, Integer.MAX_VALUE);
+        merge.add(source("b", 1000, read), 1, Integer.MAX_VALUE);
+        merge.add(source("c", 1000, read), 1, Integer.MAX_VALUE);
+
+        assertEquals(List.of("a0", "a1", "b0", "c0", "a2", "a3", "b1", "c1"), merge.take(8));
+        assertEquals(8, read.get());
+    }
+
+    @Test
+    void exhaustedOrCappedSourcesGiveWayToTheRest() {
+        AtomicInteger read = new AtomicInteger();
+        WeightedMerge<String> merge = new WeightedMerge<>();
+        merge.add(source("a", 2, read), 1, Integer.MAX_VALUE);
+        merge.add(source("b", 1000, read), 1, 3);
+        merge.add(source("c", 1000, read), 1, 0);
+        merge.add(source("d", 1000, read), 1, Integer.MAX_VALUE);
+
+        assertEquals(List.of("a0", "b0", "d0", "a1", "b1", "d1", "b2", "d2", "d3", "d4"), merge.take(10));
+    }
+}
@@ -1,13 +1,42 @@
 package com.darkmusic.aiforgotthesecards.config;
 
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.Deck;
+import com.darkmusic.aiforgotthesecards.business.entities.Tag;
 import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.UserCardSrs;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.TagDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
 import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportFormat;
+import com.darkmusic.aiforgotthesecards.business.entities.services.CardImportService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewJournal;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewOutcome;
+import com.darkmusic.aiforgotthesecards.business.entities.services.ReviewSubmission;
+import com.darkmusic.aiforgotthesecards.business.entities.services.SrsService;
+import com.darkmusic.aiforgotthesecards.business.entities.services.TagResolutionService;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkCardItem;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsRequest;
+import com.darkmusic.aiforgotthesecards.web.contracts.BulkSaveCardsResponse;
+import com.darkmusic.aiforgotthesecards.web.controller.CardController;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -36,6 +65,36 @@ class SqliteDatabaseVendorSmokeTest {
     @Autowired
     private UserDAO userDAO;
 
+    @Autowired
+    private DeckDAO deckDAO;
+
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private UserCardSrsDAO userCardSrsDAO;
+
+    @Autowired
+    private TagDAO tagDAO;
+
+    @Autowired
+    private TagResolutionService tagResolutionService;
+
+    @Autowired
+    private CardImportService cardImportService;
+
+    @Autowired
+    private CardController cardController;
+
+    @Autowired
+    private SrsService srsService;
+
+    @Autowired
+    private ReviewJournal reviewJournal;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void bootsAndCanPersistUser() {
         User user = new User();
@@ -53,4 +112,196 @@ class SqliteDatabaseVendorSmokeTest {
         assertThat(loaded).isPresent();
         assertThat(loaded.get().getUsername()).isEqualTo("sqlite_smoke_user");
     }
+
+    @Test
+    void dueCountsAreBucketedByLocalDay() {
+        User user = new User();
+        user.setUsername("sqlite_forecast_user");
+        user.setName("SQLite Forecast");
+        user.setPassword_hash("$2b$10$cdHhlMdofgY0HJ1EYYXuK.6WqOXHcv9nzhHSCHnMkKXh1pwt0yWd6");
+        user.setActive(true);
+        userDAO.save(user);
+        Deck deck = new Deck();
+        deck.setName("SQLite Forecast");
+        deck.setUser(user);
+        deckDAO.save(deck);
+
+        // Timestamps are stored as epoch millis here, so grouping must still land on calendar days
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        for (int hour : new int[]{0, 9, 23}) {
+            saveDueCard(user, deck, tomorrow.atTime(hour, 59));
+        }
+
+        assertThat(userCardSrsDAO.countDueByDay(user.getId(), deck.getId(), tomorrow.plusDays(1).atStartOfDay()))
+                .isEqualTo(Map.of(tomorrow, 3L));
+    }
+
+    @Test
+    void dueCountsUseEachDaysOwnOffsetAcrossDaylightSaving() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            User user = new User();
+            user.setUsername("sqlite_dst_user");
+            user.setName("SQLite DST");
+            user.setPassword_hash("$2b$10$cdHhlMdofgY0HJ1EYYXuK.6WqOXHcv9nzhHSCHnMkKXh1pwt0yWd6");
+            user.setActive(true);
+            userDAO.save(user);
+            Deck deck = new Deck();
+            deck.setName("SQLite DST");
+            deck.setUser(user);
+            deckDAO.save(deck);
+
+            // Clocks went forward on 2026-03-08: late on the 7th is EST, just after midnight on the 9th is EDT
+            saveDueCard(user, deck, LocalDateTime.of(2026, 3, 7, 23, 30));
+            saveDueCard(user, deck, LocalDateTime.of(2026, 3, 9, 0, 30));
+            saveDueCard(user, deck, LocalDateTime.of(2026, 3, 9, 23, 30));
+
+            assertThat(userCardSrsDAO.countDueByDay(user.getId(), deck.getId(), LocalDateTime.of(2026, 3, 10, 0, 0)))
+                    .isEqualTo(Map.of(LocalDate.of(2026, 3, 7), 1L, LocalDate.of(2026, 3, 9), 2L));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private void saveDueCard(User user, Deck deck, LocalDateTime nextReviewAt) {
+        Card card = new Card();
+        card.setFront("Due at " + nextReviewAt);
+        card.setDeck(deck);
+        cardDAO.save(card);
+        UserCardSrs srs = new UserCardSrs();
+        srs.setUser(user);
+        srs.setCard(card);
+        srs.setNextReviewAt(nextReviewAt);
+        srs.setIntervalDays(1);
+        srs.setEaseFactor(2.5f);
+        srs.setRepetitions(1);
+        srs.setLastReviewedAt(nextReviewAt.minusDays(1));
+        userCardSrsDAO.save(srs);
+    }
+
+    @Test
+    void bulkSaveCreatesMoreCardsThanOneIdBlock() {
+        User user = new User();
+        user.setUsername("sqlite_bulk_user");
+        user.setName("SQLite Bulk");
+        user.setPassword_hash("$2b$10$cdHhlMdofgY0HJ1EYYXuK.6WqOXHcv9nzhHSCHnMkKXh1pwt0yWd6");
+        user.setActive(true);
+        userDAO.save(user);
+        Deck deck = new Deck();
+        deck.setName("SQLite Bulk");
+        deck.setUser(user);
+        deckDAO.save(deck);
+        Card kept = new Card();
+        kept.setFront("Kept");
+        kept.setDeck(deck);
+        cardDAO.save(kept);
+        Card doomed = new Card();
+        doomed.setFront("Doomed");
+        doomed.setDeck(deck);
+        cardDAO.save(doomed);
+
+        BulkCardItem update = new BulkCardItem();
+        update.setId(kept.getId());
+        update.setDeckId(deck.getId());
+        update.setFront("Updated");
+        update.setTags(List.of("sqlite-bulk"));
+        List<BulkCardItem> creates = new ArrayList<>();
+        for (int i = 0; i < 620; i++) {
+            BulkCardItem item = new BulkCardItem();
+            item.setDeckId(deck.getId());
+            item.setFront("Bulk " + i);
+            item.setTags(List.of("sqlite-bulk"));
+            creates.add(item);
+        }
+        BulkSaveCardsRequest request = new BulkSaveCardsRequest();
+        request.setDeleteIds(List.of(doomed.getId()));
+        request.setUpdate(List.of(update));
+        request.setCreate(creates);
+
+        // The new cards need several blocks of card_seq ids, each taken on the generator's own connection
+        BulkSaveCardsResponse response = cardController.bulkSave(request);
+
+        assertThat(response.getCreated()).isEqualTo(620);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getDeleted()).isEqualTo(1);
+        assertThat(cardDAO.findByDeck(deck)).hasSize(621);
+        assertThat(cardDAO.findById(kept.getId())).get().extracting(Card::getFront).isEqualTo("Updated");
+    }
+
+    @Test
+    void reviewsOfMoreNewCardsThanOneIdBlockAreProjectedInsideAReadingTransaction() {
+        User user = new User();
+        user.setUsername("sqlite_review_user");
+        user.setName("SQLite Review");
+        user.setPassword_hash("$2b$10$cdHhlMdofgY0HJ1EYYXuK.6WqOXHcv9nzhHSCHnMkKXh1pwt0yWd6");
+        user.setActive(true);
+        userDAO.save(user);
+        Deck deck = new Deck();
+        deck.setName("SQLite Review");
+        deck.setUser(user);
+        deckDAO.save(deck);
+        List<ReviewSubmission> submissions = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Card card = new Card();
+            card.setFront("Review " + i);
+            card.setDeck(deck);
+            cardDAO.save(card);
+            submissions.add(new ReviewSubmission(card.getId(), 4, null));
+        }
+
+        assertThat(srsService.processReviews(user, submissions))
+                .allMatch(outcome -> outcome.status() == ReviewOutcome.Status.APPLIED);
+
+        // As a read endpoint does: the transaction has read before the new rows are written
+        List<Long> cardIds = submissions.stream().map(ReviewSubmission::cardId).toList();
+        Integer projected = new TransactionTemplate(transactionManager).execute(status -> {
+            userDAO.findById(user.getId());
+            reviewJournal.awaitProjected(user.getId());
+            return userCardSrsDAO.findVersionedStates(user.getId(), cardIds).size();
+        });
+        assertThat(projected).isEqualTo(120);
+    }
+
+    @Test
+    void tagsAreCreatedOnceAndResolvedByName() {
+        Tag existing = new Tag();
+        existing.setName("SQLite Existing");
+        tagDAO.save(existing);
+
+        Map<String, Long> ids = tagResolutionService.resolve(List.of("sqlite existing", "SQLite New", "SQLite Other"));
+
+        assertThat(ids).hasSize(3).containsEntry("sqlite existing", existing.getId());
+        assertThat(tagDAO.findById(ids.get("sqlite new"))).get().extracting(Tag::getName).isEqualTo("SQLite New");
+        // The unique index on tag(name) is the conflict target, so a repeated name is skipped, not duplicated
+        long count = tagDAO.count();
+        assertThat(tagResolutionService.resolve(List.of("SQLite New"))).containsEntry("sqlite new", ids.get("sqlite new"));
+        assertThat(tagDAO.count()).isEqualTo(count);
+    }
+
+    @Test
+    void importCommitsChunksOfNewCards() throws Exception {
+        User user = new User();
+        user.setUsername("sqlite_import_user");
+        user.setName("SQLite Import");
+        user.setPassword_hash("$2b$10$cdHhlMdofgY0HJ1EYYXuK.6WqOXHcv9nzhHSCHnMkKXh1pwt0yWd6");
+        user.setActive(true);
+        userDAO.save(user);
+        Deck deck = new Deck();
+        deck.setName("SQLite Import");
+        deck.setUser(user);
+        deckDAO.save(deck);
+
+        // Enough rows for several chunks, each taking more card ids than the generator hands out per round trip
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            rows.append("{\"front\": \"Word ").append(i).append("\", \"tags\": [\"sqlite-import-")
+                    .append(i % 3).append("\"]}\n");
+        }
+        var done = cardImportService.importCards(deck, CardImportFormat.NDJSON,
+                new ByteArrayInputStream(rows.toString().getBytes(StandardCharsets.UTF_8)), false, 0, progress -> { });
+
+        assertThat(done.imported()).isEqualTo(1200);
+        assertThat(cardDAO.findByDeck(deck)).hasSize(1200);
+    }
 }
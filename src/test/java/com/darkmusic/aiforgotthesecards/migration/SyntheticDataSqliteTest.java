@@ -0,0 +1,106 @@
+package com.darkmusic.aiforgotthesecards.migration;
+
+import com.darkmusic.aiforgotthesecards.business.entities.Card;
+import com.darkmusic.aiforgotthesecards.business.entities.User;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.CardDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.DeckDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.SrsCardState;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserCardSrsDAO;
+import com.darkmusic.aiforgotthesecards.business.entities.repositories.UserDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+        properties = {
+                "DB_VENDOR=sqlite",
+                "SQLITE_DB_PATH=target/test-sqlite/synthetic.db",
+                "spring.jpa.hibernate.ddl-auto=create-drop"
+        }
+)
+class SyntheticDataSqliteTest {
+
+    private static final Path SQLITE_PATH = Path.of("target/test-sqlite/synthetic.db");
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @BeforeAll
+    static void cleanup() throws Exception {
+        Files.createDirectories(SQLITE_PATH.getParent());
+        Files.deleteIfExists(SQLITE_PATH);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private DeckDAO deckDAO;
+
+    @Autowired
+    private CardDAO cardDAO;
+
+    @Autowired
+    private UserCardSrsDAO userCardSrsDAO;
+
+    private static SyntheticDataService.Spec spec(String prefix) {
+        return new SyntheticDataService.Spec(2, 2, 30, 10, 120, 0.8, 7L, AS_OF, prefix, "secret", 25);
+    }
+
+    @Test
+    void generatesReproducibleHistoriesTheAppCanUse() throws Exception {
+        SyntheticDataService service = new SyntheticDataService(dataSource);
+        SyntheticDataService.Summary first = service.generate(spec("a-"));
+        assertEquals(2, first.users());
+        assertEquals(4, first.decks());
+        assertEquals(120, first.cards());
+        assertEquals(10, first.tags());
+        assertTrue(first.srsRecords() > 60 && first.srsRecords() <= 120);
+        assertTrue(first.reviews() > first.srsRecords());
+
+        // States follow the SM-2 rules and are readable through the app's own queries
+        User user = userDAO.findByUsername("a-user-1").orElseThrow();
+        List<SrsCardState> states = userCardSrsDAO.findStatesByUser(user.getId());
+        assertFalse(states.isEmpty());
+        for (SrsCardState state : states) {
+            assertFalse(state.lastReviewedAt().isAfter(AS_OF));
+            assertEquals(state.lastReviewedAt().plusDays(state.intervalDays()), state.nextReviewAt());
+            assertTrue(state.easeFactor() >= 1.3f);
+        }
+
+        // Same seed, same data
+        service.generate(spec("b-"));
+        User twin = userDAO.findByUsername("b-user-1").orElseThrow();
+        assertEquals(describe(states), describe(userCardSrsDAO.findStatesByUser(twin.getId())));
+        assertThrows(IllegalStateException.class, () -> service.generate(spec("a-")));
+
+        // Ids were reserved from Hibernate's sequences, so the app can keep inserting
+        Card card = new Card();
+        card.setFront("after synthetic");
+        card.setBack("back");
+        card.setDeck(deckDAO.findByUser(user).iterator().next());
+        cardDAO.save(card);
+        assertTrue(cardDAO.findById(card.getId()).isPresent());
+    }
+
+    private static List<String> describe(List<SrsCardState> states) {
+        return states.stream()
+                .sorted(Comparator.comparing(SrsCardState::lastReviewedAt).thenComparing(SrsCardState::intervalDays))
+                .map(s -> s.lastReviewedAt() + "/" + s.intervalDays() + "/" + s.easeFactor() + "/" + s.repetitions())
+                .toList();
+    }
+}